@@ -0,0 +1,47 @@
+package com.example.oauth2.benchmark;
+
+import com.example.oauth2.service.OAuth2Service;
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 授权URL构建基准：覆盖 /authorize 请求中的 buildAuthorizationUrl
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthorizationUrlBenchmark {
+    
+    @Param({"google", "facebook", "apple"})
+    public String provider;
+    
+    private OAuth2Service service;
+    
+    private final String redirectUri = "http://localhost:8080/auth/oauth2/callback/google";
+    private final String state = "b3f1c9a2-7d4e-4a8f-9c61-2e5d8f0a1b7c";
+    private final String codeChallenge = "E9Melhoa2OwvFrEMTJguCHaoeK1t8URWbuGJSstw-cM";
+    
+    @Setup
+    public void setUp() {
+        service = switch (provider) {
+            case "google" -> BenchmarkFixtures.googleService();
+            case "facebook" -> BenchmarkFixtures.facebookService();
+            case "apple" -> BenchmarkFixtures.appleService();
+            default -> throw new IllegalArgumentException("Unknown provider " + provider);
+        };
+    }
+    
+    @Benchmark
+    public String buildAuthorizationUrl() {
+        return service.buildAuthorizationUrl(redirectUri, state, codeChallenge, "S256");
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public String buildAuthorizationUrlContended() {
+        return service.buildAuthorizationUrl(redirectUri, state, codeChallenge, "S256");
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.oauth2.benchmark;
+
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.model.User;
+import com.example.oauth2.ratelimit.RateLimitFilter;
+import com.example.oauth2.ratelimit.RateLimitProperties;
+import com.example.oauth2.ratelimit.RateLimiter;
+import com.example.oauth2.registry.ProviderRegistry;
+import com.example.oauth2.security.TokenClaim;
+import com.example.oauth2.security.TokenProfileProperties;
+import com.example.oauth2.security.TokenProvider;
+import com.example.oauth2.service.impl.AppleOAuth2Service;
+import com.example.oauth2.service.impl.FacebookOAuth2Service;
+import com.example.oauth2.service.impl.GoogleOAuth2Service;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.util.ReflectionUtils;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基准测试公共夹具
+ * 
+ * 业务组件通过 @Value 注入配置，这里直接写入字段并调用初始化方法，
+ * 取值与 application.yml 保持一致，避免为单个组件启动整个Spring容器。
+ */
+final class BenchmarkFixtures {
+    
+    static final String JWT_SECRET = "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970";
+    
+    private BenchmarkFixtures() {
+    }
+    
+    /**
+     * 与 application.yml 中 app.auth.jwt.profiles 一致：web 完整声明，mobile/miniapp 精简短键
+     */
+    static TokenProvider tokenProvider() {
+        TokenProfileProperties properties = new TokenProfileProperties();
+        properties.getProfiles().put("mobile", tokenProfile(SignatureAlgorithm.HS256, true, false, TokenClaim.PLATFORM));
+        properties.getProfiles().put("miniapp", tokenProfile(SignatureAlgorithm.HS256, true, false, TokenClaim.PLATFORM));
+        return tokenProvider(properties);
+    }
+    
+    static TokenProvider tokenProvider(TokenProfileProperties properties) {
+        TokenProvider tokenProvider = new TokenProvider();
+        setField(tokenProvider, "tokenSecret", JWT_SECRET);
+        setField(tokenProvider, "webExpiration", 604800000L);
+        setField(tokenProvider, "mobileExpiration", 2592000000L);
+        setField(tokenProvider, "miniappExpiration", 7776000000L);
+        setField(tokenProvider, "profileProperties", properties);
+        tokenProvider.init();
+        return tokenProvider;
+    }
+    
+    static TokenProfileProperties.Profile tokenProfile(SignatureAlgorithm algorithm, boolean shortKeys, boolean compress, TokenClaim... claims) {
+        TokenProfileProperties.Profile profile = new TokenProfileProperties.Profile();
+        profile.setAlgorithm(algorithm);
+        profile.setShortKeys(shortKeys);
+        profile.setCompress(compress);
+        profile.setClaims(new ArrayList<>(List.of(claims)));
+        return profile;
+    }
+    
+    static RateLimiter rateLimiter(RateLimitProperties properties) {
+        RateLimiter rateLimiter = new RateLimiter();
+        setField(rateLimiter, "properties", properties);
+        return rateLimiter;
+    }
+    
+    static RateLimitFilter rateLimitFilter(RateLimiter rateLimiter, RateLimitProperties properties) {
+        RateLimitFilter filter = new RateLimitFilter();
+        setField(filter, "rateLimiter", rateLimiter);
+        setField(filter, "properties", properties);
+        setField(filter, "meterRegistry", new SimpleMeterRegistry());
+        filter.init();
+        return filter;
+    }
+    
+    static GoogleOAuth2Service googleService() {
+        GoogleOAuth2Service service = new GoogleOAuth2Service();
+        setField(service, "providerRegistry", new ProviderRegistry());
+        setField(service, "clientId", "446804274711-fjevh6bdtigb92hr78df0a206kqlqes9.apps.googleusercontent.com");
+        setField(service, "clientSecret", "benchmark-secret");
+        setField(service, "authorizationUri", "https://accounts.google.com/o/oauth2/v2/auth");
+        setField(service, "tokenUri", "https://oauth2.googleapis.com/token");
+        setField(service, "userInfoUri", "https://openidconnect.googleapis.com/v1/userinfo");
+        setField(service, "scopes", "openid email profile");
+        service.init();
+        return service;
+    }
+    
+    static FacebookOAuth2Service facebookService() {
+        FacebookOAuth2Service service = new FacebookOAuth2Service();
+        setField(service, "providerRegistry", new ProviderRegistry());
+        setField(service, "clientId", "1912281646367499");
+        setField(service, "clientSecret", "benchmark-secret");
+        setField(service, "authorizationUri", "https://www.facebook.com/v24.0/dialog/oauth");
+        setField(service, "tokenUri", "https://graph.facebook.com/v24.0/oauth/access_token");
+        setField(service, "userInfoUri", "https://graph.facebook.com/me?fields=id,name,email");
+        setField(service, "scopes", "email,public_profile");
+        service.init();
+        return service;
+    }
+    
+    static AppleOAuth2Service appleService() {
+        AppleOAuth2Service service = new AppleOAuth2Service();
+        setField(service, "providerRegistry", new ProviderRegistry());
+        setField(service, "objectMapper", new ObjectMapper());
+        setField(service, "clientId", "com.example.oauth2.signin");
+        setField(service, "teamId", "BENCHTEAM1");
+        setField(service, "keyId", "BENCHKEY01");
+        setField(service, "authorizationUri", "https://appleid.apple.com/auth/authorize");
+        setField(service, "tokenUri", "https://appleid.apple.com/auth/token");
+        setField(service, "scopes", "name email");
+        service.init();
+        return service;
+    }
+    
+    static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setName("Benchmark User " + id);
+        user.setEmail("benchmark.user." + id + "@example.com");
+        user.setImageUrl("https://lh3.googleusercontent.com/a/ACg8ocJ-benchmark-avatar-" + id + "=s96-c");
+        user.setPrimaryProvider(AuthProvider.GOOGLE);
+        return user;
+    }
+    
+    static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        if (field == null) {
+            throw new IllegalArgumentException("Field " + name + " not found on " + target.getClass().getName());
+        }
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.oauth2.benchmark;
+
+import com.example.oauth2.dto.OAuth2State;
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.model.ClientPlatform;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OAuth2State 序列化基准
+ * 使用与 RedisConfig 相同的 GenericJackson2JsonRedisSerializer
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OAuth2StateBenchmark {
+    
+    private GenericJackson2JsonRedisSerializer serializer;
+    private OAuth2State state;
+    private byte[] serialized;
+    
+    @Setup
+    public void setUp() {
+        serializer = new GenericJackson2JsonRedisSerializer();
+        state = new OAuth2State(
+            AuthProvider.GOOGLE,
+            ClientPlatform.WEB,
+            "http://localhost:8080/auth/oauth2/callback/google",
+            "E9Melhoa2OwvFrEMTJguCHaoeK1t8URWbuGJSstw-cM"
+        );
+        state.setCodeChallengeMethod("S256");
+        state.setCodeVerifier("dBjftJeZ4CVP-mB92K27uhbUJU1p1r_wW1gFWFOEjXk");
+        state.setNonce("n-0S6_WzA2Mj4dXqVbNRfQ");
+        serialized = serializer.serialize(state);
+    }
+    
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(state);
+    }
+    
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(serialized);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public Object roundTripContended() {
+        return serializer.deserialize(serializer.serialize(state));
+    }
+}
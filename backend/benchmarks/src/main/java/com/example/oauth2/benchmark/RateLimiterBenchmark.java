@@ -0,0 +1,79 @@
+package com.example.oauth2.benchmark;
+
+import com.example.oauth2.ratelimit.RateLimitFilter;
+import com.example.oauth2.ratelimit.RateLimitProperties;
+import com.example.oauth2.ratelimit.RateLimiter;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流开销基准
+ * 
+ * allowed*：限额足够大，测量放行路径的额外开销；
+ * rejected：限额为0，测量超限调用方被本地拒绝的开销（不访问Redis）；
+ * distinctIps：大量不同来源，包含建表和并发访问 ConcurrentHashMap 的开销。
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+    
+    private static final FilterChain NO_OP_CHAIN = (request, response) -> { };
+    
+    private RateLimiter allowingLimiter;
+    private RateLimiter rejectingLimiter;
+    private RateLimitFilter filter;
+    
+    @Setup
+    public void setUp() {
+        RateLimitProperties allowing = new RateLimitProperties();
+        allowing.setIp(new RateLimitProperties.Limit(Integer.MAX_VALUE, 1e9, Long.MAX_VALUE));
+        allowing.setClient(new RateLimitProperties.Limit(Integer.MAX_VALUE, 1e9, Long.MAX_VALUE));
+        allowingLimiter = BenchmarkFixtures.rateLimiter(allowing);
+        filter = BenchmarkFixtures.rateLimitFilter(allowingLimiter, allowing);
+        
+        RateLimitProperties rejecting = new RateLimitProperties();
+        rejecting.setIp(new RateLimitProperties.Limit(0, 0, 0));
+        rejectingLimiter = BenchmarkFixtures.rateLimiter(rejecting);
+    }
+    
+    @Benchmark
+    public RateLimiter.Decision allowedSameIp() {
+        return allowingLimiter.tryAcquire(RateLimiter.Scope.IP, "203.0.113.7");
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public RateLimiter.Decision allowedSameIpContended() {
+        return allowingLimiter.tryAcquire(RateLimiter.Scope.IP, "203.0.113.7");
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public RateLimiter.Decision distinctIps() {
+        int host = ThreadLocalRandom.current().nextInt(65_536);
+        return allowingLimiter.tryAcquire(RateLimiter.Scope.IP, "10.0." + (host >> 8) + "." + (host & 0xff));
+    }
+    
+    @Benchmark
+    public RateLimiter.Decision rejected() {
+        return rejectingLimiter.tryAcquire(RateLimiter.Scope.IP, "198.51.100.9");
+    }
+    
+    @Benchmark
+    public int filterAllowed() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/auth/oauth2/authorize");
+        request.setRemoteAddr("203.0.113.7");
+        request.addHeader("X-Client-Id", "web-console");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, NO_OP_CHAIN);
+        return response.getStatus();
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.oauth2.benchmark;
+
+import com.example.oauth2.model.ClientPlatform;
+import com.example.oauth2.model.User;
+import com.example.oauth2.security.TokenClaim;
+import com.example.oauth2.security.TokenProfileProperties;
+import com.example.oauth2.security.TokenProvider;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比不同JWT声明配置的签发/校验开销
+ * 
+ * 每个配置在 setUp 时通过日志记录 Authorization 请求头字节数，与吞吐结果一起对照。
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenProfileBenchmark {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TokenProfileBenchmark.class);
+    
+    @Param({"FULL_HS512", "FULL_SHORT_HS256", "MINIMAL_HS256", "FULL_SHORT_DEFLATE_HS256"})
+    public String profile;
+    
+    private TokenProvider tokenProvider;
+    private User user;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        TokenProfileProperties.Profile tokenProfile = switch (profile) {
+            case "FULL_HS512" -> BenchmarkFixtures.tokenProfile(SignatureAlgorithm.HS512, false, false,
+                TokenClaim.PLATFORM, TokenClaim.EMAIL, TokenClaim.NAME);
+            case "FULL_SHORT_HS256" -> BenchmarkFixtures.tokenProfile(SignatureAlgorithm.HS256, true, false,
+                TokenClaim.PLATFORM, TokenClaim.EMAIL, TokenClaim.NAME);
+            case "MINIMAL_HS256" -> BenchmarkFixtures.tokenProfile(SignatureAlgorithm.HS256, true, false,
+                TokenClaim.PLATFORM);
+            case "FULL_SHORT_DEFLATE_HS256" -> BenchmarkFixtures.tokenProfile(SignatureAlgorithm.HS256, true, true,
+                TokenClaim.PLATFORM, TokenClaim.EMAIL, TokenClaim.NAME);
+            default -> throw new IllegalArgumentException("Unknown profile: " + profile);
+        };
+        
+        TokenProfileProperties properties = new TokenProfileProperties();
+        properties.getProfiles().put("mobile", tokenProfile);
+        
+        tokenProvider = BenchmarkFixtures.tokenProvider(properties);
+        user = BenchmarkFixtures.user(1024L);
+        token = tokenProvider.createToken(user, ClientPlatform.IOS);
+        
+        int headerBytes = ("Bearer " + token).length();
+        logger.info("[{}] Authorization 请求头 {} 字节", profile, headerBytes);
+    }
+    
+    @Benchmark
+    public String createToken() {
+        return tokenProvider.createToken(user, ClientPlatform.IOS);
+    }
+    
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+}
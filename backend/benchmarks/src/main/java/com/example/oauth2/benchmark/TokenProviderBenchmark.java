@@ -0,0 +1,60 @@
+package com.example.oauth2.benchmark;
+
+import com.example.oauth2.model.ClientPlatform;
+import com.example.oauth2.model.User;
+import com.example.oauth2.security.TokenProvider;
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TokenProvider 热路径基准：签发与校验JWT
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenProviderBenchmark {
+    
+    @Param({"WEB", "IOS", "WECHAT_MINIAPP"})
+    public ClientPlatform platform;
+    
+    private TokenProvider tokenProvider;
+    private User user;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        tokenProvider = BenchmarkFixtures.tokenProvider();
+        user = BenchmarkFixtures.user(1024L);
+        token = tokenProvider.createToken(user, platform);
+    }
+    
+    @Benchmark
+    public String createToken() {
+        return tokenProvider.createToken(user, platform);
+    }
+    
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+    
+    @Benchmark
+    public Long getUserIdFromToken() {
+        return tokenProvider.getUserIdFromToken(token);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public String createTokenContended() {
+        return tokenProvider.createToken(user, platform);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public boolean validateTokenContended() {
+        return tokenProvider.validateToken(token);
+    }
+}
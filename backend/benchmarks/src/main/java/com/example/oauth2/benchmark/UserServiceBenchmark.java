@@ -0,0 +1,108 @@
+package com.example.oauth2.benchmark;
+
+import com.example.oauth2.OAuth2Application;
+import com.example.oauth2.dto.OAuth2UserInfo;
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.model.ClientPlatform;
+import com.example.oauth2.model.User;
+import com.example.oauth2.service.IdentityResolver;
+import com.example.oauth2.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UserService.findOrCreateUser 基准
+ * 
+ * 启动完整的应用上下文（H2内存库），分别测量已存在身份的更新路径和新用户的插入路径，
+ * 以及多个线程同时登录同一身份时经 IdentityResolver 合并后的开销。
+ * shards 大于0时 users/user_auth 分布在对应数量的 H2 内存库上。
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+    
+    private static final int EXISTING_IDENTITIES = 10_000;
+    
+    @Param({"0", "4"})
+    public int shards;
+    
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private IdentityResolver identityResolver;
+    private final AtomicLong newIdentitySequence = new AtomicLong();
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<String> properties = new ArrayList<>(List.of(
+            "server.port=0",
+            "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+            "spring.jpa.show-sql=false",
+            "spring.h2.console.enabled=false",
+            "app.avatar.enabled=false",
+            "app.lifecycle.warmup.enabled=false",
+            "logging.level.root=WARN"
+        ));
+        for (int i = 0; i < shards; i++) {
+            properties.add("app.sharding.shards[" + i + "].url=jdbc:h2:mem:benchmark-shard-" + i + ";DB_CLOSE_DELAY=-1");
+            properties.add("app.sharding.shards[" + i + "].username=sa");
+        }
+        context = new SpringApplicationBuilder(OAuth2Application.class)
+            .properties(properties.toArray(new String[0]))
+            .run();
+        userService = context.getBean(UserService.class);
+        identityResolver = context.getBean(IdentityResolver.class);
+        
+        for (int i = 0; i < EXISTING_IDENTITIES; i++) {
+            userService.findOrCreateUser(userInfo("existing-" + i), AuthProvider.GOOGLE, ClientPlatform.WEB);
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public User returningUser() {
+        int i = ThreadLocalRandom.current().nextInt(EXISTING_IDENTITIES);
+        return userService.findOrCreateUser(userInfo("existing-" + i), AuthProvider.GOOGLE, ClientPlatform.WEB);
+    }
+    
+    @Benchmark
+    public User newUser() {
+        String id = "new-" + newIdentitySequence.incrementAndGet();
+        return userService.findOrCreateUser(userInfo(id), AuthProvider.FACEBOOK, ClientPlatform.IOS);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public User returningUserContended() {
+        int i = ThreadLocalRandom.current().nextInt(EXISTING_IDENTITIES);
+        return userService.findOrCreateUser(userInfo("existing-" + i), AuthProvider.GOOGLE, ClientPlatform.WEB);
+    }
+    
+    @Benchmark
+    @Threads(8)
+    public User sameIdentityCoalesced() {
+        return identityResolver.resolve(userInfo("existing-0"), AuthProvider.GOOGLE, ClientPlatform.WEB);
+    }
+    
+    private static OAuth2UserInfo userInfo(String id) {
+        return OAuth2UserInfo.builder()
+            .id(id)
+            .email(id + "@example.com")
+            .name("Benchmark " + id)
+            .imageUrl("https://lh3.googleusercontent.com/a/" + id + "=s96-c")
+            .build();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.oauth2.loadtest;
+
+import com.example.oauth2.model.AuthProvider;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 压测参数，来自 --key=value 形式的命令行参数
+ *
+ * @param rate          目标登录速率（次/秒，authorize + callback 计为一次登录）
+ * @param durationSeconds 压测持续时间
+ * @param warmupSeconds 预热时间，预热期间的结果不计入报告
+ * @param providers     参与压测的提供商，按轮询分配
+ * @param users         不同身份的数量，决定新用户与回访用户的比例
+ * @param latencyMs     桩服务基础延迟
+ * @param jitterMs      桩服务延迟抖动上限
+ * @param errorRate     桩服务返回500的概率
+ * @param reportFile    JSON报告输出路径
+ */
+public record LoadTestConfig(
+    int rate,
+    int durationSeconds,
+    int warmupSeconds,
+    List<AuthProvider> providers,
+    int users,
+    int latencyMs,
+    int jitterMs,
+    double errorRate,
+    String reportFile
+) {
+    
+    public static LoadTestConfig fromArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (arg.startsWith("--") && arg.contains("=")) {
+                int separator = arg.indexOf('=');
+                options.put(arg.substring(2, separator), arg.substring(separator + 1));
+            }
+        }
+        
+        List<AuthProvider> providers = new ArrayList<>();
+        for (String name : options.getOrDefault("providers", "google,facebook,apple").split(",")) {
+            providers.add(AuthProvider.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+        }
+        
+        return new LoadTestConfig(
+            Integer.parseInt(options.getOrDefault("rate", "100")),
+            Integer.parseInt(options.getOrDefault("duration", "60")),
+            Integer.parseInt(options.getOrDefault("warmup", "10")),
+            List.copyOf(providers),
+            Integer.parseInt(options.getOrDefault("users", "10000")),
+            Integer.parseInt(options.getOrDefault("latency-ms", "50")),
+            Integer.parseInt(options.getOrDefault("jitter-ms", "20")),
+            Double.parseDouble(options.getOrDefault("error-rate", "0.0")),
+            options.getOrDefault("report", "target/loadtest-report.json")
+        );
+    }
+}
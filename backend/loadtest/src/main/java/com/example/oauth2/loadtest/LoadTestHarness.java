@@ -0,0 +1,159 @@
+package com.example.oauth2.loadtest;
+
+import com.example.oauth2.OAuth2Application;
+import com.example.oauth2.model.AuthProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import redis.embedded.RedisServer;
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 端到端登录压测入口
+ * 
+ * 启动顺序：桩身份提供商 -> 嵌入式Redis -> 后端应用(H2内存库)，
+ * 然后以开放模型按固定速率发起登录，不因后端变慢而降低发送速率。
+ */
+public class LoadTestHarness {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestHarness.class);
+    
+    private static final int REPORT_INTERVAL_SECONDS = 5;
+    
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromArgs(args);
+        logger.info("压测参数: {}", config);
+        
+        StubIdentityProviders stubs = new StubIdentityProviders(config.latencyMs(), config.jitterMs(), config.errorRate());
+        stubs.start();
+        
+        int redisPort = freePort();
+        RedisServer redis = new RedisServer(redisPort);
+        redis.start();
+        
+        ConfigurableApplicationContext backend = null;
+        try {
+            backend = startBackend(stubs, redisPort);
+            String backendUrl = "http://127.0.0.1:" + backend.getEnvironment().getProperty("local.server.port");
+            logger.info("后端已启动: {}", backendUrl);
+            
+            try (LoginDriver driver = new LoginDriver(backendUrl)) {
+                Map<String, Object> report = run(config, driver, stubs);
+                writeReport(config, report);
+            }
+        } finally {
+            if (backend != null) {
+                backend.close();
+            }
+            redis.stop();
+            stubs.stop();
+        }
+    }
+    
+    private static ConfigurableApplicationContext startBackend(StubIdentityProviders stubs, int redisPort) {
+        Map<String, Object> properties = new HashMap<>(stubs.backendProperties());
+        properties.put("server.port", 0);
+        properties.put("spring.data.redis.host", "127.0.0.1");
+        properties.put("spring.data.redis.port", redisPort);
+        properties.put("spring.datasource.url", "jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1");
+        properties.put("spring.jpa.show-sql", false);
+        properties.put("spring.h2.console.enabled", false);
+        // 所有请求来自同一个回环地址，限流会把压测流量当作滥用
+        properties.put("app.oauth2.rate-limit.enabled", false);
+        // 桩 userinfo 返回的是真实的 Google 头像域名，压测时不下载
+        properties.put("app.avatar.enabled", false);
+        
+        return new SpringApplicationBuilder(OAuth2Application.class)
+            .properties(properties)
+            .run();
+    }
+    
+    private static Map<String, Object> run(LoadTestConfig config, LoginDriver driver, StubIdentityProviders stubs) {
+        List<AuthProvider> providers = config.providers();
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.rate();
+        long warmupEnd = TimeUnit.SECONDS.toNanos(config.warmupSeconds());
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(config.durationSeconds());
+        long nextReport = warmupEnd + TimeUnit.SECONDS.toNanos(REPORT_INTERVAL_SECONDS);
+        
+        logger.info("预热 {} 秒...", config.warmupSeconds());
+        long start = System.nanoTime();
+        boolean recording = false;
+        List<Map<String, Object>> intervals = new ArrayList<>();
+        
+        for (long n = 0; ; n++) {
+            long scheduled = n * intervalNanos;
+            if (scheduled >= end) {
+                break;
+            }
+            
+            long now = System.nanoTime() - start;
+            if (scheduled > now) {
+                LockSupport.parkNanos(scheduled - now);
+            }
+            
+            if (!recording && scheduled >= warmupEnd) {
+                driver.phases().forEach(PhaseRecorder::startRecording);
+                recording = true;
+                logger.info("开始计量，持续 {} 秒", config.durationSeconds());
+            }
+            if (recording && scheduled >= nextReport) {
+                for (PhaseRecorder phase : driver.phases()) {
+                    Map<String, Object> interval = phase.snapshot(REPORT_INTERVAL_SECONDS);
+                    intervals.add(interval);
+                    logger.info("{}", interval);
+                }
+                nextReport += TimeUnit.SECONDS.toNanos(REPORT_INTERVAL_SECONDS);
+            }
+            
+            AuthProvider provider = providers.get((int) (n % providers.size()));
+            driver.submit(provider, ThreadLocalRandom.current().nextInt(config.users()));
+        }
+        
+        // 等待尾部请求完成
+        LockSupport.parkNanos(TimeUnit.SECONDS.toNanos(5));
+        
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", config);
+        List<Map<String, Object>> summaries = new ArrayList<>();
+        for (PhaseRecorder phase : driver.phases()) {
+            Map<String, Object> summary = phase.summary(config.durationSeconds());
+            summaries.add(summary);
+            logger.info("汇总 {}", summary);
+        }
+        report.put("phases", summaries);
+        report.put("intervals", intervals);
+        report.put("appTokenRequests", stubs.appTokenRequests());
+        logger.info("小程序应用级 access_token 请求次数: {}", stubs.appTokenRequests());
+        return report;
+    }
+    
+    private static void writeReport(LoadTestConfig config, Map<String, Object> report) throws IOException {
+        File file = new File(config.reportFile());
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        new ObjectMapper()
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .writeValue(file, report);
+        logger.info("压测报告已写入 {}", file.getAbsolutePath());
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.oauth2.loadtest;
+
+import com.example.oauth2.model.AuthProvider;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 模拟客户端完成一次登录：POST /auth/oauth2/authorize，再以桩授权码调用回调端点
+ * 
+ * 微信、抖音按小程序流程：authorize 只取 state，再以 code 调用 /auth/oauth2/token（微信附带 phoneCode）。
+ * 两种方式的第二步都计入 callback 阶段。
+ */
+public class LoginDriver implements AutoCloseable {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpClient httpClient;
+    private final String backendUrl;
+    
+    private final PhaseRecorder authorizePhase = new PhaseRecorder("authorize");
+    private final PhaseRecorder callbackPhase = new PhaseRecorder("callback");
+    private final PhaseRecorder loginPhase = new PhaseRecorder("login");
+    
+    public LoginDriver(String backendUrl) {
+        this.backendUrl = backendUrl;
+        this.httpClient = HttpClient.newBuilder()
+            .executor(executor)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    }
+    
+    public List<PhaseRecorder> phases() {
+        return List.of(authorizePhase, callbackPhase, loginPhase);
+    }
+    
+    public void submit(AuthProvider provider, int userIndex) {
+        executor.execute(() -> login(provider, userIndex));
+    }
+    
+    private void login(AuthProvider provider, int userIndex) {
+        long loginStart = System.nanoTime();
+        
+        Optional<String> state = authorize(provider);
+        if (state.isEmpty()) {
+            loginPhase.error(loginStart);
+            return;
+        }
+        
+        boolean completed = miniappPlatform(provider) != null
+            ? exchangeToken(provider, state.get(), userIndex)
+            : callback(provider, state.get(), userIndex);
+        if (completed) {
+            loginPhase.success(loginStart);
+        } else {
+            loginPhase.error(loginStart);
+        }
+    }
+    
+    private Optional<String> authorize(AuthProvider provider) {
+        long start = System.nanoTime();
+        try {
+            String body = objectMapper.writeValueAsString(Map.of(
+                "provider", provider.name(),
+                "platform", miniappPlatform(provider) != null ? miniappPlatform(provider) : "WEB",
+                "redirectUri", callbackUrl(provider),
+                "state", UUID.randomUUID().toString()
+            ));
+            HttpRequest request = HttpRequest.newBuilder(URI.create(backendUrl + "/auth/oauth2/authorize"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+            
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() != 200) {
+                authorizePhase.error(start);
+                return Optional.empty();
+            }
+            
+            JsonNode json = objectMapper.readTree(response.body());
+            authorizePhase.success(start);
+            return Optional.of(json.get("state").asText());
+        } catch (Exception e) {
+            authorizePhase.error(start);
+            return Optional.empty();
+        }
+    }
+    
+    private boolean callback(AuthProvider provider, String state, int userIndex) {
+        long start = System.nanoTime();
+        try {
+            String query = "code=" + URLEncoder.encode("lt-" + userIndex, StandardCharsets.UTF_8)
+                + "&state=" + URLEncoder.encode(state, StandardCharsets.UTF_8);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(callbackUrl(provider) + "?" + query))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+            
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            String location = response.headers().firstValue("Location").orElse("");
+            
+            // 回调成功时重定向到前端并携带token，失败时携带error参数
+            if (response.statusCode() == 302 && location.contains("token=") && !location.contains("error=")) {
+                callbackPhase.success(start);
+                return true;
+            }
+            callbackPhase.error(start);
+            return false;
+        } catch (Exception e) {
+            callbackPhase.error(start);
+            return false;
+        }
+    }
+    
+    private boolean exchangeToken(AuthProvider provider, String state, int userIndex) {
+        long start = System.nanoTime();
+        try {
+            Map<String, Object> payload = new HashMap<>();
+            payload.put("provider", provider.name());
+            payload.put("platform", miniappPlatform(provider));
+            payload.put("code", "lt-" + userIndex);
+            payload.put("state", state);
+            if (provider == AuthProvider.WECHAT) {
+                payload.put("phoneCode", "1380000" + String.format("%04d", userIndex % 10000));
+            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(backendUrl + "/auth/oauth2/token"))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(payload)))
+                .build();
+            
+            HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            if (response.statusCode() == 200 && objectMapper.readTree(response.body()).hasNonNull("token")) {
+                callbackPhase.success(start);
+                return true;
+            }
+            callbackPhase.error(start);
+            return false;
+        } catch (Exception e) {
+            callbackPhase.error(start);
+            return false;
+        }
+    }
+    
+    private static String miniappPlatform(AuthProvider provider) {
+        return switch (provider) {
+            case WECHAT -> "WECHAT_MINIAPP";
+            case DOUYIN -> "DOUYIN_MINIAPP";
+            default -> null;
+        };
+    }
+    
+    private String callbackUrl(AuthProvider provider) {
+        return backendUrl + "/auth/oauth2/callback/" + provider.name().toLowerCase(Locale.ROOT);
+    }
+    
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
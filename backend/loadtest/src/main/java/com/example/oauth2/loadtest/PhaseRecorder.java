@@ -0,0 +1,93 @@
+package com.example.oauth2.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个阶段（authorize / callback / login）的延迟与错误统计
+ * 
+ * 延迟以微秒记录到 HdrHistogram，可在多线程下无锁写入。
+ */
+public class PhaseRecorder {
+    
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(2);
+    
+    private final String name;
+    private final Recorder recorder = new Recorder(MAX_TRACKABLE_MICROS, 3);
+    private final Histogram total = new Histogram(MAX_TRACKABLE_MICROS, 3);
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private volatile boolean recording;
+    
+    public PhaseRecorder(String name) {
+        this.name = name;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    /**
+     * 预热结束后开始计数，之前的样本全部丢弃
+     */
+    public void startRecording() {
+        recorder.reset();
+        successes.reset();
+        errors.reset();
+        recording = true;
+    }
+    
+    public void success(long startNanos) {
+        if (recording) {
+            recorder.recordValue(elapsedMicros(startNanos));
+            successes.increment();
+        }
+    }
+    
+    public void error(long startNanos) {
+        if (recording) {
+            recorder.recordValue(elapsedMicros(startNanos));
+            errors.increment();
+        }
+    }
+    
+    /**
+     * 汇总当前区间的样本，返回本区间摘要并累加到全程统计
+     */
+    public synchronized Map<String, Object> snapshot(double intervalSeconds) {
+        Histogram interval = recorder.getIntervalHistogram();
+        total.add(interval);
+        return summarize(interval, interval.getTotalCount(), intervalSeconds);
+    }
+    
+    public synchronized Map<String, Object> summary(double durationSeconds) {
+        total.add(recorder.getIntervalHistogram());
+        long ok = successes.sum();
+        long failed = errors.sum();
+        
+        Map<String, Object> result = summarize(total, ok + failed, durationSeconds);
+        result.put("successes", ok);
+        result.put("errors", failed);
+        result.put("errorRate", ok + failed == 0 ? 0.0 : (double) failed / (ok + failed));
+        return result;
+    }
+    
+    private Map<String, Object> summarize(Histogram histogram, long count, double seconds) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("phase", name);
+        result.put("requests", count);
+        result.put("throughput", seconds > 0 ? count / seconds : 0.0);
+        result.put("p50Ms", histogram.getValueAtPercentile(50) / 1000.0);
+        result.put("p99Ms", histogram.getValueAtPercentile(99) / 1000.0);
+        result.put("maxMs", histogram.getMaxValue() / 1000.0);
+        return result;
+    }
+    
+    private static long elapsedMicros(long startNanos) {
+        return Math.min(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos), MAX_TRACKABLE_MICROS);
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.oauth2.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 本地桩身份提供商
+ * 
+ * 在一个HTTP服务上模拟 Google、Facebook、Apple 的 token 和 userinfo 端点，
+ * 以及微信、抖音小程序的 code2session、应用级 access_token 和手机号接口，
+ * 支持固定延迟 + 随机抖动以及按概率返回500。
+ * 
+ * 应用级 access_token 的请求次数单独计数，用于确认并发登录没有重复刷新。
+ * 
+ * 授权码格式为 "lt-{userIndex}"，签发的访问令牌携带同一序号，
+ * 使 userinfo 能返回稳定的身份，从而覆盖新用户与回访用户两条路径。
+ */
+public class StubIdentityProviders {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StubIdentityProviders.class);
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int latencyMs;
+    private final int jitterMs;
+    private final double errorRate;
+    private final AtomicInteger appTokenRequests = new AtomicInteger();
+    private HttpServer server;
+    
+    public StubIdentityProviders(int latencyMs, int jitterMs, double errorRate) {
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.errorRate = errorRate;
+    }
+    
+    public void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        
+        server.createContext("/google/token", exchange -> handle(exchange, () -> {
+            String userIndex = userIndexFromCode(formParams(exchange).get("code"));
+            return Map.of(
+                "access_token", "google-at-" + userIndex,
+                "refresh_token", "google-rt-" + userIndex,
+                "expires_in", 3599,
+                "token_type", "Bearer",
+                "scope", "openid email profile"
+            );
+        }));
+        server.createContext("/google/userinfo", exchange -> handle(exchange, () -> {
+            String userIndex = bearerToken(exchange).substring("google-at-".length());
+            return Map.of(
+                "sub", "google-" + userIndex,
+                "email", "loadtest.user." + userIndex + "@example.com",
+                "email_verified", true,
+                "name", "Load Test User " + userIndex,
+                "picture", "https://lh3.googleusercontent.com/a/loadtest-" + userIndex + "=s96-c"
+            );
+        }));
+        
+        server.createContext("/facebook/token", exchange -> handle(exchange, () -> {
+            String userIndex = userIndexFromCode(queryParams(exchange).get("code"));
+            return Map.of(
+                "access_token", "facebook-at-" + userIndex,
+                "token_type", "bearer",
+                "expires_in", 5183944
+            );
+        }));
+        server.createContext("/facebook/me", exchange -> handle(exchange, () -> {
+            String userIndex = queryParams(exchange).get("access_token").substring("facebook-at-".length());
+            return Map.of(
+                "id", "facebook-" + userIndex,
+                "name", "Load Test User " + userIndex,
+                "email", "loadtest.user." + userIndex + "@example.com"
+            );
+        }));
+        
+        server.createContext("/apple/token", exchange -> handle(exchange, () -> {
+            String userIndex = userIndexFromCode(formParams(exchange).get("code"));
+            String idToken = unsignedJwt(Map.of(
+                "iss", "https://appleid.apple.com",
+                "sub", "apple-" + userIndex,
+                "email", "loadtest.user." + userIndex + "@privaterelay.appleid.com"
+            ));
+            return Map.of(
+                "access_token", idToken,
+                "id_token", idToken,
+                "refresh_token", "apple-rt-" + userIndex,
+                "expires_in", 3600,
+                "token_type", "Bearer"
+            );
+        }));
+        
+        server.createContext("/wechat/jscode2session", exchange -> handle(exchange, () -> {
+            String userIndex = userIndexFromCode(queryParams(exchange).get("js_code"));
+            return Map.of(
+                "openid", "wechat-" + userIndex,
+                "session_key", "wechat-sk-" + userIndex,
+                "unionid", "wechat-union-" + userIndex
+            );
+        }));
+        server.createContext("/wechat/stable_token", exchange -> handle(exchange, () -> Map.of(
+            "access_token", "wechat-app-token-" + appTokenRequests.incrementAndGet(),
+            "expires_in", 7200
+        )));
+        server.createContext("/wechat/phone", exchange -> handle(exchange, () -> {
+            if (!queryParams(exchange).getOrDefault("access_token", "").startsWith("wechat-app-token-")) {
+                return Map.of("errcode", 40001, "errmsg", "invalid credential");
+            }
+            String phoneCode = String.valueOf(jsonBody(exchange).get("code"));
+            return Map.of(
+                "errcode", 0,
+                "errmsg", "ok",
+                "phone_info", Map.of("phoneNumber", "+86 " + phoneCode, "countryCode", "86")
+            );
+        }));
+        
+        server.createContext("/douyin/jscode2session", exchange -> handle(exchange, () -> {
+            String userIndex = userIndexFromCode(String.valueOf(jsonBody(exchange).get("code")));
+            return Map.of(
+                "err_no", 0,
+                "err_tips", "success",
+                "data", Map.of(
+                    "openid", "douyin-" + userIndex,
+                    "session_key", "douyin-sk-" + userIndex,
+                    "unionid", "douyin-union-" + userIndex
+                )
+            );
+        }));
+        
+        server.start();
+        logger.info("桩身份提供商已启动: {}", baseUrl());
+    }
+    
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+    
+    /**
+     * 微信应用级 access_token 的累计请求次数
+     */
+    public int appTokenRequests() {
+        return appTokenRequests.get();
+    }
+    
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+    
+    /**
+     * 将桩端点覆盖到后端的 app.oauth2.* 配置
+     */
+    public Map<String, Object> backendProperties() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("app.oauth2.google.token-uri", baseUrl() + "/google/token");
+        properties.put("app.oauth2.google.user-info-uri", baseUrl() + "/google/userinfo");
+        properties.put("app.oauth2.facebook.token-uri", baseUrl() + "/facebook/token");
+        properties.put("app.oauth2.facebook.user-info-uri", baseUrl() + "/facebook/me?fields=id,name,email");
+        properties.put("app.oauth2.apple.client-id", "com.example.oauth2.loadtest");
+        properties.put("app.oauth2.apple.token-uri", baseUrl() + "/apple/token");
+        properties.put("app.oauth2.wechat.app-id", "wx-loadtest");
+        properties.put("app.oauth2.wechat.app-secret", "loadtest-secret");
+        properties.put("app.oauth2.wechat.code2session-uri", baseUrl() + "/wechat/jscode2session");
+        properties.put("app.oauth2.wechat.token-uri", baseUrl() + "/wechat/stable_token");
+        properties.put("app.oauth2.wechat.phone-number-uri", baseUrl() + "/wechat/phone");
+        properties.put("app.oauth2.douyin.app-id", "tt-loadtest");
+        properties.put("app.oauth2.douyin.app-secret", "loadtest-secret");
+        properties.put("app.oauth2.douyin.code2session-uri", baseUrl() + "/douyin/jscode2session");
+        return properties;
+    }
+    
+    private void handle(HttpExchange exchange, ResponseSupplier supplier) throws IOException {
+        try (exchange) {
+            simulateLatency();
+            
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                send(exchange, 500, Map.of("error", "injected_failure"));
+                return;
+            }
+            
+            Object body;
+            try {
+                body = supplier.get();
+            } catch (RuntimeException e) {
+                logger.warn("桩服务请求无效: {}", e.getMessage());
+                send(exchange, 400, Map.of("error", "invalid_request"));
+                return;
+            }
+            send(exchange, 200, body);
+        }
+    }
+    
+    private void simulateLatency() {
+        int delay = latencyMs + (jitterMs > 0 ? ThreadLocalRandom.current().nextInt(jitterMs + 1) : 0);
+        if (delay <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void send(HttpExchange exchange, int status, Object body) throws IOException {
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+    
+    private static String userIndexFromCode(String code) {
+        if (code == null || !code.startsWith("lt-")) {
+            throw new IllegalArgumentException("Unexpected authorization code: " + code);
+        }
+        return code.substring(3);
+    }
+    
+    private static String bearerToken(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            throw new IllegalArgumentException("Missing bearer token");
+        }
+        return header.substring(7);
+    }
+    
+    private static Map<String, String> queryParams(HttpExchange exchange) {
+        return parseParams(exchange.getRequestURI().getRawQuery());
+    }
+    
+    private static Map<String, String> formParams(HttpExchange exchange) {
+        try {
+            return parseParams(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read request body", e);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> jsonBody(HttpExchange exchange) {
+        try {
+            return objectMapper.readValue(exchange.getRequestBody(), Map.class);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid JSON body", e);
+        }
+    }
+    
+    private static Map<String, String> parseParams(String raw) {
+        Map<String, String> params = new HashMap<>();
+        if (raw == null || raw.isEmpty()) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int separator = pair.indexOf('=');
+            if (separator > 0) {
+                params.put(
+                    URLDecoder.decode(pair.substring(0, separator), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(separator + 1), StandardCharsets.UTF_8)
+                );
+            }
+        }
+        return params;
+    }
+    
+    private String unsignedJwt(Map<String, Object> claims) {
+        try {
+            Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+            String header = encoder.encodeToString("{\"alg\":\"none\"}".getBytes(StandardCharsets.UTF_8));
+            String payload = encoder.encodeToString(objectMapper.writeValueAsBytes(claims));
+            return header + "." + payload + ".";
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    @FunctionalInterface
+    private interface ResponseSupplier {
+        Object get();
+    }
+}
@@ -2,8 +2,10 @@ package com.example.oauth2;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class OAuth2Application {
     public static void main(String[] args) {
         SpringApplication.run(OAuth2Application.class, args);
@@ -0,0 +1,135 @@
+package com.example.oauth2.analytics;
+
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.model.ClientPlatform;
+import com.example.oauth2.model.RollupPeriod;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 登录事件的内存聚合
+ * 
+ * 每次登录只在对应的（小时, 提供商, 平台）累加器上做 LongAdder 自增和一次 HyperLogLog 插入，
+ * 定期把增量刷写到 login_rollup 表。计数用 sumThenReset 取走增量，刷写失败时加回；
+ * 草图的合并是幂等的，每次整体合并即可，不需要清零。
+ */
+@Component
+public class LoginAnalytics {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LoginAnalytics.class);
+    
+    public record BucketKey(LocalDateTime hour, AuthProvider provider, ClientPlatform platform) {
+    }
+    
+    /**
+     * 尚未刷写的增量快照，供查询时与数据库中的汇总合并
+     */
+    public record Pending(BucketKey key, long logins, long newUsers, HyperLogLog uniqueUsers) {
+    }
+    
+    static final class Accumulator {
+        final BucketKey key;
+        final LongAdder logins = new LongAdder();
+        final LongAdder newUsers = new LongAdder();
+        final HyperLogLog uniqueUsers = new HyperLogLog();
+        
+        Accumulator(BucketKey key) {
+            this.key = key;
+        }
+    }
+    
+    @Autowired
+    private LoginRollupWriter rollupWriter;
+    
+    private final Map<BucketKey, Accumulator> accumulators = new ConcurrentHashMap<>();
+    
+    /**
+     * 在当前事务提交后记录，回滚的登录不计入统计；没有事务时立即记录
+     */
+    public void recordAfterCommit(Long userId, AuthProvider provider, ClientPlatform platform, boolean newUser) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(userId, provider, platform, newUser);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(userId, provider, platform, newUser);
+            }
+        });
+    }
+    
+    public void record(Long userId, AuthProvider provider, ClientPlatform platform, boolean newUser) {
+        BucketKey key = new BucketKey(RollupPeriod.HOUR.truncate(LocalDateTime.now()), provider, platform);
+        Accumulator accumulator = accumulators.computeIfAbsent(key, Accumulator::new);
+        
+        // 登录计数最后自增：刷写时只要取到了计数，对应的草图插入一定已经完成
+        accumulator.uniqueUsers.add(userId);
+        if (newUser) {
+            accumulator.newUsers.increment();
+        }
+        accumulator.logins.increment();
+    }
+    
+    public List<Pending> pending() {
+        List<Pending> pending = new ArrayList<>();
+        for (Accumulator accumulator : accumulators.values()) {
+            pending.add(new Pending(
+                accumulator.key,
+                accumulator.logins.sum(),
+                accumulator.newUsers.sum(),
+                HyperLogLog.fromBytes(accumulator.uniqueUsers.toBytes())
+            ));
+        }
+        return pending;
+    }
+    
+    @Scheduled(fixedDelayString = "${app.analytics.flush-interval-ms:60000}")
+    public void flush() {
+        LocalDateTime currentHour = RollupPeriod.HOUR.truncate(LocalDateTime.now());
+        int flushed = 0;
+        
+        for (Accumulator accumulator : accumulators.values()) {
+            long logins = accumulator.logins.sumThenReset();
+            long newUsers = accumulator.newUsers.sumThenReset();
+            
+            if (logins > 0) {
+                try {
+                    rollupWriter.merge(accumulator.key, logins, newUsers, accumulator.uniqueUsers);
+                    flushed++;
+                } catch (Exception e) {
+                    accumulator.logins.add(logins);
+                    accumulator.newUsers.add(newUsers);
+                    logger.warn("登录统计刷写失败，下次重试: {}, {}", accumulator.key, e.getMessage());
+                    continue;
+                }
+            }
+            
+            // 结束超过一小时的时段不会再有新事件，刷写完即可释放
+            if (accumulator.key.hour().isBefore(currentHour.minusHours(1)) && accumulator.logins.sum() == 0) {
+                accumulators.remove(accumulator.key, accumulator);
+            }
+        }
+        
+        if (flushed > 0) {
+            logger.debug("登录统计已刷写 {} 个时段", flushed);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
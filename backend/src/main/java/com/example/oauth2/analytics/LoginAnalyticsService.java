@@ -0,0 +1,132 @@
+package com.example.oauth2.analytics;
+
+import com.example.oauth2.dto.ActiveUsersDTO;
+import com.example.oauth2.dto.LoginStatsDTO;
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.model.ClientPlatform;
+import com.example.oauth2.model.LoginRollup;
+import com.example.oauth2.model.RollupPeriod;
+import com.example.oauth2.repository.LoginRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 登录统计查询
+ * 
+ * 只读取 login_rollup 汇总行，并合并内存中尚未刷写的增量，不扫描 user_auth 等原始表。
+ */
+@Service
+@Transactional(readOnly = true)
+public class LoginAnalyticsService {
+    
+    /** 月活按截至当天的30天计算 */
+    private static final int MAU_DAYS = 30;
+    
+    @Autowired
+    private LoginRollupRepository rollupRepository;
+    
+    @Autowired
+    private LoginAnalytics loginAnalytics;
+    
+    private record GroupKey(LocalDateTime bucketStart, AuthProvider provider, ClientPlatform platform) {
+    }
+    
+    private static final class Group {
+        long logins;
+        long newUsers;
+        final HyperLogLog uniqueUsers = new HyperLogLog();
+    }
+    
+    public List<LoginStatsDTO> loginStats(RollupPeriod period, LocalDateTime from, LocalDateTime to,
+                                          AuthProvider provider, ClientPlatform platform) {
+        Map<GroupKey, Group> groups = new LinkedHashMap<>();
+        
+        for (LoginRollup rollup : rollups(period, from, to)) {
+            if (matches(rollup.getProvider(), rollup.getPlatform(), provider, platform)) {
+                GroupKey key = new GroupKey(rollup.getBucketStart(), rollup.getProvider(), rollup.getPlatform());
+                add(groups.computeIfAbsent(key, k -> new Group()),
+                    rollup.getLogins(), rollup.getNewUsers(), HyperLogLog.fromBytes(rollup.getUniqueUsers()));
+            }
+        }
+        for (LoginAnalytics.Pending pending : pending(period.truncate(from), to)) {
+            LoginAnalytics.BucketKey bucket = pending.key();
+            if (matches(bucket.provider(), bucket.platform(), provider, platform)) {
+                GroupKey key = new GroupKey(period.truncate(bucket.hour()), bucket.provider(), bucket.platform());
+                add(groups.computeIfAbsent(key, k -> new Group()),
+                    pending.logins(), pending.newUsers(), pending.uniqueUsers());
+            }
+        }
+        
+        List<LoginStatsDTO> stats = new ArrayList<>(groups.size());
+        groups.forEach((key, group) -> stats.add(LoginStatsDTO.builder()
+            .bucketStart(key.bucketStart())
+            .provider(key.provider())
+            .platform(key.platform())
+            .logins(group.logins)
+            .newUsers(group.newUsers)
+            .returningLogins(group.logins - group.newUsers)
+            .uniqueUsers(group.uniqueUsers.estimate())
+            .newUserRatio(group.logins > 0 ? (double) group.newUsers / group.logins : 0)
+            .build()));
+        stats.sort(Comparator.comparing(LoginStatsDTO::getBucketStart));
+        return stats;
+    }
+    
+    public ActiveUsersDTO activeUsers(LocalDate date) {
+        LocalDateTime dayEnd = date.plusDays(1).atStartOfDay();
+        long dau = uniqueUsers(date.atStartOfDay(), dayEnd);
+        long mau = uniqueUsers(date.minusDays(MAU_DAYS - 1).atStartOfDay(), dayEnd);
+        
+        return ActiveUsersDTO.builder()
+            .date(date)
+            .dau(dau)
+            .mau(mau)
+            .stickiness(mau > 0 ? (double) dau / mau : 0)
+            .build();
+    }
+    
+    /**
+     * 合并时段内所有提供商和平台的草图，同一用户在多个平台登录只计一次
+     */
+    private long uniqueUsers(LocalDateTime from, LocalDateTime to) {
+        HyperLogLog merged = new HyperLogLog();
+        for (LoginRollup rollup : rollups(RollupPeriod.DAY, from, to)) {
+            merged.merge(HyperLogLog.fromBytes(rollup.getUniqueUsers()));
+        }
+        for (LoginAnalytics.Pending pending : pending(from, to)) {
+            merged.merge(pending.uniqueUsers());
+        }
+        return merged.estimate();
+    }
+    
+    private List<LoginRollup> rollups(RollupPeriod period, LocalDateTime from, LocalDateTime to) {
+        return rollupRepository.findByPeriodAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+            period, period.truncate(from), to);
+    }
+    
+    private List<LoginAnalytics.Pending> pending(LocalDateTime from, LocalDateTime to) {
+        return loginAnalytics.pending().stream()
+            .filter(p -> !p.key().hour().isBefore(from) && p.key().hour().isBefore(to))
+            .toList();
+    }
+    
+    private static boolean matches(AuthProvider provider, ClientPlatform platform,
+                                   AuthProvider providerFilter, ClientPlatform platformFilter) {
+        return (providerFilter == null || providerFilter == provider)
+            && (platformFilter == null || platformFilter == platform);
+    }
+    
+    private static void add(Group group, long logins, long newUsers, HyperLogLog uniqueUsers) {
+        group.logins += logins;
+        group.newUsers += newUsers;
+        group.uniqueUsers.merge(uniqueUsers);
+    }
+}
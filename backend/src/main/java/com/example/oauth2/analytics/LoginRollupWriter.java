@@ -0,0 +1,44 @@
+package com.example.oauth2.analytics;
+
+import com.example.oauth2.model.LoginRollup;
+import com.example.oauth2.model.RollupPeriod;
+import com.example.oauth2.repository.LoginRollupRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 把一个小时累加器的增量合并到小时汇总和当天汇总
+ */
+@Component
+public class LoginRollupWriter {
+    
+    @Autowired
+    private LoginRollupRepository rollupRepository;
+    
+    @Transactional
+    public void merge(LoginAnalytics.BucketKey key, long logins, long newUsers, HyperLogLog uniqueUsers) {
+        mergeInto(RollupPeriod.HOUR, key, logins, newUsers, uniqueUsers);
+        mergeInto(RollupPeriod.DAY, key, logins, newUsers, uniqueUsers);
+    }
+    
+    private void mergeInto(RollupPeriod period, LoginAnalytics.BucketKey key, long logins, long newUsers,
+                           HyperLogLog uniqueUsers) {
+        LoginRollup rollup = rollupRepository
+            .findByPeriodAndBucketStartAndProviderAndPlatform(
+                period, period.truncate(key.hour()), key.provider(), key.platform())
+            .orElseGet(() -> {
+                LoginRollup created = new LoginRollup();
+                created.setPeriod(period);
+                created.setBucketStart(period.truncate(key.hour()));
+                created.setProvider(key.provider());
+                created.setPlatform(key.platform());
+                return created;
+            });
+        
+        rollup.setLogins(rollup.getLogins() + logins);
+        rollup.setNewUsers(rollup.getNewUsers() + newUsers);
+        rollup.setUniqueUsers(HyperLogLog.fromBytes(rollup.getUniqueUsers()).merge(uniqueUsers).toBytes());
+        rollupRepository.save(rollup);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.oauth2.avatar;
+
+/**
+ * 一个尺寸的头像 JPEG 数据
+ * 
+ * @param etag           内容摘要，同时用作文件名的一部分
+ * @param storedAtMillis 下载完成的时间
+ */
+public record Avatar(byte[] data, String etag, long storedAtMillis) {
+}
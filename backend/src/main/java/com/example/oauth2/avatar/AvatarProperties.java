@@ -0,0 +1,68 @@
+package com.example.oauth2.avatar;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 头像代理配置：app.avatar.*
+ * 
+ * 登录后异步下载提供商头像，裁剪为正方形并按 sizes 生成多个尺寸，
+ * 存入磁盘缓存（LRU 淘汰）并在内存中保留最近访问的部分。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.avatar")
+public class AvatarProperties {
+    
+    private boolean enabled = true;
+    
+    /** 磁盘缓存目录 */
+    private String directory = "data/avatars";
+    
+    /** 生成的边长（像素），请求的尺寸向上取最近的一档 */
+    private List<Integer> sizes = new ArrayList<>(List.of(48, 96, 256));
+    
+    /** 磁盘缓存上限，超出后淘汰最久未访问的文件 */
+    private long maxDiskBytes = 256L * 1024 * 1024;
+    
+    /** 内存热数据上限 */
+    private long maxHotBytes = 16L * 1024 * 1024;
+    
+    /** 已缓存的头像超过该时长后，下次登录时重新下载 */
+    private Duration refreshAfter = Duration.ofDays(7);
+    
+    /** 没有用户或没有可用头像的ID的缓存时长，公开接口上的枚举请求不会每次都查库 */
+    private Duration missingTtl = Duration.ofSeconds(60);
+    
+    /** 最多记住的缺失ID数，超出时清理过期项，仍然已满时不再记录 */
+    private int maxMissingEntries = 100_000;
+    
+    /** 下载原图时最多跟随的重定向次数，每一跳都要满足 allowed-hosts */
+    private int maxRedirects = 3;
+    
+    /** 原图大小上限，超出时放弃 */
+    private int maxSourceBytes = 5 * 1024 * 1024;
+    
+    private Duration fetchTimeout = Duration.ofSeconds(5);
+    
+    /** 下载线程数和排队上限，队列满时丢弃任务，下次登录再试 */
+    private int fetchThreads = 2;
+    private int fetchQueueSize = 1000;
+    
+    /** 只下载这些域名（及其子域名）的图片，避免把服务端当作任意URL的代理 */
+    private List<String> allowedHosts = new ArrayList<>(List.of(
+        "googleusercontent.com",
+        "fbcdn.net",
+        "fbsbx.com",
+        "qlogo.cn",
+        "douyinpic.com",
+        "byteimg.com"
+    ));
+    
+    /** /avatars 响应的 Cache-Control max-age */
+    private Duration maxAge = Duration.ofDays(1);
+}
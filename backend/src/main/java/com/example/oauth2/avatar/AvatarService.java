@@ -0,0 +1,348 @@
+package com.example.oauth2.avatar;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 头像下载与缩放
+ * 
+ * 登录事务提交后把提供商头像URL交给后台线程：下载（限制域名和大小）、居中裁剪为正方形、
+ * 按配置的尺寸缩放并编码为 JPEG，写入 {@link AvatarStore}。同一用户同时只下载一次。
+ */
+@Service
+public class AvatarService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AvatarService.class);
+    
+    private static final float JPEG_QUALITY = 0.85f;
+    
+    /** 解码前按头信息检查尺寸，小文件也可能声明极大的宽高（解压炸弹） */
+    private static final long MAX_SOURCE_PIXELS = 4096L * 4096;
+    
+    @Autowired
+    private AvatarProperties properties;
+    
+    @Autowired
+    private AvatarStore store;
+    
+    @Autowired
+    private HttpClient oauth2HttpClient;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private final Set<Long> fetching = ConcurrentHashMap.newKeySet();
+    
+    /** 用户ID -> 缺失记录的过期时间 */
+    private final Map<Long, Long> missing = new ConcurrentHashMap<>();
+    
+    private ThreadPoolExecutor executor;
+    private Counter storedCounter;
+    private Counter failedCounter;
+    private Counter droppedCounter;
+    
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = new ThreadPoolExecutor(
+            properties.getFetchThreads(),
+            properties.getFetchThreads(),
+            60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(properties.getFetchQueueSize()),
+            runnable -> {
+                Thread thread = new Thread(runnable, "avatar-fetch-" + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy()
+        );
+        
+        storedCounter = Counter.builder("oauth2.avatar.fetches").tag("outcome", "stored").register(meterRegistry);
+        failedCounter = Counter.builder("oauth2.avatar.fetches").tag("outcome", "failed").register(meterRegistry);
+        droppedCounter = Counter.builder("oauth2.avatar.fetches").tag("outcome", "dropped").register(meterRegistry);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    /**
+     * 在当前事务提交后安排下载；缓存仍在有效期内时跳过
+     */
+    public void refreshAfterCommit(Long userId, String imageUrl) {
+        if (userId != null) {
+            // 刚登录的用户一定存在，清除之前的缺失记录
+            missing.remove(userId);
+        }
+        if (!properties.isEnabled() || userId == null || imageUrl == null || isFresh(userId)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refreshAsync(userId, imageUrl);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refreshAsync(userId, imageUrl);
+            }
+        });
+    }
+    
+    public void refreshAsync(long userId, String imageUrl) {
+        if (!isAllowed(imageUrl) || !fetching.add(userId)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    fetchAndStore(userId, imageUrl);
+                    storedCounter.increment();
+                } catch (Exception e) {
+                    failedCounter.increment();
+                    logger.warn("头像下载失败, UserID: {}, 原因: {}", userId, e.getMessage());
+                } finally {
+                    fetching.remove(userId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            fetching.remove(userId);
+            droppedCounter.increment();
+        }
+    }
+    
+    /**
+     * 请求的尺寸向上取最近的一档，超过最大档时使用最大档
+     */
+    public int resolveSize(int requested) {
+        List<Integer> sizes = properties.getSizes().stream().sorted().toList();
+        for (int size : sizes) {
+            if (size >= requested) {
+                return size;
+            }
+        }
+        return sizes.get(sizes.size() - 1);
+    }
+    
+    private boolean isFresh(long userId) {
+        Optional<Long> storedAt = store.storedAt(userId);
+        return storedAt.isPresent()
+            && System.currentTimeMillis() - storedAt.get() < properties.getRefreshAfter().toMillis();
+    }
+    
+    /**
+     * 最近确认过没有用户或没有可用头像
+     */
+    public boolean isKnownMissing(long userId) {
+        Long until = missing.get(userId);
+        return until != null && until > System.currentTimeMillis();
+    }
+    
+    public void markMissing(long userId) {
+        long now = System.currentTimeMillis();
+        if (missing.size() >= properties.getMaxMissingEntries()) {
+            missing.values().removeIf(until -> until <= now);
+        }
+        // 清理后仍然已满时不再记录
+        if (missing.size() < properties.getMaxMissingEntries()) {
+            missing.put(userId, now + properties.getMissingTtl().toMillis());
+        }
+    }
+    
+    /**
+     * 只接受白名单域名下的 https 地址
+     */
+    public boolean isAllowed(String imageUrl) {
+        URI uri;
+        try {
+            uri = URI.create(imageUrl);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (!"https".equalsIgnoreCase(uri.getScheme()) || uri.getHost() == null) {
+            return false;
+        }
+        String host = uri.getHost().toLowerCase(Locale.ROOT);
+        for (String allowed : properties.getAllowedHosts()) {
+            if (host.equals(allowed) || host.endsWith("." + allowed)) {
+                return true;
+            }
+        }
+        logger.debug("头像域名不在白名单中: {}", host);
+        return false;
+    }
+    
+    private void fetchAndStore(long userId, String imageUrl) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = fetch(URI.create(imageUrl));
+        
+        byte[] source;
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                throw new IOException("HTTP " + response.statusCode());
+            }
+            source = body.readNBytes(properties.getMaxSourceBytes() + 1);
+        }
+        if (source.length > properties.getMaxSourceBytes()) {
+            throw new IOException("Image exceeds " + properties.getMaxSourceBytes() + " bytes");
+        }
+        
+        BufferedImage square = cropSquare(decode(source));
+        long now = System.currentTimeMillis();
+        Map<Integer, Avatar> variants = new LinkedHashMap<>();
+        for (int size : properties.getSizes()) {
+            byte[] jpeg = encodeJpeg(resize(square, Math.min(size, square.getWidth())));
+            variants.put(size, new Avatar(jpeg, digest(jpeg), now));
+        }
+        store.put(userId, variants);
+        logger.info("头像已缓存, UserID: {}, 尺寸: {}", userId, variants.keySet());
+    }
+    
+    /**
+     * 共享的 HttpClient 不跟随重定向；头像地址常 302 到 CDN，这里手动跟随，每一跳都检查域名白名单
+     */
+    private HttpResponse<InputStream> fetch(URI uri) throws IOException, InterruptedException {
+        for (int redirects = 0; ; redirects++) {
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(properties.getFetchTimeout())
+                .GET()
+                .build();
+            HttpResponse<InputStream> response = oauth2HttpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            int status = response.statusCode();
+            if (status != 301 && status != 302 && status != 303 && status != 307 && status != 308) {
+                return response;
+            }
+            
+            response.body().close();
+            String location = response.headers().firstValue("Location").orElse(null);
+            if (location == null || redirects >= properties.getMaxRedirects()) {
+                throw new IOException("HTTP " + status + (location == null ? " without Location" : ", too many redirects"));
+            }
+            URI next;
+            try {
+                next = uri.resolve(location);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid redirect location: " + location);
+            }
+            if (!isAllowed(next.toString())) {
+                throw new IOException("Redirect to disallowed host: " + next.getHost());
+            }
+            uri = next;
+        }
+    }
+    
+    /**
+     * 先只读取宽高，超过 MAX_SOURCE_PIXELS 时不分配像素缓冲区
+     */
+    private static BufferedImage decode(byte[] source) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(new ByteArrayInputStream(source))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > MAX_SOURCE_PIXELS) {
+                    throw new IOException("Image exceeds " + MAX_SOURCE_PIXELS + " pixels");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+    
+    private static BufferedImage cropSquare(BufferedImage image) {
+        int side = Math.min(image.getWidth(), image.getHeight());
+        int x = (image.getWidth() - side) / 2;
+        int y = (image.getHeight() - side) / 2;
+        return image.getSubimage(x, y, side, side);
+    }
+    
+    /**
+     * 输出 RGB 图像，透明区域填充白色（JPEG 不支持透明通道）
+     */
+    private static BufferedImage resize(BufferedImage source, int size) {
+        BufferedImage target = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, size, size);
+            graphics.drawImage(source, 0, 0, size, size, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+    
+    private static byte[] encodeJpeg(BufferedImage image) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+    
+    private static String digest(byte[] data) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(data);
+            return HexFormat.of().formatHex(hash, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
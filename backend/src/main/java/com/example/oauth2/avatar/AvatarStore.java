@@ -0,0 +1,252 @@
+package com.example.oauth2.avatar;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 两级头像缓存：内存热数据 + 磁盘
+ * 
+ * 每个尺寸一个文件，文件名为 {userId}-{size}-{etag}.jpg，按 userId 分到 256 个子目录；
+ * ETag 来自内容摘要，写在文件名中，命中磁盘时无需读取内容即可响应 304。
+ * 两级都按访问顺序（LRU）淘汰，容量按字节计算。启动时扫描目录重建索引，按修改时间近似访问顺序。
+ */
+@Component
+public class AvatarStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AvatarStore.class);
+    
+    private static final Pattern FILE_NAME = Pattern.compile("(\\d+)-(\\d+)-([0-9a-f]+)\\.jpg");
+    
+    @Autowired
+    private AvatarProperties properties;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private Path root;
+    
+    // 两个索引都是访问顺序的 LinkedHashMap，由 this 加锁保护
+    private final LinkedHashMap<String, DiskEntry> disk = new LinkedHashMap<>(1024, 0.75f, true);
+    private final LinkedHashMap<String, Avatar> hot = new LinkedHashMap<>(256, 0.75f, true);
+    private long diskBytes;
+    private long hotBytes;
+    
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(properties.getDirectory());
+        Files.createDirectories(root);
+        loadIndex();
+        
+        Gauge.builder("oauth2.avatar.disk.bytes", this, store -> store.diskBytes())
+            .description("磁盘头像缓存占用字节数")
+            .register(meterRegistry);
+        Gauge.builder("oauth2.avatar.hot.bytes", this, store -> store.hotBytes())
+            .description("内存头像缓存占用字节数")
+            .register(meterRegistry);
+    }
+    
+    /**
+     * 只返回 ETag，不读取图片内容；用于条件请求
+     */
+    public synchronized Optional<String> etag(long userId, int size) {
+        String key = key(userId, size);
+        Avatar avatar = hot.get(key);
+        if (avatar != null) {
+            return Optional.of(avatar.etag());
+        }
+        DiskEntry entry = disk.get(key);
+        return entry != null ? Optional.of(entry.etag()) : Optional.empty();
+    }
+    
+    /**
+     * 读盘和放入内存在同一把锁内完成，期间的 put 不能让旧内容进入内存层；
+     * 头像文件只有几十KB，未命中内存时持锁读盘的代价可以接受
+     */
+    public synchronized Optional<Avatar> get(long userId, int size) {
+        String key = key(userId, size);
+        Avatar avatar = hot.get(key);
+        if (avatar != null) {
+            return Optional.of(avatar);
+        }
+        DiskEntry entry = disk.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        
+        byte[] data;
+        try {
+            data = Files.readAllBytes(entry.path());
+        } catch (IOException e) {
+            removeDiskEntry(key, entry);
+            return Optional.empty();
+        }
+        
+        avatar = new Avatar(data, entry.etag(), entry.storedAtMillis());
+        putHot(key, avatar);
+        return Optional.of(avatar);
+    }
+    
+    /**
+     * 返回该用户任一尺寸的写入时间，没有缓存时为空
+     */
+    public synchronized Optional<Long> storedAt(long userId) {
+        for (int size : properties.getSizes()) {
+            DiskEntry entry = disk.get(key(userId, size));
+            if (entry != null) {
+                return Optional.of(entry.storedAtMillis());
+            }
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * 写入一个用户的全部尺寸，替换旧文件
+     */
+    public void put(long userId, Map<Integer, Avatar> variants) throws IOException {
+        Path directory = root.resolve(String.format("%02x", userId & 0xff));
+        Files.createDirectories(directory);
+        
+        for (Map.Entry<Integer, Avatar> variant : variants.entrySet()) {
+            int size = variant.getKey();
+            Avatar avatar = variant.getValue();
+            Path target = directory.resolve(userId + "-" + size + "-" + avatar.etag() + ".jpg");
+            Path temp = directory.resolve(target.getFileName() + ".tmp");
+            Files.write(temp, avatar.data());
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            
+            String key = key(userId, size);
+            synchronized (this) {
+                DiskEntry previous = disk.get(key);
+                if (previous != null && !previous.path().equals(target)) {
+                    removeDiskEntry(key, previous);
+                } else if (previous != null) {
+                    disk.remove(key);
+                    diskBytes -= previous.bytes();
+                }
+                disk.put(key, new DiskEntry(target, avatar.data().length, avatar.etag(), avatar.storedAtMillis()));
+                diskBytes += avatar.data().length;
+                Avatar previousHot = hot.remove(key);
+                if (previousHot != null) {
+                    hotBytes -= previousHot.data().length;
+                }
+                evictDisk();
+            }
+        }
+    }
+    
+    public synchronized long diskBytes() {
+        return diskBytes;
+    }
+    
+    public synchronized long hotBytes() {
+        return hotBytes;
+    }
+    
+    private void putHot(String key, Avatar avatar) {
+        long size = avatar.data().length;
+        if (size > properties.getMaxHotBytes()) {
+            return;
+        }
+        Avatar previous = hot.put(key, avatar);
+        if (previous != null) {
+            hotBytes -= previous.data().length;
+        }
+        hotBytes += size;
+        
+        Iterator<Avatar> eldest = hot.values().iterator();
+        while (hotBytes > properties.getMaxHotBytes() && eldest.hasNext()) {
+            hotBytes -= eldest.next().data().length;
+            eldest.remove();
+        }
+    }
+    
+    private void evictDisk() {
+        Iterator<Map.Entry<String, DiskEntry>> eldest = disk.entrySet().iterator();
+        while (diskBytes > properties.getMaxDiskBytes() && eldest.hasNext()) {
+            Map.Entry<String, DiskEntry> entry = eldest.next();
+            eldest.remove();
+            diskBytes -= entry.getValue().bytes();
+            Avatar hotAvatar = hot.remove(entry.getKey());
+            if (hotAvatar != null) {
+                hotBytes -= hotAvatar.data().length;
+            }
+            deleteQuietly(entry.getValue().path());
+        }
+    }
+    
+    private void removeDiskEntry(String key, DiskEntry entry) {
+        if (disk.remove(key, entry)) {
+            diskBytes -= entry.bytes();
+        }
+        deleteQuietly(entry.path());
+    }
+    
+    private void loadIndex() throws IOException {
+        List<DiskEntry> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root, 2)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                Matcher matcher = FILE_NAME.matcher(path.getFileName().toString());
+                if (!matcher.matches()) {
+                    if (path.getFileName().toString().endsWith(".tmp")) {
+                        deleteQuietly(path);
+                    }
+                    continue;
+                }
+                entries.add(new DiskEntry(path, Files.size(path), matcher.group(3), Files.getLastModifiedTime(path).toMillis()));
+            }
+        }
+        
+        entries.sort(Comparator.comparingLong(DiskEntry::storedAtMillis));
+        synchronized (this) {
+            for (DiskEntry entry : entries) {
+                Matcher matcher = FILE_NAME.matcher(entry.path().getFileName().toString());
+                matcher.matches();
+                String key = matcher.group(1) + "-" + matcher.group(2);
+                DiskEntry previous = disk.put(key, entry);
+                if (previous != null) {
+                    // 同一尺寸的旧版本，替换中途退出时残留
+                    diskBytes -= previous.bytes();
+                    deleteQuietly(previous.path());
+                }
+                diskBytes += entry.bytes();
+            }
+            evictDisk();
+        }
+        logger.info("头像磁盘缓存已加载: {} 个文件, {} 字节", disk.size(), diskBytes);
+    }
+    
+    private static String key(long userId, int size) {
+        return userId + "-" + size;
+    }
+    
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("删除头像缓存文件失败: {}", path);
+        }
+    }
+    
+    private record DiskEntry(Path path, long bytes, String etag, long storedAtMillis) {
+    }
+}
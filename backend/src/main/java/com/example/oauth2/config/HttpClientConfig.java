@@ -0,0 +1,46 @@
+package com.example.oauth2.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * 提供商调用共用的HTTP客户端
+ * 
+ * 所有提供商服务共享同一个带连接池的 HttpClient，并设置连接/读取超时，
+ * 避免每次请求新建 RestTemplate 且无超时地阻塞。
+ * 提供商调用另有舱壁超时，超时后执行线程会被中断（见 ProviderResilience），读取超时只是兜底。
+ */
+@Configuration
+public class HttpClientConfig {
+    
+    @Value("${app.oauth2.http.connect-timeout:2s}")
+    private Duration connectTimeout;
+    
+    @Value("${app.oauth2.http.read-timeout:10s}")
+    private Duration readTimeout;
+    
+    @Bean
+    public HttpClient oauth2HttpClient() {
+        return HttpClient.newBuilder()
+            .connectTimeout(connectTimeout)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+    }
+    
+    @Bean
+    public RestTemplate restTemplate(RestTemplateBuilder builder, HttpClient oauth2HttpClient) {
+        return builder
+            .requestFactory(() -> {
+                JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(oauth2HttpClient);
+                requestFactory.setReadTimeout(readTimeout);
+                return requestFactory;
+            })
+            .build();
+    }
+}
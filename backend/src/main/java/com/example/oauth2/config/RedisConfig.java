@@ -1,12 +1,21 @@
 package com.example.oauth2.config;
 
 import com.example.oauth2.dto.OAuth2State;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
+import java.time.Duration;
 
 @Configuration
 public class RedisConfig {
@@ -21,4 +30,55 @@ public class RedisConfig {
         template.setHashValueSerializer(new GenericJackson2JsonRedisSerializer());
         return template;
     }
+    
+    /**
+     * Lettuce 客户端选项，适用于单机、sentinel 和 cluster 三种部署
+     * 
+     * 断线后自动重连，重连期间命令进入有界队列等待而不是立即失败，
+     * 命令超时（spring.data.redis.timeout）同样作用于排队中的命令，避免登录请求无限挂起。
+     * cluster 模式下在 MOVED/ASK 重定向、节点失联等事件时自适应刷新拓扑。
+     */
+    @Bean
+    public LettuceClientConfigurationBuilderCustomizer lettuceTopologyCustomizer(RedisProperties redisProperties,
+                                                                               RedisTopologyProperties topology) {
+        return builder -> builder
+            .readFrom(ReadFrom.valueOf(topology.getReadFrom()))
+            .clientOptions(clientOptions(redisProperties, topology));
+    }
+    
+    private static ClientOptions clientOptions(RedisProperties redisProperties, RedisTopologyProperties topology) {
+        Duration connectTimeout = redisProperties.getConnectTimeout() != null
+            ? redisProperties.getConnectTimeout()
+            : SocketOptions.DEFAULT_CONNECT_TIMEOUT_DURATION;
+        SocketOptions socketOptions = SocketOptions.builder()
+            .connectTimeout(connectTimeout)
+            .keepAlive(true)
+            .build();
+        
+        if (redisProperties.getCluster() != null) {
+            ClusterTopologyRefreshOptions refreshOptions = ClusterTopologyRefreshOptions.builder()
+                .enableAllAdaptiveRefreshTriggers()
+                .enablePeriodicRefresh(topology.getTopologyRefreshPeriod())
+                .dynamicRefreshSources(true)
+                .build();
+            return ClusterClientOptions.builder()
+                .topologyRefreshOptions(refreshOptions)
+                // 故障转移后提升的新节点在拓扑刷新前也能接受连接
+                .validateClusterNodeMembership(false)
+                .autoReconnect(true)
+                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.ACCEPT_COMMANDS)
+                .requestQueueSize(topology.getRequestQueueSize())
+                .socketOptions(socketOptions)
+                .timeoutOptions(TimeoutOptions.enabled())
+                .build();
+        }
+        
+        return ClientOptions.builder()
+            .autoReconnect(true)
+            .disconnectedBehavior(ClientOptions.DisconnectedBehavior.ACCEPT_COMMANDS)
+            .requestQueueSize(topology.getRequestQueueSize())
+            .socketOptions(socketOptions)
+            .timeoutOptions(TimeoutOptions.enabled())
+            .build();
+    }
 }
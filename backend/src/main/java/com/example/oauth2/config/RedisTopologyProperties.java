@@ -0,0 +1,36 @@
+package com.example.oauth2.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+
+/**
+ * Redis 拓扑相关的客户端配置
+ * 
+ * 连接地址仍由 spring.data.redis.* 决定（单机、sentinel 或 cluster），
+ * 这里只配置读路由、拓扑刷新、断线缓冲和 state 存取的重试。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.redis")
+public class RedisTopologyProperties {
+    
+    /**
+     * 读命令路由：upstream、upstreamPreferred、replicaPreferred、replica、nearest、any
+     * state 使用 GETDEL（写命令）读取，始终在主节点执行，不受该配置影响
+     */
+    private String readFrom = "upstream";
+    
+    /** cluster 模式下的周期性拓扑刷新间隔，故障转移等事件另有自适应刷新 */
+    private Duration topologyRefreshPeriod = Duration.ofSeconds(30);
+    
+    /** 断线重连期间最多缓冲多少条命令，超出后立即失败 */
+    private int requestQueueSize = 10_000;
+    
+    /** state 存取失败时的最大尝试次数（含首次） */
+    private int stateMaxAttempts = 3;
+    
+    /** state 存取重试的初始间隔，之后每次翻倍 */
+    private Duration stateRetryBackoff = Duration.ofMillis(100);
+}
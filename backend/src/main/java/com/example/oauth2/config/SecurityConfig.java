@@ -1,11 +1,17 @@
 package com.example.oauth2.config;
 
+import com.example.oauth2.security.AdminApiKeyFilter;
+import com.example.oauth2.security.IntrospectionClientFilter;
+import com.example.oauth2.security.IntrospectionClientProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -15,6 +21,12 @@ import java.util.Arrays;
 @EnableWebSecurity
 public class SecurityConfig {
     
+    @Value("${app.admin.api-key:}")
+    private String adminApiKey;
+    
+    @Autowired
+    private IntrospectionClientProperties introspectionClients;
+    
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
@@ -22,9 +34,16 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers("/auth/**", "/h2-console/**").permitAll()
+                // 自省会暴露令牌对应的用户，只对内部服务开放
+                .requestMatchers("/auth/introspect", "/auth/introspect/**").hasAnyRole("ADMIN", "INTROSPECTION")
+                .requestMatchers("/auth/**", "/avatars/**", "/h2-console/**").permitAll()
+                .requestMatchers("/actuator/health/**").permitAll()
+                // 指标会暴露提供商、限流和会话的内部状态
+                .requestMatchers("/admin/**", "/actuator/metrics/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
+            .addFilterBefore(new AdminApiKeyFilter(adminApiKey), AnonymousAuthenticationFilter.class)
+            .addFilterBefore(new IntrospectionClientFilter(introspectionClients.getClients()), AnonymousAuthenticationFilter.class)
             .headers(headers -> headers.frameOptions(frame -> frame.disable()));
         
         return http.build();
@@ -0,0 +1,57 @@
+package com.example.oauth2.controller;
+
+import com.example.oauth2.analytics.LoginAnalyticsService;
+import com.example.oauth2.dto.ActiveUsersDTO;
+import com.example.oauth2.dto.LoginStatsDTO;
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.model.ClientPlatform;
+import com.example.oauth2.model.RollupPeriod;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 登录统计查询，数据来自增量汇总，不扫描原始表
+ */
+@RestController
+@RequestMapping("/admin/analytics")
+public class AdminAnalyticsController {
+    
+    /** 按小时查询最多31天，按天查询最多约两年 */
+    private static final Duration MAX_HOURLY_RANGE = Duration.ofDays(31);
+    private static final Duration MAX_DAILY_RANGE = Duration.ofDays(731);
+    
+    @Autowired
+    private LoginAnalyticsService loginAnalyticsService;
+    
+    @GetMapping("/logins")
+    public List<LoginStatsDTO> logins(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "DAY") RollupPeriod period,
+            @RequestParam(required = false) AuthProvider provider,
+            @RequestParam(required = false) ClientPlatform platform) {
+        
+        Duration range = Duration.between(from, to);
+        Duration maxRange = period == RollupPeriod.HOUR ? MAX_HOURLY_RANGE : MAX_DAILY_RANGE;
+        if (range.isNegative() || range.compareTo(maxRange) > 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid time range");
+        }
+        return loginAnalyticsService.loginStats(period, from, to, provider, platform);
+    }
+    
+    @GetMapping("/active-users")
+    public ActiveUsersDTO activeUsers(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return loginAnalyticsService.activeUsers(date != null ? date : LocalDate.now());
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.oauth2.controller;
+
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.registry.ProviderDescriptor;
+import com.example.oauth2.registry.ProviderOverride;
+import com.example.oauth2.registry.ProviderOverrideFileWatcher;
+import com.example.oauth2.registry.ProviderRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 运行时查看和修改提供商配置
+ * 
+ * 管理接口的覆盖项只保存在内存中，优先级高于配置文件；重启后以 application.yml 和配置文件为准。
+ */
+@RestController
+@RequestMapping("/admin/providers")
+public class AdminProviderController {
+    
+    @Autowired
+    private ProviderRegistry providerRegistry;
+    
+    @Autowired
+    private ProviderOverrideFileWatcher fileWatcher;
+    
+    @GetMapping
+    public Map<String, Object> list() {
+        ProviderRegistry.Snapshot snapshot = providerRegistry.snapshot();
+        List<Map<String, Object>> providers = new ArrayList<>();
+        snapshot.entries().values().forEach(entry -> providers.add(entry.descriptor().toView()));
+        
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("version", snapshot.version());
+        response.put("adminOverrides", providerRegistry.adminOverrides().keySet());
+        response.put("providers", providers);
+        return response;
+    }
+    
+    /**
+     * 合并覆盖项，例如 {"clientSecret": "..."} 轮换密钥、{"enabled": false} 下线提供商
+     */
+    @PutMapping("/{provider}")
+    public Map<String, Object> override(@PathVariable String provider, @RequestBody ProviderOverride override) {
+        try {
+            ProviderDescriptor descriptor = providerRegistry.putAdminOverride(parseProvider(provider), override);
+            return descriptor.toView();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+    
+    /**
+     * 撤销管理接口的覆盖项，恢复为 yml 和配置文件中的值
+     */
+    @DeleteMapping("/{provider}")
+    public Map<String, Object> reset(@PathVariable String provider) {
+        AuthProvider authProvider = parseProvider(provider);
+        providerRegistry.removeAdminOverride(authProvider);
+        return providerRegistry.descriptor(authProvider).toView();
+    }
+    
+    @PostMapping("/reload")
+    public Map<String, Object> reload() {
+        if (!fileWatcher.isEnabled()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "app.oauth2.registry.file is not configured");
+        }
+        try {
+            fileWatcher.reload();
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid provider file: " + e.getMessage());
+        }
+        return list();
+    }
+    
+    private static AuthProvider parseProvider(String provider) {
+        try {
+            return AuthProvider.valueOf(provider.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown provider: " + provider);
+        }
+    }
+}
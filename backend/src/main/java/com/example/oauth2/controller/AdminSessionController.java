@@ -0,0 +1,48 @@
+package com.example.oauth2.controller;
+
+import com.example.oauth2.dto.SessionDTO;
+import com.example.oauth2.session.SessionRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 管理员查看和强制登出用户的会话
+ * 
+ * 登出后本节点立即生效，其他节点在 app.auth.sessions.local-ttl 内生效。
+ */
+@RestController
+@RequestMapping("/admin/users/{userId}/sessions")
+public class AdminSessionController {
+    
+    @Autowired
+    private SessionRegistry sessionRegistry;
+    
+    @GetMapping
+    public Map<String, Object> list(@PathVariable long userId) {
+        List<SessionDTO> sessions = sessionRegistry.list(userId).stream()
+            .map(session -> SessionDTO.of(session, 0))
+            .toList();
+        return Map.of("userId", userId, "sessions", sessions);
+    }
+    
+    @DeleteMapping
+    public Map<String, Object> revokeAll(@PathVariable long userId) {
+        return Map.of("userId", userId, "revoked", sessionRegistry.revokeAll(userId));
+    }
+    
+    @DeleteMapping("/{sid}")
+    public Map<String, Object> revoke(@PathVariable long userId, @PathVariable String sid) {
+        if (!sessionRegistry.revoke(userId, SessionController.parseSessionId(sid))) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "session not found");
+        }
+        return Map.of("userId", userId, "revoked", 1);
+    }
+}
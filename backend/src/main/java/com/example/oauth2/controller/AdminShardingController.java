@@ -0,0 +1,85 @@
+package com.example.oauth2.controller;
+
+import com.example.oauth2.sharding.ReshardingTool;
+import com.example.oauth2.sharding.ShardRouter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 身份数据分片的状态查询和迁移
+ * 
+ * 迁移接口同步执行直到完成，默认 dryRun 只统计需要移动的行数。
+ */
+@RestController
+@RequestMapping("/admin/sharding")
+@ConditionalOnProperty(prefix = "app.sharding.shards[0]", name = "url")
+public class AdminShardingController {
+    
+    @Autowired
+    private ShardRouter shardRouter;
+    
+    @Autowired
+    private ReshardingTool reshardingTool;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @GetMapping
+    public Map<String, Object> status() {
+        List<Map<String, Object>> shards = new ArrayList<>();
+        List<ShardRouter.Shard> allShards = shardRouter.allShards();
+        for (int i = 0; i < allShards.size(); i++) {
+            ShardRouter.Shard shard = allShards.get(i);
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("name", shard.name());
+            stats.put("active", i < shardRouter.getActiveShards());
+            stats.put("users", shard.jdbcTemplate().queryForObject("SELECT COUNT(*) FROM users", Long.class));
+            stats.put("accounts", shard.jdbcTemplate().queryForObject("SELECT COUNT(*) FROM user_auth", Long.class));
+            shards.add(stats);
+        }
+        
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("activeShards", shardRouter.getActiveShards());
+        status.put("migrating", shardRouter.isMigrating());
+        status.put("previousActiveShards", shardRouter.getPreviousActiveShards());
+        status.put("shards", shards);
+        return status;
+    }
+    
+    /**
+     * 从单库迁移：把主库 users/user_auth 复制到各分片
+     */
+    @PostMapping("/import")
+    public ReshardingTool.Report importFromPrimary(@RequestParam(defaultValue = "true") boolean dryRun) {
+        return reshardingTool.importFromPrimary(jdbcTemplate, dryRun);
+    }
+    
+    /**
+     * 修改 active-shards 后把归属变化的行搬到新分片
+     */
+    @PostMapping("/rebalance")
+    public ReshardingTool.Report rebalance(@RequestParam(defaultValue = "true") boolean dryRun) {
+        return reshardingTool.rebalance(dryRun);
+    }
+    
+    /**
+     * 迁移发现ID冲突时中止，已复制的行保留，排查后可重新执行
+     */
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, Object>> handleConflict(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "id_conflict", "message", e.getMessage()));
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.oauth2.controller;
+
+import com.example.oauth2.dto.LinkedAccountDTO;
+import com.example.oauth2.dto.PageDTO;
+import com.example.oauth2.dto.UserQuery;
+import com.example.oauth2.dto.UserSummaryDTO;
+import com.example.oauth2.repository.UserQueryRepository;
+import com.example.oauth2.sharding.ShardedIdentityStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * 用户和绑定账号的管理查询
+ * 
+ * 列表接口使用键集分页：首页不传 after，之后以返回的 nextCursor 作为 after。
+ * export 接口以 NDJSON（每行一个JSON对象）流式输出全部匹配数据。
+ * 查询只读主库的 users/user_auth，开启身份数据分片后这些表不再更新，接口直接拒绝，避免返回过期数据。
+ */
+@RestController
+@RequestMapping("/admin/users")
+public class AdminUserController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AdminUserController.class);
+    
+    private static final int MAX_LIMIT = 1000;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    
+    @Autowired
+    private UserQueryRepository userQueryRepository;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired(required = false)
+    private ShardedIdentityStore shardedStore;
+    
+    @GetMapping
+    public PageDTO<UserSummaryDTO> listUsers(UserQuery query,
+                                             @RequestParam(defaultValue = "0") long after,
+                                             @RequestParam(defaultValue = "100") int limit) {
+        requireUnsharded();
+        int pageSize = pageSize(limit);
+        return page(userQueryRepository.findUsers(query, after, pageSize + 1), pageSize, UserSummaryDTO::getId);
+    }
+    
+    @GetMapping("/accounts")
+    public PageDTO<LinkedAccountDTO> listLinkedAccounts(UserQuery query,
+                                                        @RequestParam(defaultValue = "0") long after,
+                                                        @RequestParam(defaultValue = "100") int limit) {
+        requireUnsharded();
+        int pageSize = pageSize(limit);
+        return page(userQueryRepository.findLinkedAccounts(query, after, pageSize + 1), pageSize, LinkedAccountDTO::getId);
+    }
+    
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(UserQuery query) {
+        requireUnsharded();
+        logger.info("导出用户, 条件: {}", query);
+        return ndjson("users.ndjson", out -> userQueryRepository.streamUsers(query, writeLine(out)));
+    }
+    
+    @GetMapping("/accounts/export")
+    public ResponseEntity<StreamingResponseBody> exportLinkedAccounts(UserQuery query) {
+        requireUnsharded();
+        logger.info("导出绑定账号, 条件: {}", query);
+        return ndjson("accounts.ndjson", out -> userQueryRepository.streamLinkedAccounts(query, writeLine(out)));
+    }
+    
+    private void requireUnsharded() {
+        if (shardedStore != null) {
+            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED,
+                "User queries read the primary database only and are unavailable while identity sharding is enabled");
+        }
+    }
+    
+    private static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+    
+    /**
+     * 多查一行判断是否还有下一页，避免最后一页恰好满页时多一次空请求
+     */
+    private static <T> PageDTO<T> page(List<T> rows, int pageSize, ToLongFunction<T> id) {
+        if (rows.size() <= pageSize) {
+            return new PageDTO<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new PageDTO<>(items, id.applyAsLong(items.get(pageSize - 1)));
+    }
+    
+    private ResponseEntity<StreamingResponseBody> ndjson(String filename, Consumer<OutputStream> writer) {
+        StreamingResponseBody body = outputStream -> {
+            BufferedOutputStream out = new BufferedOutputStream(outputStream, 64 * 1024);
+            try {
+                writer.accept(out);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok()
+            .contentType(NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+            .body(body);
+    }
+    
+    private <T> Consumer<T> writeLine(OutputStream out) {
+        ObjectWriter writer = objectMapper.writer();
+        return item -> {
+            try {
+                out.write(writer.writeValueAsBytes(item));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.oauth2.controller;
+
+import com.example.oauth2.avatar.Avatar;
+import com.example.oauth2.avatar.AvatarProperties;
+import com.example.oauth2.avatar.AvatarService;
+import com.example.oauth2.avatar.AvatarStore;
+import com.example.oauth2.dto.UserDTO;
+import com.example.oauth2.service.UserProjectionCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import java.util.Optional;
+
+/**
+ * 头像代理
+ * 
+ * 已缓存时直接返回 JPEG（带 ETag，支持 If-None-Match）；
+ * 尚未缓存时临时重定向到提供商原图，并在后台下载，之后的请求由本地缓存响应。
+ */
+@RestController
+@RequestMapping("/avatars")
+public class AvatarController {
+    
+    @Autowired
+    private AvatarService avatarService;
+    
+    @Autowired
+    private AvatarStore avatarStore;
+    
+    @Autowired
+    private AvatarProperties properties;
+    
+    @Autowired
+    private UserProjectionCache userProjectionCache;
+    
+    @GetMapping("/{userId}")
+    public ResponseEntity<?> avatar(@PathVariable long userId,
+                                    @RequestParam(defaultValue = "96") int size,
+                                    WebRequest webRequest) {
+        int resolvedSize = avatarService.resolveSize(size);
+        
+        Optional<String> etag = avatarStore.etag(userId, resolvedSize);
+        if (etag.isPresent()) {
+            if (webRequest.checkNotModified(etag.get())) {
+                return null;
+            }
+            Optional<Avatar> avatar = avatarStore.get(userId, resolvedSize);
+            if (avatar.isPresent()) {
+                return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_JPEG)
+                    .cacheControl(CacheControl.maxAge(properties.getMaxAge()).cachePublic())
+                    .eTag(avatar.get().etag())
+                    .body(avatar.get().data());
+            }
+        }
+        
+        // 公开接口，不存在的ID短时间内不再查库
+        if (avatarService.isKnownMissing(userId)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        String imageUrl = userProjectionCache.get(userId).map(UserDTO::getImageUrl).orElse(null);
+        if (imageUrl == null || !avatarService.isAllowed(imageUrl)) {
+            avatarService.markMissing(userId);
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).build();
+        }
+        avatarService.refreshAsync(userId, imageUrl);
+        return ResponseEntity.status(HttpStatus.FOUND)
+            .header(HttpHeaders.LOCATION, imageUrl)
+            .cacheControl(CacheControl.noStore())
+            .build();
+    }
+}
@@ -1,16 +1,13 @@
 package com.example.oauth2.controller;
 
-import com.example.oauth2.dto.*;
-import com.example.oauth2.model.User;
-import com.example.oauth2.security.TokenProvider;
-import com.example.oauth2.service.OAuth2Service;
-import com.example.oauth2.service.OAuth2ServiceFactory;
-import com.example.oauth2.service.UserService;
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.pipeline.CallbackContext;
+import com.example.oauth2.pipeline.CallbackPipeline;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.web.bind.annotation.*;
 import java.io.IOException;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/oauth/callback")
@@ -18,16 +15,7 @@ import java.io.IOException;
 public class OAuthCallbackController {
     
     @Autowired
-    private OAuth2ServiceFactory oauth2ServiceFactory;
-    
-    @Autowired
-    private TokenProvider tokenProvider;
-    
-    @Autowired
-    private RedisTemplate<String, OAuth2State> redisTemplate;
-    
-    @Autowired
-    private UserService userService;
+    private CallbackPipeline callbackPipeline;
     
     /**
      * Google 回调端点 - 匹配 Google Console 配置
@@ -40,37 +28,23 @@ public class OAuthCallbackController {
             @RequestParam String state,
             HttpServletResponse response) throws IOException {
         
-        OAuth2State stateData = redisTemplate.opsForValue().get("oauth2:state:" + state);
-        if (stateData == null) {
+        AuthProvider callbackProvider;
+        try {
+            callbackProvider = AuthProvider.valueOf(provider.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
             response.sendRedirect("http://localhost:3000/login?error=invalid_state");
             return;
         }
         
-        OAuth2Service oauth2Service = oauth2ServiceFactory.getService(
-            stateData.getProvider(),
-            stateData.getPlatform()
-        );
-        
         try {
-            OAuth2TokenResponse tokenResponse = oauth2Service.exchangeToken(code, stateData.getRedirectUri());
-            OAuth2UserInfo userInfo = oauth2Service.getUserInfo(tokenResponse.getAccessToken());
-            
-            User user = userService.findOrCreateUser(
-                userInfo,
-                stateData.getProvider(),
-                stateData.getPlatform()
-            );
-            
-            String jwt = tokenProvider.createToken(user, stateData.getPlatform());
+            CallbackContext context = callbackPipeline.run(new CallbackContext(callbackProvider, code, state));
             
             // 重定向到前端
-            String redirectUrl = "http://localhost:3000/oauth2/redirect?token=" + jwt;
+            String redirectUrl = "http://localhost:3000/oauth2/redirect?token=" + context.getJwt();
             response.sendRedirect(redirectUrl);
             
         } catch (Exception e) {
             response.sendRedirect("http://localhost:3000/login?error=" + e.getMessage());
-        } finally {
-            redisTemplate.delete("oauth2:state:" + state);
         }
     }
 }
@@ -0,0 +1,98 @@
+package com.example.oauth2.controller;
+
+import com.example.oauth2.dto.SessionDTO;
+import com.example.oauth2.security.TokenIntrospector;
+import com.example.oauth2.security.TokenProvider;
+import com.example.oauth2.session.SessionRegistry;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 当前用户的会话管理：查看已登录的设备、登出单个设备、登出全部设备
+ * 
+ * 请求头 Authorization: Bearer {token}，令牌的会话已登出时返回401。
+ */
+@RestController
+@RequestMapping("/auth")
+public class SessionController {
+    
+    private static final String BEARER_PREFIX = "Bearer ";
+    
+    @Autowired
+    private TokenIntrospector tokenIntrospector;
+    
+    @Autowired
+    private SessionRegistry sessionRegistry;
+    
+    @GetMapping("/sessions")
+    public Map<String, Object> list(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        Claims claims = authenticate(authorization);
+        long currentSessionId = TokenProvider.getSessionId(claims);
+        List<SessionDTO> sessions = sessionRegistry.list(userId(claims)).stream()
+            .map(session -> SessionDTO.of(session, currentSessionId))
+            .toList();
+        return Map.of("sessions", sessions);
+    }
+    
+    @DeleteMapping("/sessions/{sid}")
+    public Map<String, Object> revoke(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                      @PathVariable String sid) {
+        Claims claims = authenticate(authorization);
+        if (!sessionRegistry.revoke(userId(claims), parseSessionId(sid))) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "session not found");
+        }
+        return Map.of("revoked", 1);
+    }
+    
+    /**
+     * 登出当前会话，令牌没有 sid（会话登记开启前签发）时无法单独登出
+     */
+    @PostMapping("/logout")
+    public Map<String, Object> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        Claims claims = authenticate(authorization);
+        long sessionId = TokenProvider.getSessionId(claims);
+        if (sessionId == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "token has no session");
+        }
+        boolean revoked = sessionRegistry.revoke(userId(claims), sessionId);
+        return Map.of("revoked", revoked ? 1 : 0);
+    }
+    
+    @PostMapping("/logout-all")
+    public Map<String, Object> logoutAll(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+        Claims claims = authenticate(authorization);
+        return Map.of("revoked", sessionRegistry.revokeAll(userId(claims)));
+    }
+    
+    private Claims authenticate(String authorization) {
+        String token = authorization != null && authorization.startsWith(BEARER_PREFIX)
+            ? authorization.substring(BEARER_PREFIX.length())
+            : null;
+        return tokenIntrospector.activeClaims(token)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "invalid_token"));
+    }
+    
+    private static long userId(Claims claims) {
+        return Long.parseLong(claims.getSubject());
+    }
+    
+    static long parseSessionId(String sid) {
+        try {
+            return Long.parseLong(sid, 36);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid session id: " + sid);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.oauth2.controller;
+
+import com.example.oauth2.dto.IntrospectionBatchRequest;
+import com.example.oauth2.dto.IntrospectionResponse;
+import com.example.oauth2.dto.UserDTO;
+import com.example.oauth2.security.TokenIntrospector;
+import com.example.oauth2.session.SessionProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 供其他服务使用的令牌自省和用户信息接口
+ * 
+ * 响应带 Cache-Control，max-age 不超过令牌剩余有效期，带会话ID的令牌还不超过 app.auth.sessions.local-ttl，网关可据此缓存结果；
+ * /auth/me 开启会话登记时同样不超过 local-ttl。
+ */
+@RestController
+@RequestMapping("/auth")
+public class TokenIntrospectionController {
+    
+    private static final String BEARER_PREFIX = "Bearer ";
+    
+    @Autowired
+    private TokenIntrospector tokenIntrospector;
+    
+    @Autowired
+    private SessionProperties sessionProperties;
+    
+    @Value("${app.auth.introspection.max-age:60s}")
+    private Duration maxAge;
+    
+    @Value("${app.auth.introspection.batch-max-size:100}")
+    private int batchMaxSize;
+    
+    @PostMapping(value = "/introspect", consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+    public ResponseEntity<IntrospectionResponse> introspect(@RequestParam String token) {
+        IntrospectionResponse result = tokenIntrospector.introspect(token);
+        return ResponseEntity.ok()
+            .cacheControl(cacheControl(secondsToLive(result)))
+            .body(result);
+    }
+    
+    /**
+     * 批量自省，结果顺序与请求中的 tokens 一致
+     */
+    @PostMapping(value = "/introspect/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> introspectBatch(@RequestBody IntrospectionBatchRequest request) {
+        List<String> tokens = request.getTokens() != null ? request.getTokens() : List.of();
+        if (tokens.size() > batchMaxSize) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "too_many_tokens",
+                "maxTokens", batchMaxSize
+            ));
+        }
+        
+        List<IntrospectionResponse> results = tokens.stream()
+            .map(tokenIntrospector::introspect)
+            .toList();
+        long seconds = results.stream()
+            .mapToLong(this::secondsToLive)
+            .min()
+            .orElse(maxAge.toSeconds());
+        
+        return ResponseEntity.ok()
+            .cacheControl(cacheControl(seconds))
+            .body(Map.of("results", results));
+    }
+    
+    @GetMapping("/me")
+    public ResponseEntity<?> me(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization,
+                                WebRequest webRequest) {
+        String token = authorization != null && authorization.startsWith(BEARER_PREFIX)
+            ? authorization.substring(BEARER_PREFIX.length())
+            : null;
+        
+        Optional<UserDTO> user = tokenIntrospector.currentUser(token);
+        if (user.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .header(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"")
+                .body(Map.of("error", "invalid_token"));
+        }
+        
+        String etag = etag(user.get());
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        
+        // 与自省相同：登出（包括 logout-all）后客户端或中间缓存最多再返回 local-ttl 内的旧结果
+        long seconds = maxAge.toSeconds();
+        if (sessionProperties.isEnabled()) {
+            seconds = Math.min(seconds, sessionProperties.getLocalTtl().toSeconds());
+        }
+        return ResponseEntity.ok()
+            .cacheControl(cacheControl(seconds))
+            .varyBy(HttpHeaders.AUTHORIZATION)
+            .eTag(etag)
+            .body(user.get());
+    }
+    
+    /**
+     * 有效令牌缓存到过期为止（不超过 max-age）；无效令牌不会再变为有效，按 max-age 缓存
+     * 带会话ID的令牌随时可能被登出，有效结果最多缓存 local-ttl，与各节点本地会话缓存的滞后一致
+     */
+    private long secondsToLive(IntrospectionResponse result) {
+        long max = maxAge.toSeconds();
+        if (!result.isActive()) {
+            return max;
+        }
+        if (result.getSid() != null) {
+            max = Math.min(max, sessionProperties.getLocalTtl().toSeconds());
+        }
+        long remaining = result.getExp() - System.currentTimeMillis() / 1000;
+        return Math.max(0, Math.min(max, remaining));
+    }
+    
+    private static CacheControl cacheControl(long seconds) {
+        return CacheControl.maxAge(Duration.ofSeconds(seconds)).cachePrivate();
+    }
+    
+    /**
+     * 字段的 SHA-256，每个字段前写入长度（空值为 -1），不同字段组合不会拼出相同的输入
+     */
+    private static String etag(UserDTO user) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        for (Object field : new Object[]{user.getId(), user.getName(), user.getEmail(), user.getImageUrl()}) {
+            byte[] bytes = field != null ? field.toString().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            digest.update(((field != null ? bytes.length : -1) + ":").getBytes(StandardCharsets.UTF_8));
+            digest.update(bytes);
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 16);
+    }
+}
@@ -1,22 +1,30 @@
 package com.example.oauth2.controller;
 
 import com.example.oauth2.dto.*;
+import com.example.oauth2.model.AuthProvider;
 import com.example.oauth2.model.ClientPlatform;
 import com.example.oauth2.model.User;
-import com.example.oauth2.security.TokenProvider;
+import com.example.oauth2.pipeline.CallbackContext;
+import com.example.oauth2.pipeline.CallbackPipeline;
+import com.example.oauth2.pipeline.InvalidStateException;
+import com.example.oauth2.resilience.ProviderUnavailableException;
+import com.example.oauth2.security.OAuth2ParameterGenerator;
+import com.example.oauth2.service.OAuth2AuthenticationException;
 import com.example.oauth2.service.OAuth2Service;
 import com.example.oauth2.service.OAuth2ServiceFactory;
-import com.example.oauth2.service.UserService;
+import com.example.oauth2.service.OAuth2StateStore;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/auth/oauth2")
@@ -29,34 +37,29 @@ public class UnifiedOAuth2Controller {
     private OAuth2ServiceFactory oauth2ServiceFactory;
     
     @Autowired
-    private TokenProvider tokenProvider;
+    private OAuth2StateStore stateStore;
     
     @Autowired
-    private RedisTemplate<String, OAuth2State> redisTemplate;
+    private OAuth2ParameterGenerator parameterGenerator;
     
     @Autowired
-    private UserService userService;
+    private CallbackPipeline callbackPipeline;
     
     @PostMapping("/authorize")
     public ResponseEntity<?> authorize(@RequestBody OAuth2AuthRequest request) {
         logger.info("=== OAuth2 授权请求开始 ===");
         logger.info("Provider: {}, Platform: {}", request.getProvider(), request.getPlatform());
         logger.info("RedirectUri: {}", request.getRedirectUri());
-        logger.info("State: {}", request.getState());
         
         OAuth2Service oauth2Service = oauth2ServiceFactory.getService(
             request.getProvider(), 
             request.getPlatform()
         );
         
-        String authorizationUrl = oauth2Service.buildAuthorizationUrl(
-            request.getRedirectUri(),
-            request.getState(),
-            request.getCodeChallenge(),
-            request.getCodeChallengeMethod()
-        );
-        
-        logger.info("生成的授权URL: {}", authorizationUrl);
+        // state 和 nonce 一律由服务端生成，客户端传入的 state 不再作为 Redis 键
+        String state = parameterGenerator.newState();
+        String nonce = parameterGenerator.newNonce();
+        logger.info("State: {}", state);
         
         OAuth2State stateData = new OAuth2State(
             request.getProvider(),
@@ -64,21 +67,43 @@ public class UnifiedOAuth2Controller {
             request.getRedirectUri(),
             request.getCodeChallenge()
         );
+        stateData.setNonce(nonce);
+        
+        if (request.getCodeChallenge() != null) {
+            // App 端自带 PKCE，在 /token 时校验其 code_verifier
+            stateData.setCodeChallengeMethod(
+                request.getCodeChallengeMethod() != null ? request.getCodeChallengeMethod() : OAuth2ParameterGenerator.PLAIN
+            );
+        } else if (oauth2Service.supportsPkce()) {
+            // 客户端未提供时由服务端生成，code_verifier 只保存在服务端
+            OAuth2ParameterGenerator.Pkce pkce = parameterGenerator.newPkce();
+            stateData.setCodeChallenge(pkce.codeChallenge());
+            stateData.setCodeChallengeMethod(OAuth2ParameterGenerator.S256);
+            stateData.setCodeVerifier(pkce.codeVerifier());
+        }
         
-        redisTemplate.opsForValue().set(
-            "oauth2:state:" + request.getState(), 
-            stateData, 
-            5, 
-            TimeUnit.MINUTES
+        String authorizationUrl = oauth2Service.buildAuthorizationUrl(
+            request.getRedirectUri(),
+            state,
+            nonce,
+            stateData.getCodeChallenge(),
+            stateData.getCodeChallengeMethod()
         );
         
+        logger.info("生成的授权URL: {}", authorizationUrl);
+        
+        stateStore.save(state, stateData);
+        
         logger.info("State数据已存储到Redis");
         logger.info("=== OAuth2 授权请求完成 ===");
         
-        return ResponseEntity.ok(Map.of(
-            "authorizationUrl", authorizationUrl,
-            "state", request.getState()
-        ));
+        // 小程序没有授权页，只返回 state，客户端随后以 wx.login / tt.login 的 code 调用 /token
+        Map<String, String> body = new LinkedHashMap<>();
+        if (authorizationUrl != null) {
+            body.put("authorizationUrl", authorizationUrl);
+        }
+        body.put("state", state);
+        return ResponseEntity.ok(body);
     }
     
     @GetMapping("/callback/{provider}")
@@ -93,102 +118,97 @@ public class UnifiedOAuth2Controller {
         logger.info("Code: {}", code.substring(0, Math.min(20, code.length())) + "...");
         logger.info("State: {}", state);
         
-        OAuth2State stateData = redisTemplate.opsForValue().get("oauth2:state:" + state);
-        if (stateData == null) {
-            logger.error("State验证失败: 未找到对应的state数据");
+        AuthProvider callbackProvider = parseProvider(provider);
+        if (callbackProvider == null) {
+            logger.error("未知的回调提供商: {}", provider);
             response.sendRedirect("http://localhost:3000/login?error=invalid_state");
             return;
         }
         
-        logger.info("State验证成功, Provider: {}, Platform: {}", stateData.getProvider(), stateData.getPlatform());
-        
-        OAuth2Service oauth2Service = oauth2ServiceFactory.getService(
-            stateData.getProvider(),
-            stateData.getPlatform()
-        );
-        
+        CallbackContext context = new CallbackContext(callbackProvider, code, state);
         try {
-            logger.info("开始交换访问令牌...");
-            OAuth2TokenResponse tokenResponse = oauth2Service.exchangeToken(code, stateData.getRedirectUri());
-            logger.info("访问令牌交换成功, AccessToken: {}...", 
-                tokenResponse.getAccessToken().substring(0, Math.min(20, tokenResponse.getAccessToken().length())));
-            
-            logger.info("开始获取用户信息...");
-            OAuth2UserInfo userInfo = oauth2Service.getUserInfo(tokenResponse.getAccessToken());
-            logger.info("用户信息获取成功:");
-            logger.info("  - ID: {}", userInfo.getId());
-            logger.info("  - Name: {}", userInfo.getName());
-            logger.info("  - Email: {}", userInfo.getEmail());
-            logger.info("  - ImageUrl: {}", userInfo.getImageUrl());
-            
-            User user = userService.findOrCreateUser(
-                userInfo,
-                stateData.getProvider(),
-                stateData.getPlatform()
-            );
-            logger.info("用户创建/查找成功, UserID: {}", user.getId());
-            
-            String jwt = tokenProvider.createToken(user, stateData.getPlatform());
-            logger.info("JWT令牌生成成功");
+            callbackPipeline.run(context);
             
             // 根据平台类型选择重定向方式
-            String redirectUrl = buildRedirectUrl(stateData.getPlatform(), jwt);
+            String redirectUrl = buildRedirectUrl(context.getPlatform(), context.getJwt());
             logger.info("重定向到: {}", redirectUrl);
             response.sendRedirect(redirectUrl);
             
             logger.info("=== OAuth2 回调处理成功完成 ===");
             
+        } catch (InvalidStateException e) {
+            response.sendRedirect("http://localhost:3000/login?error=invalid_state");
         } catch (Exception e) {
             logger.error("OAuth2 回调处理失败: {}", e.getMessage(), e);
-            response.sendRedirect(stateData.getRedirectUri() + "?error=" + e.getMessage());
-        } finally {
-            redisTemplate.delete("oauth2:state:" + state);
-            logger.info("State数据已清理");
+            String errorRedirect = context.getStateData() != null
+                ? context.getStateData().getRedirectUri()
+                : "http://localhost:3000/login";
+            response.sendRedirect(errorRedirect + "?error=" + e.getMessage());
         }
     }
     
     @PostMapping("/token")
     public ResponseEntity<?> exchangeToken(@RequestBody OAuth2TokenRequest request) {
-        OAuth2State stateData = redisTemplate.opsForValue().get("oauth2:state:" + request.getState());
-        if (stateData == null) {
+        CallbackContext context = new CallbackContext(request.getProvider(), request.getCode(), request.getState());
+        context.setRequestedPlatform(request.getPlatform());
+        context.setCodeVerifier(request.getCodeVerifier());
+        context.setCodeVerifierRequired(true);
+        context.setPhoneCode(request.getPhoneCode());
+        context.setDeviceId(request.getDeviceId());
+        
+        try {
+            callbackPipeline.run(context);
+        } catch (InvalidStateException e) {
             return ResponseEntity.badRequest().body(Map.of("error", "Invalid or expired state"));
         }
         
-        OAuth2Service oauth2Service = oauth2ServiceFactory.getService(
-            request.getProvider(),
-            request.getPlatform()
-        );
+        User user = context.getUser();
+        UserDTO userDTO = UserDTO.builder()
+            .id(user.getId())
+            .name(user.getName())
+            .email(user.getEmail())
+            .imageUrl(user.getImageUrl())
+            .build();
         
-        try {
-            OAuth2TokenResponse tokenResponse = oauth2Service.exchangeToken(
-                request.getCode(),
-                stateData.getRedirectUri()
-            );
-            
-            OAuth2UserInfo userInfo = oauth2Service.getUserInfo(tokenResponse.getAccessToken());
-            
-            User user = userService.findOrCreateUser(
-                userInfo,
-                request.getProvider(),
-                request.getPlatform()
-            );
-            
-            String jwt = tokenProvider.createToken(user, request.getPlatform());
-            
-            UserDTO userDTO = UserDTO.builder()
-                .id(user.getId())
-                .name(user.getName())
-                .email(user.getEmail())
-                .imageUrl(user.getImageUrl())
-                .build();
-            
-            return ResponseEntity.ok(Map.of(
-                "token", jwt,
-                "user", userDTO
+        return ResponseEntity.ok(Map.of(
+            "token", context.getJwt(),
+            "user", userDTO
+        ));
+    }
+    
+    /**
+     * 提供商被熔断/舱壁/超时快速拒绝时返回503，客户端可稍后重试
+     */
+    @ExceptionHandler(ProviderUnavailableException.class)
+    public ResponseEntity<?> handleProviderUnavailable(ProviderUnavailableException e) {
+        logger.warn("提供商暂不可用: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, "5")
+            .body(Map.of(
+                "error", "provider_unavailable",
+                "provider", e.getProvider().name(),
+                "reason", e.getReason().name()
             ));
-            
-        } finally {
-            redisTemplate.delete("oauth2:state:" + request.getState());
+    }
+    
+    /**
+     * 提供商没有返回可信的用户标识，本次授权无效，客户端需要重新授权
+     */
+    @ExceptionHandler(OAuth2AuthenticationException.class)
+    public ResponseEntity<?> handleAuthenticationFailed(OAuth2AuthenticationException e) {
+        logger.warn("提供商身份校验失败: {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+            .body(Map.of(
+                "error", "authentication_failed",
+                "provider", e.getProvider().name()
+            ));
+    }
+    
+    private static AuthProvider parseProvider(String provider) {
+        try {
+            return AuthProvider.valueOf(provider.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
         }
     }
     
@@ -0,0 +1,34 @@
+package com.example.oauth2.datasource;
+
+/**
+ * 当前线程显式指定的数据源路由
+ * 
+ * 未指定时由事务属性决定：只读事务走副本，其余走主库。
+ */
+public enum DataSourceRoute {
+    PRIMARY,
+    REPLICA;
+    
+    private static final ThreadLocal<DataSourceRoute> CURRENT = new ThreadLocal<>();
+    
+    public static DataSourceRoute current() {
+        return CURRENT.get();
+    }
+    
+    /**
+     * @return 之前的路由，用于嵌套调用结束后恢复
+     */
+    static DataSourceRoute set(DataSourceRoute route) {
+        DataSourceRoute previous = CURRENT.get();
+        CURRENT.set(route);
+        return previous;
+    }
+    
+    static void restore(DataSourceRoute previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
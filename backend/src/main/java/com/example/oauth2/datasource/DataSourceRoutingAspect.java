@@ -0,0 +1,42 @@
+package com.example.oauth2.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 处理 {@link UsePrimary} / {@link UseReplica}
+ * 
+ * 优先级高于事务切面，路由在事务开始前确定。
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DataSourceRoutingAspect {
+    
+    @Around("@annotation(com.example.oauth2.datasource.UsePrimary) || @within(com.example.oauth2.datasource.UsePrimary)")
+    public Object usePrimary(ProceedingJoinPoint joinPoint) throws Throwable {
+        return proceedWith(DataSourceRoute.PRIMARY, joinPoint);
+    }
+    
+    @Around("@annotation(com.example.oauth2.datasource.UseReplica) || @within(com.example.oauth2.datasource.UseReplica)")
+    public Object useReplica(ProceedingJoinPoint joinPoint) throws Throwable {
+        // 外层已经要求主库时不降级到副本
+        if (DataSourceRoute.current() == DataSourceRoute.PRIMARY) {
+            return joinPoint.proceed();
+        }
+        return proceedWith(DataSourceRoute.REPLICA, joinPoint);
+    }
+    
+    private static Object proceedWith(DataSourceRoute route, ProceedingJoinPoint joinPoint) throws Throwable {
+        DataSourceRoute previous = DataSourceRoute.set(route);
+        try {
+            return joinPoint.proceed();
+        } finally {
+            DataSourceRoute.restore(previous);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.oauth2.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 配置了 app.datasource.replicas 时启用读写分离
+ * 
+ * 应用使用的 DataSource 为 LazyConnectionDataSourceProxy → ReplicaRoutingDataSource → 主库/副本连接池。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.datasource.replicas[0]", name = "url")
+public class ReadReplicaConfig {
+    
+    @Bean
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+    
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(HikariDataSource primaryDataSource,
+                                                      ReplicaDataSourceProperties properties) {
+        List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            ReplicaDataSourceProperties.Replica config = properties.getReplicas().get(i);
+            String name = config.getName() != null ? config.getName() : "replica-" + i;
+            
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(config.getUrl())
+                .username(config.getUsername())
+                .password(config.getPassword())
+                .driverClassName(config.getDriverClassName())
+                .build();
+            dataSource.setPoolName(name);
+            dataSource.setMaximumPoolSize(config.getMaximumPoolSize());
+            dataSource.setReadOnly(true);
+            // 副本启动时不可用不应阻止应用启动，由健康检查负责标记
+            dataSource.setInitializationFailTimeout(-1);
+            replicas.add(new ReplicaRoutingDataSource.Replica(name, dataSource));
+        }
+        return new ReplicaRoutingDataSource(
+            primaryDataSource, replicas, properties.getHealthCheckInterval(), properties.getValidationTimeout()
+        );
+    }
+    
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+    
+    @Bean
+    public HealthIndicator replicasHealthIndicator(ReplicaRoutingDataSource routingDataSource) {
+        return () -> {
+            Health.Builder builder = Health.up();
+            for (ReplicaRoutingDataSource.Replica replica : routingDataSource.getReplicas()) {
+                builder.withDetail(replica.getName(), replica.isHealthy() ? "UP" : "DOWN: " + replica.getLastError());
+            }
+            // 副本全部不可用时读请求回退主库，服务仍可用，只在详情中标记降级
+            boolean anyHealthy = routingDataSource.getReplicas().stream().anyMatch(ReplicaRoutingDataSource.Replica::isHealthy);
+            return builder.withDetail("degraded", !anyHealthy).build();
+        };
+    }
+}
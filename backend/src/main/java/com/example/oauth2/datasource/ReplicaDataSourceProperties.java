@@ -0,0 +1,37 @@
+package com.example.oauth2.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 只读副本配置 app.datasource.*
+ * 
+ * 主库仍由 spring.datasource.* 配置；replicas 为空时不启用读写分离。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.datasource")
+public class ReplicaDataSourceProperties {
+    
+    private List<Replica> replicas = new ArrayList<>();
+    
+    /** 副本健康检查间隔，不健康的副本不参与路由 */
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+    
+    /** 健康检查中 Connection.isValid 的超时 */
+    private Duration validationTimeout = Duration.ofSeconds(1);
+    
+    @Data
+    public static class Replica {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private int maximumPoolSize = 10;
+    }
+}
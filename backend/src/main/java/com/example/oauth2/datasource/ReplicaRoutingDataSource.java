@@ -0,0 +1,175 @@
+package com.example.oauth2.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读写分离数据源
+ * 
+ * 显式路由（{@link UsePrimary} / {@link UseReplica}）优先，否则只读事务走副本、其余走主库。
+ * 副本之间轮询；后台定期检查副本健康，获取连接失败的副本也会立即标记为不健康，
+ * 没有健康副本时回退到主库。
+ * 
+ * 需要包装在 LazyConnectionDataSourceProxy 中使用：事务管理器在事务开始时就会获取连接，
+ * 而此时只读标记还没有设置，延迟到第一条语句执行时再取连接才能路由正确。
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements InitializingBean, DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    
+    public static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+        private volatile String lastError;
+        
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public boolean isHealthy() {
+            return healthy;
+        }
+        
+        public String getLastError() {
+            return lastError;
+        }
+    }
+    
+    @FunctionalInterface
+    private interface ConnectionSource {
+        Connection get(DataSource dataSource) throws SQLException;
+    }
+    
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Duration healthCheckInterval;
+    private final int validationTimeoutSeconds;
+    
+    private final AtomicInteger next = new AtomicInteger();
+    private final ScheduledExecutorService healthChecker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-health-check");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas,
+                                    Duration healthCheckInterval, Duration validationTimeout) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.healthCheckInterval = healthCheckInterval;
+        this.validationTimeoutSeconds = (int) Math.max(1, validationTimeout.toSeconds());
+    }
+    
+    @Override
+    public void afterPropertiesSet() {
+        long interval = healthCheckInterval.toMillis();
+        healthChecker.scheduleWithFixedDelay(this::checkReplicas, 0, interval, TimeUnit.MILLISECONDS);
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+    
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+    
+    private Connection route(ConnectionSource source) throws SQLException {
+        if (!shouldUseReplica()) {
+            return source.get(primary);
+        }
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            Replica replica = nextHealthyReplica();
+            if (replica == null) {
+                break;
+            }
+            try {
+                return source.get(replica.dataSource);
+            } catch (SQLException e) {
+                markDown(replica, e);
+            }
+        }
+        return source.get(primary);
+    }
+    
+    private static boolean shouldUseReplica() {
+        DataSourceRoute route = DataSourceRoute.current();
+        if (route != null) {
+            return route == DataSourceRoute.REPLICA;
+        }
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+    
+    private Replica nextHealthyReplica() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+    
+    private void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection()) {
+                if (!connection.isValid(validationTimeoutSeconds)) {
+                    throw new SQLException("Connection validation failed");
+                }
+                if (!replica.healthy) {
+                    logger.info("只读副本 {} 已恢复", replica.name);
+                }
+                replica.healthy = true;
+                replica.lastError = null;
+            } catch (Exception e) {
+                markDown(replica, e);
+            }
+        }
+    }
+    
+    private void markDown(Replica replica, Exception e) {
+        if (replica.healthy) {
+            logger.warn("只读副本 {} 不可用，读请求回退到其他副本或主库: {}", replica.name, e.getMessage());
+        }
+        replica.healthy = false;
+        replica.lastError = e.getMessage();
+    }
+    
+    @Override
+    public void destroy() throws Exception {
+        healthChecker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
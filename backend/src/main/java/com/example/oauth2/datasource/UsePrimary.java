@@ -0,0 +1,18 @@
+package com.example.oauth2.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 方法（或类中所有方法）内的数据库访问始终走主库，即使处在只读事务中
+ * 
+ * 用于需要读到自己刚写入数据的步骤。
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface UsePrimary {
+}
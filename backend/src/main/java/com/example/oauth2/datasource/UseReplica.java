@@ -0,0 +1,18 @@
+package com.example.oauth2.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 方法（或类中所有方法）内的数据库访问走只读副本，不需要声明只读事务
+ * 
+ * 没有可用副本时回退到主库。
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface UseReplica {
+}
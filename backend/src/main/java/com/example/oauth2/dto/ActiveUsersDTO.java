@@ -0,0 +1,17 @@
+package com.example.oauth2.dto;
+
+import lombok.Builder;
+import lombok.Data;
+import java.time.LocalDate;
+
+@Data
+@Builder
+public class ActiveUsersDTO {
+    private LocalDate date;
+    /** 当天去重登录用户数 */
+    private long dau;
+    /** 截至当天的30天去重登录用户数 */
+    private long mau;
+    /** 粘性 DAU/MAU */
+    private double stickiness;
+}
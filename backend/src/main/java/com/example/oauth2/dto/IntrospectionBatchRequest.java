@@ -0,0 +1,9 @@
+package com.example.oauth2.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class IntrospectionBatchRequest {
+    private List<String> tokens;
+}
@@ -0,0 +1,30 @@
+package com.example.oauth2.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * RFC 7662 风格的令牌自省结果，令牌无效时只返回 active=false
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class IntrospectionResponse {
+    
+    private static final IntrospectionResponse INACTIVE = IntrospectionResponse.builder().active(false).build();
+    
+    private boolean active;
+    private String sub;
+    private Long iat;
+    private Long exp;
+    private String platform;
+    /** 会话ID，令牌签发于会话登记开启之前时为空 */
+    private String sid;
+    private String name;
+    private String email;
+    
+    public static IntrospectionResponse inactive() {
+        return INACTIVE;
+    }
+}
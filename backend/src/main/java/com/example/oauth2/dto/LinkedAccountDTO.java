@@ -0,0 +1,21 @@
+package com.example.oauth2.dto;
+
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.model.ClientPlatform;
+import lombok.Builder;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class LinkedAccountDTO {
+    private Long id;
+    private Long userId;
+    private AuthProvider provider;
+    private ClientPlatform platform;
+    private String providerUserId;
+    private String email;
+    private String name;
+    private LocalDateTime createdAt;
+    private LocalDateTime lastLoginAt;
+}
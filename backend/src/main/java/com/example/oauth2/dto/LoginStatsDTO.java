@@ -0,0 +1,22 @@
+package com.example.oauth2.dto;
+
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.model.ClientPlatform;
+import lombok.Builder;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class LoginStatsDTO {
+    private LocalDateTime bucketStart;
+    private AuthProvider provider;
+    private ClientPlatform platform;
+    private long logins;
+    private long newUsers;
+    /** 老用户登录次数 = 登录次数 - 新用户数 */
+    private long returningLogins;
+    /** 去重登录用户数（HyperLogLog 估计值） */
+    private long uniqueUsers;
+    private double newUserRatio;
+}
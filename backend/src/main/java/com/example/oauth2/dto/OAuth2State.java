@@ -15,4 +15,13 @@ public class OAuth2State implements Serializable {
     private ClientPlatform platform;
     private String redirectUri;
     private String codeChallenge;
+    private String codeChallengeMethod;
+    /** 服务端生成PKCE时保存的 code_verifier；客户端自带 code_challenge 时为空 */
+    private String codeVerifier;
+    /** OpenID Connect nonce，用于校验 id_token */
+    private String nonce;
+    
+    public OAuth2State(AuthProvider provider, ClientPlatform platform, String redirectUri, String codeChallenge) {
+        this(provider, platform, redirectUri, codeChallenge, null, null, null);
+    }
 }
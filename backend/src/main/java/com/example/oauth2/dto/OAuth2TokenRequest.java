@@ -11,4 +11,8 @@ public class OAuth2TokenRequest {
     private String code;
     private String state;
     private String codeVerifier;
+    /** 微信小程序手机号快速验证组件返回的 code，可选 */
+    private String phoneCode;
+    /** 设备标识，可选；同一用户在同一设备上再次登录会替换原会话 */
+    private String deviceId;
 }
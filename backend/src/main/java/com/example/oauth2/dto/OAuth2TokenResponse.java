@@ -11,4 +11,16 @@ public class OAuth2TokenResponse {
     private String accessToken;
     private String refreshToken;
     private Integer expiresIn;
+    /** OpenID Connect 提供商在令牌响应中返回的 id_token，可能为空 */
+    private String idToken;
+    /** 小程序 code2session 直接返回用户标识，此时不再调用 getUserInfo */
+    private OAuth2UserInfo userInfo;
+    
+    public OAuth2TokenResponse(String accessToken, String refreshToken, Integer expiresIn) {
+        this(accessToken, refreshToken, expiresIn, null, null);
+    }
+    
+    public OAuth2TokenResponse(String accessToken, String refreshToken, Integer expiresIn, String idToken) {
+        this(accessToken, refreshToken, expiresIn, idToken, null);
+    }
 }
@@ -10,4 +10,7 @@ public class OAuth2UserInfo {
     private String email;
     private String name;
     private String imageUrl;
+    /** 微信/抖音同一开放平台主体下的统一ID，其他提供商为空 */
+    private String unionId;
+    private String phone;
 }
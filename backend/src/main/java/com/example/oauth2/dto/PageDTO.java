@@ -0,0 +1,15 @@
+package com.example.oauth2.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import java.util.List;
+
+/**
+ * 键集分页结果：nextCursor 作为下一页的 after 参数，为 null 表示没有更多数据
+ */
+@Data
+@AllArgsConstructor
+public class PageDTO<T> {
+    private List<T> items;
+    private Long nextCursor;
+}
@@ -0,0 +1,33 @@
+package com.example.oauth2.dto;
+
+import com.example.oauth2.model.ClientPlatform;
+import com.example.oauth2.session.SessionRegistry;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 一个已登记的会话，时间为秒级时间戳
+ */
+@Data
+@Builder
+public class SessionDTO {
+    private String sid;
+    private ClientPlatform platform;
+    /** 客户端上报的设备标识，按平台登记的会话为空 */
+    private String deviceId;
+    private long createdAt;
+    private long expiresAt;
+    /** 是否为发起本次请求的令牌所属的会话 */
+    private boolean current;
+    
+    public static SessionDTO of(SessionRegistry.Session session, long currentSessionId) {
+        return SessionDTO.builder()
+            .sid(session.sid())
+            .platform(session.platform())
+            .deviceId(session.deviceId())
+            .createdAt(session.createdAt() / 1000)
+            .expiresAt(session.expiresAt() / 1000)
+            .current(session.id() == currentSessionId)
+            .build();
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.oauth2.dto;
+
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.model.ClientPlatform;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+import java.time.LocalDateTime;
+
+/**
+ * 用户/绑定账号查询条件，字段为空表示不过滤
+ * 
+ * lastLoginFrom 包含，lastLoginTo 不包含。
+ */
+@Data
+public class UserQuery {
+    private AuthProvider provider;
+    private ClientPlatform platform;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime lastLoginFrom;
+    
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime lastLoginTo;
+}
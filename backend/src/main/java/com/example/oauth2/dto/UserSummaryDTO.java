@@ -0,0 +1,22 @@
+package com.example.oauth2.dto;
+
+import com.example.oauth2.model.AuthProvider;
+import lombok.Builder;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 用户列表/导出的投影，不加载 authAccounts 集合
+ */
+@Data
+@Builder
+public class UserSummaryDTO {
+    private Long id;
+    private String name;
+    private String email;
+    private AuthProvider primaryProvider;
+    /** 符合查询条件的绑定账号数 */
+    private int linkedAccounts;
+    /** 符合查询条件的绑定账号中最近一次登录时间 */
+    private LocalDateTime lastLoginAt;
+}
@@ -0,0 +1,20 @@
+package com.example.oauth2.dto.provider;
+
+import com.example.oauth2.dto.OAuth2UserInfo;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Apple id_token 载荷中用到的声明；Apple 不提供 userinfo 端点，也不在 id_token 中提供姓名
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record AppleIdTokenClaims(String sub, String email) {
+    
+    public OAuth2UserInfo toUserInfo() {
+        return OAuth2UserInfo.builder()
+            .id(sub)
+            .email(email)
+            .name("Apple User")
+            .imageUrl(null)
+            .build();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.oauth2.dto.provider;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 抖音小程序 v2 接口响应 {err_no, err_tips, data}，jscode2session 和 token 共用 data 结构
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record DouyinApiResponse(
+    @JsonProperty("err_no") Integer errNo,
+    @JsonProperty("err_tips") String errTips,
+    Data data
+) {
+    
+    public int errorCode() {
+        return errNo != null ? errNo : 0;
+    }
+    
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Data(
+        String openid,
+        String unionid,
+        @JsonProperty("access_token") String accessToken,
+        @JsonProperty("expires_in") Long expiresIn
+    ) {
+    }
+}
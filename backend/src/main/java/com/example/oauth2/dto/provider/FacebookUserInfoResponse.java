@@ -0,0 +1,20 @@
+package com.example.oauth2.dto.provider;
+
+import com.example.oauth2.dto.OAuth2UserInfo;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Facebook Graph /me 响应（fields=id,name,email）
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record FacebookUserInfoResponse(String id, String name, String email) {
+    
+    public OAuth2UserInfo toUserInfo() {
+        return OAuth2UserInfo.builder()
+            .id(id)
+            .email(email)
+            .name(name)
+            .imageUrl(null)  // 不使用头像
+            .build();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.oauth2.dto.provider;
+
+import com.example.oauth2.dto.OAuth2UserInfo;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Google OpenID Connect userinfo 响应，用户标识是 sub 而不是 id
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record GoogleUserInfoResponse(String sub, String email, String name, String picture) {
+    
+    public OAuth2UserInfo toUserInfo() {
+        return OAuth2UserInfo.builder()
+            .id(sub)
+            .email(email)
+            .name(name)
+            .imageUrl(picture)
+            .build();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.oauth2.dto.provider;
+
+import com.example.oauth2.dto.OAuth2TokenResponse;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * OAuth2 令牌端点响应（RFC 6749 5.1），Google、Facebook、Apple 共用
+ * 
+ * 直接从响应流绑定到字段，未列出的字段由解析器跳过；
+ * expires_in 声明为 Long，提供商返回整数、长整数或数字字符串都能解析。
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TokenEndpointResponse(
+    @JsonProperty("access_token") String accessToken,
+    @JsonProperty("refresh_token") String refreshToken,
+    @JsonProperty("expires_in") Long expiresIn,
+    @JsonProperty("id_token") String idToken
+) {
+    
+    public OAuth2TokenResponse toTokenResponse() {
+        Integer expiresInSeconds = expiresIn != null ? (int) Math.min(expiresIn, Integer.MAX_VALUE) : null;
+        return new OAuth2TokenResponse(accessToken, refreshToken, expiresInSeconds, idToken);
+    }
+}
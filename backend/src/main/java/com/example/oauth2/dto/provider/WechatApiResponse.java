@@ -0,0 +1,28 @@
+package com.example.oauth2.dto.provider;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 微信小程序接口响应，jscode2session、stable_token、getuserphonenumber 共用；
+ * 各接口只填写自己的字段，出错时只有 errcode/errmsg
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record WechatApiResponse(
+    Integer errcode,
+    String errmsg,
+    String openid,
+    String unionid,
+    @JsonProperty("access_token") String accessToken,
+    @JsonProperty("expires_in") Long expiresIn,
+    @JsonProperty("phone_info") PhoneInfo phoneInfo
+) {
+    
+    public int errorCode() {
+        return errcode != null ? errcode : 0;
+    }
+    
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record PhoneInfo(String phoneNumber) {
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.oauth2.lifecycle;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 统计在途的回调/令牌请求，排空期间拒绝新的授权请求
+ * 
+ * 排在限流和并发限制之前：排空时授权请求直接返回503并关闭连接，负载均衡器会把重试发到其他实例；
+ * 回调不拒绝，它对应的 state 只在本次请求里有效。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 5)
+public class DrainFilter extends OncePerRequestFilter {
+    
+    private static final String AUTHORIZE_PATH = "/auth/oauth2/authorize";
+    
+    private static final List<String> TRACKED_PATHS = List.of(
+        "/auth/oauth2/callback/",
+        "/auth/oauth2/token",
+        "/oauth/callback/"
+    );
+    
+    @Autowired
+    private DrainManager drainManager;
+    
+    @Autowired
+    private LifecycleProperties properties;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !uri.startsWith("/auth/oauth2/") && !uri.startsWith("/oauth/callback/");
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String uri = request.getRequestURI();
+        
+        if (uri.startsWith(AUTHORIZE_PATH) && drainManager.isDraining()) {
+            reject(response);
+            return;
+        }
+        
+        if (!isTracked(uri)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        
+        drainManager.enter();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            drainManager.exit();
+        }
+    }
+    
+    private static boolean isTracked(String uri) {
+        for (String path : TRACKED_PATHS) {
+            if (uri.startsWith(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, properties.getRetryAfter().toSeconds())));
+        response.setHeader(HttpHeaders.CONNECTION, "close");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"draining\"}");
+    }
+}
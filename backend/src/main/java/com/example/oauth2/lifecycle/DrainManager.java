@@ -0,0 +1,105 @@
+package com.example.oauth2.lifecycle;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 停机排空：先拒绝新的授权请求，再等待在途回调/令牌请求完成
+ * 
+ * 回调进来时 state 已从 Redis 取出删除，中途被切断的登录无法重试，用户只能重新授权。
+ * 阶段为 DEFAULT_PHASE，在 Web 服务器的优雅停机阶段之前执行：这里等待期间连接器仍在工作，
+ * 在途请求可以正常写回响应。超过 drain-timeout 后不再等待，交给服务器的优雅停机继续处理。
+ */
+@Component
+public class DrainManager implements SmartLifecycle {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DrainManager.class);
+    
+    @Autowired
+    private LifecycleProperties properties;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Object drainLock = new Object();
+    
+    private volatile boolean draining;
+    private volatile boolean running;
+    
+    public boolean isDraining() {
+        return draining;
+    }
+    
+    public int getInFlight() {
+        return inFlight.get();
+    }
+    
+    /**
+     * 回调/令牌请求开始处理，必须与 {@link #exit()} 成对调用
+     */
+    public void enter() {
+        inFlight.incrementAndGet();
+    }
+    
+    public void exit() {
+        if (inFlight.decrementAndGet() == 0 && draining) {
+            synchronized (drainLock) {
+                drainLock.notifyAll();
+            }
+        }
+    }
+    
+    @Override
+    public void start() {
+        draining = false;
+        running = true;
+    }
+    
+    @Override
+    public void stop() {
+        draining = true;
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+        
+        long timeoutMillis = properties.getDrainTimeout().toMillis();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        logger.info("开始排空，停止接受授权请求，在途回调/令牌请求: {}", inFlight.get());
+        
+        synchronized (drainLock) {
+            long remaining;
+            while (inFlight.get() > 0 && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                try {
+                    drainLock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        
+        int left = inFlight.get();
+        if (left > 0) {
+            logger.warn("排空超时（{}ms），仍有 {} 个在途请求", timeoutMillis, left);
+        } else {
+            logger.info("排空完成");
+        }
+        running = false;
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    @Override
+    public int getPhase() {
+        return DEFAULT_PHASE;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.oauth2.lifecycle;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+
+/**
+ * 停机排空和启动预热配置
+ * 
+ * app.lifecycle.*，排空期限应小于 spring.lifecycle.timeout-per-shutdown-phase。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.lifecycle")
+public class LifecycleProperties {
+    
+    /** 停机时等待在途回调/令牌请求完成的最长时间 */
+    private Duration drainTimeout = Duration.ofSeconds(20);
+    
+    /** 排空期间拒绝授权请求时 Retry-After 的秒数 */
+    private Duration retryAfter = Duration.ofSeconds(1);
+    
+    private Warmup warmup = new Warmup();
+    
+    @Data
+    public static class Warmup {
+        
+        private boolean enabled = true;
+        
+        /** 签发/校验令牌、序列化 state 等热点路径的循环次数 */
+        private int iterations = 2000;
+        
+        /** 预热总期限，超时后剩余步骤跳过，不阻塞就绪 */
+        private Duration timeout = Duration.ofSeconds(15);
+        
+        /** 预先建立的数据库连接数 */
+        private int dbConnections = 5;
+        
+        /** 是否预先建立到提供商令牌/用户信息地址的 TLS 连接 */
+        private boolean preconnect = true;
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.oauth2.lifecycle;
+
+import com.example.oauth2.dto.OAuth2State;
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.model.ClientPlatform;
+import com.example.oauth2.model.User;
+import com.example.oauth2.registry.ProviderDescriptor;
+import com.example.oauth2.registry.ProviderRegistry;
+import com.example.oauth2.security.TokenProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动预热：在就绪探针变绿之前跑一遍登录链路的热点代码，并预先建立连接
+ * 
+ * ApplicationRunner 全部执行完后 Spring Boot 才发布 ReadinessState.ACCEPTING_TRAFFIC，
+ * 新实例接到的第一批登录不再承担 JIT 编译、TLS 握手和连接池扩容的开销。
+ * 每一步失败只记录日志，预热不会阻止实例就绪；超过 timeout 后剩余步骤跳过。
+ */
+@Component
+public class WarmupRunner implements ApplicationRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(WarmupRunner.class);
+    
+    @Autowired
+    private LifecycleProperties properties;
+    
+    @Autowired
+    private TokenProvider tokenProvider;
+    
+    @Autowired
+    private RedisTemplate<String, OAuth2State> redisTemplate;
+    
+    @Autowired
+    private ProviderRegistry providerRegistry;
+    
+    @Autowired
+    private HttpClient oauth2HttpClient;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    /** 保存循环结果，避免被 JIT 当作死代码消除 */
+    private volatile long sink;
+    
+    private long deadline;
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        LifecycleProperties.Warmup warmup = properties.getWarmup();
+        if (!warmup.isEnabled()) {
+            return;
+        }
+        
+        long start = System.nanoTime();
+        deadline = start + warmup.getTimeout().toNanos();
+        
+        // 连接类步骤放在前面，提供商预连接异步进行，与其余步骤重叠
+        List<CompletableFuture<Boolean>> preconnects = warmup.isPreconnect() ? preconnectProviders() : List.of();
+        step("数据库连接池", this::warmDataSource);
+        step("Redis", () -> redisTemplate.execute((RedisCallback<String>) RedisConnection::ping));
+        step("JWT签发/校验", this::warmTokens);
+        step("state序列化", this::warmStateSerialization);
+        step("授权URL构建", this::warmAuthorizationUrls);
+        awaitPreconnects(preconnects);
+        
+        logger.info("启动预热完成，耗时 {}ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+    
+    private void step(String name, Runnable action) {
+        if (System.nanoTime() >= deadline) {
+            logger.warn("预热超时，跳过: {}", name);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            action.run();
+            logger.debug("预热 {} 完成，耗时 {}ms", name, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (Exception e) {
+            logger.warn("预热 {} 失败: {}", name, e.getMessage());
+        }
+    }
+    
+    private boolean hasTime() {
+        return System.nanoTime() < deadline;
+    }
+    
+    /**
+     * 同时持有 N 个连接，连接池扩容到 N 后再一起归还
+     */
+    private void warmDataSource() {
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < properties.getWarmup().getDbConnections(); i++) {
+                Connection connection = dataSource.getConnection();
+                connections.add(connection);
+                connection.isValid(1);
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e.getMessage(), e);
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (Exception ignored) {
+                    // 归还失败不影响预热
+                }
+            }
+        }
+    }
+    
+    /**
+     * 每个平台的令牌配置（算法、声明、短键名）不同，分别跑签发和校验
+     */
+    private void warmTokens() {
+        User user = new User();
+        user.setId(0L);
+        user.setName("warmup");
+        user.setEmail("warmup@localhost");
+        
+        ClientPlatform[] platforms = ClientPlatform.values();
+        long acc = 0;
+        for (int i = 0; i < properties.getWarmup().getIterations() && hasTime(); i++) {
+            ClientPlatform platform = platforms[i % platforms.length];
+            String token = tokenProvider.createToken(user, platform);
+            acc += tokenProvider.parseClaims(token).getSubject().length();
+            acc += tokenProvider.validateToken(token) ? 1 : 0;
+        }
+        sink = acc;
+    }
+    
+    /**
+     * 只走 RedisTemplate 的值序列化器，不访问 Redis
+     */
+    @SuppressWarnings("unchecked")
+    private void warmStateSerialization() {
+        RedisSerializer<Object> serializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+        OAuth2State state = new OAuth2State(AuthProvider.GOOGLE, ClientPlatform.WEB, "http://localhost/callback",
+            "warmup-challenge", "S256", "warmup-verifier", "warmup-nonce");
+        
+        long acc = 0;
+        for (int i = 0; i < properties.getWarmup().getIterations() && hasTime(); i++) {
+            byte[] bytes = serializer.serialize(state);
+            Object restored = serializer.deserialize(bytes);
+            acc += bytes.length + (restored != null ? 1 : 0);
+        }
+        sink = acc;
+    }
+    
+    private void warmAuthorizationUrls() {
+        long acc = 0;
+        for (int i = 0; i < properties.getWarmup().getIterations() && hasTime(); i++) {
+            for (ProviderRegistry.Entry entry : providerRegistry.snapshot().entries().values()) {
+                if (entry.authorizationUrlTemplate() == null) {
+                    continue;
+                }
+                acc += entry.authorizationUrlTemplate().newUrl()
+                    .param("redirect_uri", "http://localhost/callback")
+                    .param("state", "warmup-state")
+                    .param("nonce", "warmup-nonce")
+                    .build()
+                    .length();
+            }
+        }
+        sink = acc;
+    }
+    
+    /**
+     * 对已配置凭证的提供商的服务端地址（令牌、用户信息、code2session 等）各发一次 HEAD，
+     * 建立的连接留在共享 HttpClient 的连接池里；任何状态码都说明连接已建立
+     */
+    private List<CompletableFuture<Boolean>> preconnectProviders() {
+        Set<String> origins = new LinkedHashSet<>();
+        for (ProviderRegistry.Entry entry : providerRegistry.snapshot().entries().values()) {
+            ProviderDescriptor descriptor = entry.descriptor();
+            if (!descriptor.enabled() || descriptor.clientId() == null || descriptor.clientId().isBlank()) {
+                continue;
+            }
+            addOrigin(origins, descriptor.tokenUri());
+            addOrigin(origins, descriptor.userInfoUri());
+            for (Map.Entry<String, String> extra : descriptor.extra().entrySet()) {
+                if (extra.getKey().endsWith("Uri")) {
+                    addOrigin(origins, extra.getValue());
+                }
+            }
+        }
+        
+        Duration timeout = Duration.ofNanos(Math.max(1, deadline - System.nanoTime()));
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (String origin : origins) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(origin))
+                .method("HEAD", HttpRequest.BodyPublishers.noBody())
+                .timeout(timeout)
+                .build();
+            futures.add(oauth2HttpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, e) -> {
+                    if (e != null) {
+                        logger.warn("预连接 {} 失败: {}", origin, e.getMessage());
+                        return false;
+                    }
+                    return true;
+                }));
+        }
+        return futures;
+    }
+    
+    private static void addOrigin(Set<String> origins, String uri) {
+        if (uri == null || uri.isBlank()) {
+            return;
+        }
+        try {
+            URI parsed = URI.create(uri);
+            if (parsed.getScheme() != null && parsed.getRawAuthority() != null) {
+                origins.add(parsed.getScheme() + "://" + parsed.getRawAuthority() + "/");
+            }
+        } catch (IllegalArgumentException e) {
+            logger.debug("忽略无效的提供商地址: {}", uri);
+        }
+    }
+    
+    private void awaitPreconnects(List<CompletableFuture<Boolean>> futures) {
+        if (futures.isEmpty()) {
+            return;
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .get(Math.max(1, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            logger.warn("提供商预连接未在预热期限内完成");
+        }
+        long connected = futures.stream().filter(f -> f.isDone() && f.join()).count();
+        logger.info("已预连接 {}/{} 个提供商地址", connected, futures.size());
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.oauth2.model;
+
+import com.example.oauth2.analytics.HyperLogLog;
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 登录统计汇总，按小时和按天各一行
+ * 
+ * unique_users 保存该时段内登录用户的 HyperLogLog 草图，多行合并即可得到任意时段的去重用户数。
+ */
+@Entity
+@Table(name = "login_rollup", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"rollup_period", "bucket_start", "provider", "platform"})
+}, indexes = {
+    @Index(name = "idx_login_rollup_bucket", columnList = "rollup_period, bucket_start")
+})
+@Data
+public class LoginRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "rollup_period")
+    private RollupPeriod period;
+    
+    @Column(name = "bucket_start")
+    private LocalDateTime bucketStart;
+    
+    @Enumerated(EnumType.STRING)
+    private AuthProvider provider;
+    
+    @Enumerated(EnumType.STRING)
+    private ClientPlatform platform;
+    
+    private long logins;
+    private long newUsers;
+    
+    @Column(name = "unique_users", length = HyperLogLog.SIZE_BYTES)
+    private byte[] uniqueUsers;
+    
+    /** 多个节点同时刷写同一行时以乐观锁冲突失败，增量留到下次刷写 */
+    @Version
+    private Long version;
+}
@@ -0,0 +1,35 @@
+package com.example.oauth2.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * 事务性发件箱
+ * 
+ * 与用户数据在同一事务中写入，由 OutboxRelay 批量发布到下游后删除。
+ * id 单调递增，同时作为下游去重的事件ID。
+ */
+@Entity
+@Table(name = "outbox_event")
+@Data
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    private String eventType;
+    
+    /** 事件所属用户ID，下游可按此分区保证单用户内有序 */
+    private Long aggregateId;
+    
+    @Column(length = 4000)
+    private String payload;
+    
+    private LocalDateTime createdAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.oauth2.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum RollupPeriod {
+    HOUR,
+    DAY;
+    
+    public LocalDateTime truncate(LocalDateTime time) {
+        return this == HOUR ? time.truncatedTo(ChronoUnit.HOURS) : time.truncatedTo(ChronoUnit.DAYS);
+    }
+}
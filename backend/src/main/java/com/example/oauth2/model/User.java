@@ -1,5 +1,6 @@
 package com.example.oauth2.model;
 
+import com.example.oauth2.service.UserProjectionEvictionListener;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.util.ArrayList;
@@ -7,6 +8,7 @@ import java.util.List;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserProjectionEvictionListener.class)
 @Data
 public class User {
     @Id
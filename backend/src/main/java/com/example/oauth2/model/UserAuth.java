@@ -7,6 +7,10 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "user_auth", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"provider", "provider_user_id"})
+}, indexes = {
+    // 管理查询按 user_id 聚合、按 last_login_at 过滤
+    @Index(name = "idx_user_auth_user", columnList = "user_id"),
+    @Index(name = "idx_user_auth_last_login", columnList = "last_login_at")
 })
 @Data
 public class UserAuth {
@@ -30,6 +34,7 @@ public class UserAuth {
     private String unionId;
     private String email;
     private String name;
+    @Column(length = 500)
     private String imageUrl;
     
     private LocalDateTime createdAt;
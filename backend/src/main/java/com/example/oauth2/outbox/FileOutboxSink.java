@@ -0,0 +1,77 @@
+package com.example.oauth2.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.RawValue;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 以 NDJSON 追加写入本地文件，每批写完后 fsync，供日志采集器转发
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.outbox", name = "sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+    
+    @Autowired
+    private OutboxProperties properties;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private FileChannel channel;
+    
+    @PostConstruct
+    public void open() throws IOException {
+        Path path = Paths.get(properties.getFile().getPath());
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+    
+    @Override
+    public String getName() {
+        return "file";
+    }
+    
+    @Override
+    public synchronized void publish(List<OutboxMessage> batch) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(batch.size() * 256);
+        for (OutboxMessage message : batch) {
+            ObjectNode line = objectMapper.createObjectNode()
+                .put("id", message.id())
+                .put("type", message.type())
+                .put("aggregateId", message.aggregateId())
+                .put("createdAt", message.createdAt().toString());
+            line.putRawValue("payload", new RawValue(message.payload()));
+            buffer.write(objectMapper.writeValueAsBytes(line));
+            buffer.write('\n');
+        }
+        
+        ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        channel.force(false);
+    }
+    
+    @PreDestroy
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
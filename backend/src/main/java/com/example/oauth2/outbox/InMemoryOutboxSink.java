@@ -0,0 +1,56 @@
+package com.example.oauth2.outbox;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 内存下游，用于本地开发和测试
+ * 
+ * 队列有界，剩余容量不足以放下整批时拒绝，由中继退避，模拟下游背压。
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.outbox", name = "sink", havingValue = "memory")
+public class InMemoryOutboxSink implements OutboxSink {
+    
+    @Autowired
+    private OutboxProperties properties;
+    
+    private BlockingQueue<OutboxMessage> queue;
+    
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(properties.getMemory().getCapacity());
+    }
+    
+    @Override
+    public String getName() {
+        return "memory";
+    }
+    
+    @Override
+    public synchronized void publish(List<OutboxMessage> batch) {
+        if (queue.remainingCapacity() < batch.size()) {
+            throw new IllegalStateException("In-memory outbox sink is full");
+        }
+        queue.addAll(batch);
+    }
+    
+    /**
+     * 取出当前所有事件
+     */
+    public List<OutboxMessage> drain() {
+        List<OutboxMessage> messages = new ArrayList<>();
+        queue.drainTo(messages);
+        return messages;
+    }
+    
+    public int size() {
+        return queue.size();
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.oauth2.outbox;
+
+public enum OutboxEventType {
+    /** 每次成功登录 */
+    USER_LOGIN,
+    /** 首次登录创建了新用户 */
+    USER_CREATED,
+    /** 新的第三方账号绑定到用户（包括按邮箱合并到已有用户） */
+    ACCOUNT_LINKED
+}
@@ -0,0 +1,9 @@
+package com.example.oauth2.outbox;
+
+import java.time.LocalDateTime;
+
+/**
+ * 发往下游的一条事件，payload 为 JSON 字符串
+ */
+public record OutboxMessage(long id, String type, Long aggregateId, String payload, LocalDateTime createdAt) {
+}
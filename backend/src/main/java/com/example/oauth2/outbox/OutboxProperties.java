@@ -0,0 +1,52 @@
+package com.example.oauth2.outbox;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+
+/**
+ * app.outbox.*
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.outbox")
+public class OutboxProperties {
+    
+    /** 下游类型：redis、file、memory */
+    private String sink = "redis";
+    
+    /** 每批最多发布的事件数 */
+    private int batchSize = 200;
+    
+    /** 一次调度最多连续发布的批数，积压时不必等待下一个轮询周期 */
+    private int maxBatchesPerRun = 20;
+    
+    /** 下游失败后的最大退避时间 */
+    private Duration maxBackoff = Duration.ofSeconds(30);
+    
+    /** 多节点部署时只有持有 Redis 租约的节点发布，避免重复和乱序 */
+    private boolean leaderLock = true;
+    private Duration leaderLease = Duration.ofSeconds(15);
+    
+    private File file = new File();
+    private Redis redis = new Redis();
+    private Memory memory = new Memory();
+    
+    @Data
+    public static class File {
+        private String path = "data/outbox/login-events.ndjson";
+    }
+    
+    @Data
+    public static class Redis {
+        private String stream = "oauth2:login-events";
+        /** 流的近似最大长度，超出后裁剪最旧的事件 */
+        private long maxLength = 1_000_000;
+    }
+    
+    @Data
+    public static class Memory {
+        private int capacity = 10_000;
+    }
+}
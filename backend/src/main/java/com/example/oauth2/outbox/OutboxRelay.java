@@ -0,0 +1,181 @@
+package com.example.oauth2.outbox;
+
+import com.example.oauth2.model.OutboxEvent;
+import com.example.oauth2.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 发件箱中继：按 id 顺序批量读取事件，发布到下游成功后删除
+ * 
+ * 先发布后删除，进程在两者之间崩溃时事件会被再次发布（至少一次）。
+ * 下游失败或拒绝（背压）时按指数退避暂停，期间事件留在表中，业务写入不受影响。
+ * 开启 leader-lock 时每批之前确认并续期租约，租约丢失（例如长时间 GC 后被其他节点接管）立即停止本轮发布。
+ * 积压量和最旧事件的滞后时间通过 oauth2.outbox.* 指标暴露。
+ */
+@Component
+public class OutboxRelay {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+    
+    private static final String LEADER_KEY = "oauth2:outbox:relay-leader";
+    
+    /**
+     * 值仍为本节点时续期，返回 1；否则返回 0。读取和续期是原子的，不会给其他节点刚获取的租约续期
+     * KEYS[1] 租约；ARGV: 节点ID、租期（毫秒）
+     */
+    private static final DefaultRedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>("""
+        if redis.call('get', KEYS[1]) == ARGV[1] then
+          return redis.call('pexpire', KEYS[1], ARGV[2])
+        end
+        return 0
+        """, Long.class);
+    
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+    
+    @Autowired
+    private OutboxSink sink;
+    
+    @Autowired
+    private OutboxProperties properties;
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private final String nodeId = UUID.randomUUID().toString();
+    
+    private final AtomicLong backlog = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+    
+    private Counter publishedCounter;
+    private Counter failedBatchCounter;
+    private Timer publishTimer;
+    
+    private long consecutiveFailures;
+    private long pausedUntil;
+    
+    @PostConstruct
+    public void init() {
+        String sinkName = sink.getName();
+        Gauge.builder("oauth2.outbox.backlog", backlog, AtomicLong::get)
+            .description("未发布的事件数")
+            .register(meterRegistry);
+        Gauge.builder("oauth2.outbox.lag", lagMillis, AtomicLong::get)
+            .description("最旧未发布事件的滞后时间（毫秒）")
+            .register(meterRegistry);
+        publishedCounter = Counter.builder("oauth2.outbox.published")
+            .tag("sink", sinkName)
+            .register(meterRegistry);
+        failedBatchCounter = Counter.builder("oauth2.outbox.failed.batches")
+            .tag("sink", sinkName)
+            .register(meterRegistry);
+        publishTimer = Timer.builder("oauth2.outbox.publish")
+            .tag("sink", sinkName)
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+    }
+    
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:500}")
+    public void relay() {
+        if (System.currentTimeMillis() < pausedUntil || !isLeader()) {
+            return;
+        }
+        
+        try {
+            for (int i = 0; i < properties.getMaxBatchesPerRun(); i++) {
+                if (i > 0 && !isLeader()) {
+                    break;
+                }
+                if (publishBatch() < properties.getBatchSize()) {
+                    break;
+                }
+            }
+            consecutiveFailures = 0;
+        } catch (Exception e) {
+            failedBatchCounter.increment();
+            consecutiveFailures++;
+            long backoff = Math.min(
+                properties.getMaxBackoff().toMillis(),
+                500L << Math.min(consecutiveFailures - 1, 16)
+            );
+            pausedUntil = System.currentTimeMillis() + backoff;
+            logger.warn("发件箱发布到 {} 失败，{}ms 后重试: {}", sink.getName(), backoff, e.getMessage());
+        } finally {
+            updateLagMetrics();
+        }
+    }
+    
+    /**
+     * @return 本批发布的事件数
+     */
+    private int publishBatch() throws Exception {
+        List<OutboxEvent> events = outboxEventRepository.findAllByOrderByIdAsc(PageRequest.of(0, properties.getBatchSize()));
+        if (events.isEmpty()) {
+            return 0;
+        }
+        
+        List<OutboxMessage> batch = events.stream()
+            .map(e -> new OutboxMessage(e.getId(), e.getEventType(), e.getAggregateId(), e.getPayload(), e.getCreatedAt()))
+            .toList();
+        
+        long start = System.nanoTime();
+        sink.publish(batch);
+        publishTimer.record(Duration.ofNanos(System.nanoTime() - start));
+        
+        outboxEventRepository.deleteAllByIdInBatch(batch.stream().map(OutboxMessage::id).toList());
+        publishedCounter.increment(batch.size());
+        return batch.size();
+    }
+    
+    private void updateLagMetrics() {
+        try {
+            backlog.set(outboxEventRepository.count());
+            lagMillis.set(outboxEventRepository.findFirstByOrderByIdAsc()
+                .map(oldest -> Duration.between(oldest.getCreatedAt(), LocalDateTime.now()).toMillis())
+                .orElse(0L));
+        } catch (Exception e) {
+            logger.debug("发件箱指标更新失败: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * 租约存在且属于本节点时续期；不存在时尝试获取。Redis 不可用时不发布，事件留在表中
+     */
+    private boolean isLeader() {
+        if (!properties.isLeaderLock()) {
+            return true;
+        }
+        try {
+            Duration lease = properties.getLeaderLease();
+            Boolean acquired = redisTemplate.opsForValue().setIfAbsent(LEADER_KEY, nodeId, lease);
+            if (Boolean.TRUE.equals(acquired)) {
+                return true;
+            }
+            Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(LEADER_KEY), nodeId, String.valueOf(lease.toMillis()));
+            return renewed != null && renewed == 1;
+        } catch (Exception e) {
+            logger.debug("发件箱租约检查失败: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.oauth2.outbox;
+
+import java.util.List;
+
+/**
+ * 发件箱事件的下游
+ * 
+ * publish 返回即表示整批已经持久地交付；抛出异常时整批会在稍后重新发布，
+ * 因此下游可能收到重复事件（至少一次），需要按事件ID去重。
+ * 下游处理不过来时也应抛出异常，中继会退避后再试。
+ */
+public interface OutboxSink {
+    
+    String getName();
+    
+    void publish(List<OutboxMessage> batch) throws Exception;
+}
@@ -0,0 +1,51 @@
+package com.example.oauth2.pipeline;
+
+import com.example.oauth2.dto.OAuth2State;
+import com.example.oauth2.dto.OAuth2TokenResponse;
+import com.example.oauth2.dto.OAuth2UserInfo;
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.model.ClientPlatform;
+import com.example.oauth2.model.User;
+import com.example.oauth2.service.OAuth2Service;
+import lombok.Data;
+import java.util.Map;
+
+/**
+ * 一次回调处理在各阶段之间共享的数据
+ * 
+ * 输入字段由控制器填写，其余字段由对应阶段写入。
+ */
+@Data
+public class CallbackContext {
+    
+    // 输入
+    private final AuthProvider provider;
+    private final String code;
+    private final String state;
+    /** 为空时使用 state 中保存的平台 */
+    private ClientPlatform requestedPlatform;
+    /** App 端 /token 请求携带的 code_verifier */
+    private String codeVerifier;
+    /** 为 true 时，授权请求带了 code_challenge 就必须提供 code_verifier */
+    private boolean codeVerifierRequired;
+    /** 微信小程序获取手机号的 code，可选 */
+    private String phoneCode;
+    /** App/小程序上报的设备标识，可选；会话按设备登记，没有时按平台 */
+    private String deviceId;
+    
+    // 阶段输出
+    private OAuth2State stateData;
+    private OAuth2Service service;
+    /** 令牌交换时发给提供商的 code_verifier，没有则为空 */
+    private String exchangeCodeVerifier;
+    private OAuth2TokenResponse tokenResponse;
+    private Map<String, Object> idTokenClaims;
+    private OAuth2UserInfo userInfo;
+    private String phoneNumber;
+    private User user;
+    private String jwt;
+    
+    public ClientPlatform getPlatform() {
+        return requestedPlatform != null ? requestedPlatform : stateData.getPlatform();
+    }
+}
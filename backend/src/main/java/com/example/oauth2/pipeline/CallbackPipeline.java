@@ -0,0 +1,192 @@
+package com.example.oauth2.pipeline;
+
+import com.example.oauth2.dto.OAuth2State;
+import com.example.oauth2.dto.OAuth2UserInfo;
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.security.OAuth2ParameterGenerator;
+import com.example.oauth2.security.TokenProvider;
+import com.example.oauth2.service.IdentityResolver;
+import com.example.oauth2.service.OAuth2ServiceFactory;
+import com.example.oauth2.service.OAuth2StateStore;
+import com.example.oauth2.session.SessionRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * OAuth2 回调处理流程
+ * 
+ * 标准阶段及依赖：
+ * <pre>
+ *   state ── token ── userInfo ── user ── jwt
+ * </pre>
+ * state 以 GETDEL 原子地取出并删除（单次使用）。
+ * 提供商可以通过 {@link CallbackStageContributor} 追加阶段，例如在获取 userinfo 的同时校验 id_token。
+ */
+@Component
+public class CallbackPipeline {
+    
+    private static final Logger logger = LoggerFactory.getLogger(CallbackPipeline.class);
+    
+    public static final String STATE = "state";
+    public static final String TOKEN = "token";
+    public static final String USER_INFO = "userInfo";
+    public static final String USER = "user";
+    public static final String JWT = "jwt";
+    
+    @Autowired
+    private OAuth2ServiceFactory oauth2ServiceFactory;
+    
+    @Autowired
+    private TokenProvider tokenProvider;
+    
+    @Autowired
+    private OAuth2StateStore stateStore;
+    
+    @Autowired
+    private OAuth2ParameterGenerator parameterGenerator;
+    
+    @Autowired
+    private IdentityResolver identityResolver;
+    
+    @Autowired
+    private SessionRegistry sessionRegistry;
+    
+    @Autowired(required = false)
+    private List<CallbackStageContributor> contributors = new ArrayList<>();
+    
+    private final Map<AuthProvider, StageGraph<CallbackContext>> graphs = new EnumMap<>(AuthProvider.class);
+    
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    
+    @PostConstruct
+    public void init() {
+        for (AuthProvider provider : AuthProvider.values()) {
+            StageGraph.Builder<CallbackContext> builder = standardStages();
+            for (CallbackStageContributor contributor : contributors) {
+                if (contributor.getProvider() == provider) {
+                    contributor.contribute(builder);
+                }
+            }
+            graphs.put(provider, builder.build());
+        }
+    }
+    
+    /**
+     * 执行回调流程，成功时 context 中包含用户和JWT
+     */
+    public CallbackContext run(CallbackContext context) {
+        try {
+            graphs.get(context.getProvider()).execute(context, executor).join();
+            return context;
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+    
+    private StageGraph.Builder<CallbackContext> standardStages() {
+        return StageGraph.<CallbackContext>builder()
+            .stage(STATE, this::loadState)
+            .stage(TOKEN, this::exchangeToken, STATE)
+            .stage(USER_INFO, this::fetchUserInfo, TOKEN)
+            .stage(USER, this::findOrCreateUser, USER_INFO)
+            .stage(JWT, this::createToken, USER);
+    }
+    
+    private void loadState(CallbackContext context) {
+        OAuth2State stateData = stateStore.consume(context.getState());
+        if (stateData == null) {
+            logger.error("State验证失败: 未找到对应的state数据");
+            throw new InvalidStateException("State not found or expired");
+        }
+        if (stateData.getProvider() != context.getProvider()) {
+            logger.error("State验证失败: 提供商不匹配, state: {}, 回调: {}", stateData.getProvider(), context.getProvider());
+            throw new InvalidStateException("State provider mismatch");
+        }
+        
+        context.setStateData(stateData);
+        context.setExchangeCodeVerifier(resolveCodeVerifier(context, stateData));
+        context.setService(oauth2ServiceFactory.getService(stateData.getProvider(), context.getPlatform()));
+        logger.info("State验证成功, Provider: {}, Platform: {}", stateData.getProvider(), context.getPlatform());
+    }
+    
+    /**
+     * 确定令牌交换使用的 code_verifier
+     * 
+     * 服务端生成的 PKCE 直接使用保存的 verifier；客户端自带的 PKCE 先在本地校验，
+     * 不匹配时不再请求提供商。
+     */
+    private String resolveCodeVerifier(CallbackContext context, OAuth2State stateData) {
+        if (stateData.getCodeVerifier() != null) {
+            return stateData.getCodeVerifier();
+        }
+        if (stateData.getCodeChallenge() == null) {
+            return null;
+        }
+        
+        String codeVerifier = context.getCodeVerifier();
+        if (codeVerifier == null) {
+            if (context.isCodeVerifierRequired()) {
+                logger.error("PKCE验证失败: 缺少code_verifier");
+                throw new InvalidStateException("PKCE code_verifier missing");
+            }
+            return null;
+        }
+        if (!parameterGenerator.verifyPkce(codeVerifier, stateData.getCodeChallenge(), stateData.getCodeChallengeMethod())) {
+            logger.error("PKCE验证失败: code_verifier不匹配");
+            throw new InvalidStateException("PKCE verification failed");
+        }
+        return codeVerifier;
+    }
+    
+    private void exchangeToken(CallbackContext context) {
+        context.setTokenResponse(context.getService().exchangeToken(
+            context.getCode(),
+            context.getStateData().getRedirectUri(),
+            context.getExchangeCodeVerifier()
+        ));
+        logger.info("访问令牌交换成功");
+    }
+    
+    private void fetchUserInfo(CallbackContext context) {
+        OAuth2UserInfo prefetched = context.getTokenResponse().getUserInfo();
+        context.setUserInfo(prefetched != null
+            ? prefetched
+            : context.getService().getUserInfo(context.getTokenResponse().getAccessToken()));
+        logger.info("用户信息获取成功, ID: {}", context.getUserInfo().getId());
+    }
+    
+    private void findOrCreateUser(CallbackContext context) {
+        context.setUser(identityResolver.resolve(
+            context.getUserInfo(),
+            context.getProvider(),
+            context.getPlatform()
+        ));
+        logger.info("用户创建/查找成功, UserID: {}", context.getUser().getId());
+    }
+    
+    private void createToken(CallbackContext context) {
+        long sessionId = sessionRegistry.register(context.getUser().getId(), context.getPlatform(), context.getDeviceId());
+        context.setJwt(tokenProvider.createToken(context.getUser(), context.getPlatform(), sessionId));
+        logger.info("JWT令牌生成成功");
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.oauth2.pipeline;
+
+import com.example.oauth2.model.AuthProvider;
+
+/**
+ * 提供商向回调流程追加阶段的扩展点
+ * 
+ * 标准阶段见 {@link CallbackPipeline}，实现类可以追加与已有阶段并行的步骤，
+ * 并通过 {@link StageGraph.Builder#dependsOn} 让后续阶段等待它完成。
+ */
+public interface CallbackStageContributor {
+    
+    AuthProvider getProvider();
+    
+    void contribute(StageGraph.Builder<CallbackContext> stages);
+}
@@ -0,0 +1,11 @@
+package com.example.oauth2.pipeline;
+
+/**
+ * state 不存在、已过期或与回调的提供商不匹配
+ */
+public class InvalidStateException extends RuntimeException {
+    
+    public InvalidStateException(String message) {
+        super(message);
+    }
+}
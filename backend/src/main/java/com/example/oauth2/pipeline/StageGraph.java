@@ -0,0 +1,166 @@
+package com.example.oauth2.pipeline;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * 由命名阶段组成的有向无环图
+ * 
+ * 每个阶段在其全部依赖完成后立即在给定线程池上执行，互不依赖的阶段并行运行。
+ * 阶段通过上下文对象传递结果，CompletableFuture 的完成关系保证了依赖结果的可见性。
+ * 
+ * 必需阶段失败时整个图立即失败；可选阶段（如预热、清理）失败只记录日志。
+ * 
+ * @param <C> 各阶段共享的上下文类型
+ */
+public class StageGraph<C> {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StageGraph.class);
+    
+    @FunctionalInterface
+    public interface StageAction<C> {
+        void run(C context) throws Exception;
+    }
+    
+    private record Stage<C>(String name, StageAction<C> action, Set<String> dependencies, boolean optional) {
+    }
+    
+    private final List<Stage<C>> orderedStages;
+    
+    private StageGraph(List<Stage<C>> orderedStages) {
+        this.orderedStages = orderedStages;
+    }
+    
+    public static <C> Builder<C> builder() {
+        return new Builder<>();
+    }
+    
+    /**
+     * 执行整个图，返回的 future 在所有阶段完成或任一必需阶段失败时完成
+     */
+    public CompletableFuture<Void> execute(C context, Executor executor) {
+        CompletableFuture<Void> overall = new CompletableFuture<>();
+        Map<String, CompletableFuture<Void>> futures = new HashMap<>();
+        
+        for (Stage<C> stage : orderedStages) {
+            CompletableFuture<?>[] dependencies = stage.dependencies().stream()
+                .map(futures::get)
+                .toArray(CompletableFuture[]::new);
+            CompletableFuture<Void> ready = dependencies.length == 0
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.allOf(dependencies);
+            
+            CompletableFuture<Void> future = ready.thenRunAsync(() -> run(stage, context), executor);
+            future.whenComplete((ignored, error) -> {
+                if (error != null) {
+                    overall.completeExceptionally(unwrap(error));
+                }
+            });
+            futures.put(stage.name(), future);
+        }
+        
+        CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+            .thenRun(() -> overall.complete(null));
+        return overall;
+    }
+    
+    private void run(Stage<C> stage, C context) {
+        try {
+            stage.action().run(context);
+        } catch (Exception e) {
+            if (stage.optional()) {
+                logger.warn("可选阶段 {} 执行失败: {}", stage.name(), e.getMessage());
+                return;
+            }
+            throw e instanceof RuntimeException runtimeException ? runtimeException : new CompletionException(e);
+        }
+    }
+    
+    private static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+    
+    public static class Builder<C> {
+        
+        private final Map<String, Stage<C>> stages = new LinkedHashMap<>();
+        
+        public Builder<C> stage(String name, StageAction<C> action, String... dependencies) {
+            return add(name, action, false, dependencies);
+        }
+        
+        public Builder<C> optionalStage(String name, StageAction<C> action, String... dependencies) {
+            return add(name, action, true, dependencies);
+        }
+        
+        /**
+         * 为已有阶段追加依赖，供提供商在标准流程中插入校验等步骤
+         */
+        public Builder<C> dependsOn(String name, String... dependencies) {
+            Stage<C> stage = stages.get(name);
+            if (stage == null) {
+                throw new IllegalArgumentException("Unknown stage: " + name);
+            }
+            Set<String> merged = new LinkedHashSet<>(stage.dependencies());
+            merged.addAll(List.of(dependencies));
+            stages.put(name, new Stage<>(name, stage.action(), merged, stage.optional()));
+            return this;
+        }
+        
+        public boolean hasStage(String name) {
+            return stages.containsKey(name);
+        }
+        
+        private Builder<C> add(String name, StageAction<C> action, boolean optional, String... dependencies) {
+            if (stages.containsKey(name)) {
+                throw new IllegalArgumentException("Duplicate stage: " + name);
+            }
+            stages.put(name, new Stage<>(name, action, new LinkedHashSet<>(List.of(dependencies)), optional));
+            return this;
+        }
+        
+        /**
+         * 校验依赖存在且无环，并按拓扑序固定阶段顺序
+         */
+        public StageGraph<C> build() {
+            List<Stage<C>> ordered = new ArrayList<>();
+            Set<String> visited = new LinkedHashSet<>();
+            Set<String> visiting = new LinkedHashSet<>();
+            for (String name : stages.keySet()) {
+                visit(name, visited, visiting, ordered);
+            }
+            return new StageGraph<>(List.copyOf(ordered));
+        }
+        
+        private void visit(String name, Set<String> visited, Set<String> visiting, List<Stage<C>> ordered) {
+            if (visited.contains(name)) {
+                return;
+            }
+            if (!visiting.add(name)) {
+                throw new IllegalStateException("Cycle detected at stage: " + name);
+            }
+            Stage<C> stage = stages.get(name);
+            if (stage == null) {
+                throw new IllegalStateException("Unknown dependency: " + name);
+            }
+            for (String dependency : stage.dependencies()) {
+                visit(dependency, visited, visiting, ordered);
+            }
+            visiting.remove(name);
+            visited.add(name);
+            ordered.add(stage);
+        }
+    }
+}
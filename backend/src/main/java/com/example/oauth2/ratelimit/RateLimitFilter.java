@@ -0,0 +1,176 @@
+package com.example.oauth2.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * /auth/oauth2/**、/auth/introspect 和 /avatars/** 的限流过滤器
+ * 
+ * 这些端点在 SecurityConfig 中是 permitAll，授权请求每次都会写入一条 state，
+ * 因此在安全过滤链和控制器之前按来源IP（以及可选的客户端标识）限流，超限返回429。
+ * 自省在认证之前计数，猜测凭证和枚举令牌的请求同样受限，额度按 introspection 单独配置；
+ * /avatars 公开且未命中时会查询用户，按 avatar 额度限制枚举用户ID的请求。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class RateLimitFilter extends OncePerRequestFilter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+    
+    private static final String PROTECTED_PATH = "/auth/oauth2/";
+    private static final String INTROSPECTION_PATH = "/auth/introspect";
+    private static final String AVATAR_PATH = "/avatars/";
+    /** 超长的客户端标识不参与限流，避免用随机长字符串撑大本地表 */
+    private static final int MAX_CLIENT_ID_LENGTH = 64;
+    /** 只接受IP字面量，IpAddressMatcher 遇到主机名会做DNS解析 */
+    private static final Pattern IP_LITERAL = Pattern.compile("[0-9A-Fa-f:.]{2,45}");
+    
+    @Autowired
+    private RateLimiter rateLimiter;
+    
+    @Autowired
+    private RateLimitProperties properties;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private List<IpAddressMatcher> trustedProxies;
+    private Counter allowedCounter;
+    private final Map<RateLimiter.Reason, Counter> rejectedCounters = new EnumMap<>(RateLimiter.Reason.class);
+    
+    @PostConstruct
+    public void init() {
+        trustedProxies = properties.getTrustedProxies().stream()
+            .map(String::trim)
+            .filter(proxy -> !proxy.isEmpty())
+            .map(IpAddressMatcher::new)
+            .toList();
+        allowedCounter = Counter.builder("oauth2.ratelimit.requests")
+            .tag("outcome", "allowed")
+            .register(meterRegistry);
+        for (RateLimiter.Reason reason : RateLimiter.Reason.values()) {
+            rejectedCounters.put(reason, Counter.builder("oauth2.ratelimit.requests")
+                .tag("outcome", "rejected_" + reason.name().toLowerCase())
+                .register(meterRegistry));
+        }
+        Gauge.builder("oauth2.ratelimit.tracked.keys", rateLimiter, RateLimiter::size)
+            .description("本地跟踪的IP/客户端数量")
+            .register(meterRegistry);
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled()
+            || HttpMethod.OPTIONS.matches(request.getMethod())
+            || scope(request.getRequestURI()) == null;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String clientIp = clientIp(request);
+        RateLimiter.Scope scope = scope(request.getRequestURI());
+        RateLimiter.Decision decision = rateLimiter.tryAcquire(scope, clientIp);
+        
+        // 客户端标识只用于登录端点
+        if (decision.allowed() && scope == RateLimiter.Scope.IP) {
+            String clientId = request.getHeader(properties.getClientIdHeader());
+            if (clientId != null && !clientId.isBlank() && clientId.length() <= MAX_CLIENT_ID_LENGTH) {
+                decision = rateLimiter.tryAcquire(RateLimiter.Scope.CLIENT, clientId);
+            }
+        }
+        
+        if (!decision.allowed()) {
+            rejectedCounters.get(decision.reason()).increment();
+            logger.debug("请求被限流, IP: {}, 原因: {}", clientIp, decision.reason());
+            reject(response, decision);
+            return;
+        }
+        
+        allowedCounter.increment();
+        filterChain.doFilter(request, response);
+    }
+    
+    /**
+     * 按来源IP计数的范围，不限流的路径返回 null
+     */
+    private static RateLimiter.Scope scope(String uri) {
+        if (uri.startsWith(PROTECTED_PATH)) {
+            return RateLimiter.Scope.IP;
+        }
+        if (uri.startsWith(INTROSPECTION_PATH)) {
+            return RateLimiter.Scope.INTROSPECTION;
+        }
+        if (uri.startsWith(AVATAR_PATH)) {
+            return RateLimiter.Scope.AVATAR;
+        }
+        return null;
+    }
+    
+    /**
+     * 直连地址是可信代理时，从右向左跳过可信代理，取第一个其他地址；遇到不是IP的项时停止，使用上一跳
+     */
+    private String clientIp(HttpServletRequest request) {
+        String remoteAddr = request.getRemoteAddr();
+        if (trustedProxies.isEmpty() || !isTrustedProxy(remoteAddr)) {
+            return remoteAddr;
+        }
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (forwardedFor == null || forwardedFor.isBlank()) {
+            return remoteAddr;
+        }
+        
+        String[] hops = forwardedFor.split(",");
+        String client = remoteAddr;
+        for (int i = hops.length - 1; i >= 0; i--) {
+            String hop = hops[i].trim();
+            if (!IP_LITERAL.matcher(hop).matches()) {
+                break;
+            }
+            client = hop;
+            if (!isTrustedProxy(hop)) {
+                break;
+            }
+        }
+        return client;
+    }
+    
+    private boolean isTrustedProxy(String address) {
+        for (IpAddressMatcher proxy : trustedProxies) {
+            if (proxy.matches(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static void reject(HttpServletResponse response, RateLimiter.Decision decision) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSeconds()));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"rate_limited\",\"reason\":\"" + decision.reason().name() + "\"}");
+    }
+}
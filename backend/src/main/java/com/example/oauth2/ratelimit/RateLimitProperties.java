@@ -0,0 +1,71 @@
+package com.example.oauth2.ratelimit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * /auth/oauth2/**、/auth/introspect 和 /avatars/** 限流配置
+ * 
+ * app.oauth2.rate-limit.*，按来源IP和客户端标识分别限流：
+ * 令牌桶限制瞬时突发，滑动窗口限制一个窗口内的总量（多节点时通过Redis汇总）。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.oauth2.rate-limit")
+public class RateLimitProperties {
+    
+    private boolean enabled = true;
+    
+    private Limit ip = new Limit(20, 2.0, 300);
+    private Limit client = new Limit(200, 20.0, 3000);
+    /** /auth/introspect 按来源IP的额度，网关每个请求都可能自省一次 */
+    private Limit introspection = new Limit(500, 100.0, 30_000);
+    /** /avatars/** 按来源IP的额度 */
+    private Limit avatar = new Limit(100, 20.0, 3000);
+    
+    /** 滑动窗口长度 */
+    private Duration window = Duration.ofMinutes(1);
+    
+    /** 本地最多跟踪多少个IP/客户端，超出后清理空闲项，仍不足时淘汰最久未访问的十分之一 */
+    private int maxTrackedKeys = 100_000;
+    
+    /** 客户端标识请求头，未携带时只按IP限流 */
+    private String clientIdHeader = "X-Client-Id";
+    
+    /**
+     * 反向代理的地址（IP 或 CIDR）。直连地址属于其中时，从右向左取 X-Forwarded-For 中第一个不属于其中的地址作为来源IP；
+     * 为空时忽略 X-Forwarded-For。客户端可以伪造该头的左侧部分，只有代理追加的右侧部分可信
+     */
+    private List<String> trustedProxies = new ArrayList<>();
+    
+    private Sync sync = new Sync();
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        /** 令牌桶容量，即允许的最大突发请求数 */
+        private int burstCapacity;
+        /** 令牌桶每秒补充的令牌数 */
+        private double refillPerSecond;
+        /** 一个窗口内所有节点合计的请求上限 */
+        private long windowLimit;
+    }
+    
+    /**
+     * 窗口计数的Redis同步
+     */
+    @Data
+    public static class Sync {
+        private boolean enabled = true;
+        private Duration interval = Duration.ofSeconds(1);
+        /** 每次管道提交的最大键数 */
+        private int batchSize = 500;
+    }
+}
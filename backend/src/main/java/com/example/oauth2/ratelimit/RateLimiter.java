@@ -0,0 +1,145 @@
+package com.example.oauth2.ratelimit;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 进程内限流器
+ * 
+ * 判定完全在本地完成：先看滑动窗口估算（含最近一次从Redis同步到的集群计数），再看令牌桶。
+ * 明显超限的调用方直接拒绝，不会产生任何Redis访问；集群计数由 {@link RedisRateLimitSync} 在后台批量同步。
+ */
+@Component
+public class RateLimiter {
+    
+    public enum Scope {
+        IP, CLIENT,
+        /** 令牌自省，按来源IP计数，调用方是网关等内部服务，额度单独配置 */
+        INTROSPECTION,
+        /** 头像，按来源IP计数，一个页面可能同时加载多个头像 */
+        AVATAR
+    }
+    
+    public enum Reason {
+        /** 令牌桶耗尽，短时间内请求过于密集 */
+        BURST,
+        /** 窗口内总量超限 */
+        WINDOW
+    }
+    
+    public record Decision(boolean allowed, Reason reason, long retryAfterSeconds) {
+        static final Decision ALLOWED = new Decision(true, null, 0);
+    }
+    
+    @Autowired
+    private RateLimitProperties properties;
+    
+    /** 清理空闲项后仍然超限时，按最近访问时间淘汰的比例 */
+    private static final int EVICT_OLDEST_DIVISOR = 10;
+    
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    
+    public Decision tryAcquire(Scope scope, String id) {
+        long nowMillis = System.currentTimeMillis();
+        long nowNanos = System.nanoTime();
+        Entry entry = entry(scope, id, nowMillis, nowNanos);
+        entry.lastAccessMillis = nowMillis;
+        
+        if (entry.window.estimate(nowMillis) >= entry.limit.getWindowLimit()) {
+            long retryAfter = TimeUnit.MILLISECONDS.toSeconds(entry.window.millisUntilWindowEnd(nowMillis)) + 1;
+            return new Decision(false, Reason.WINDOW, retryAfter);
+        }
+        
+        long waitNanos = entry.bucket.tryConsume(nowNanos);
+        if (waitNanos > 0) {
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(Math.min(waitNanos, TimeUnit.HOURS.toNanos(1))) + 1);
+            return new Decision(false, Reason.BURST, retryAfter);
+        }
+        
+        entry.window.increment(nowMillis);
+        return Decision.ALLOWED;
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    Collection<Entry> entries() {
+        return entries.values();
+    }
+    
+    /**
+     * 清理超过两个窗口没有请求的条目
+     */
+    void evictIdle(long nowMillis) {
+        evict(nowMillis, false);
+    }
+    
+    /**
+     * @param evictOldest 清理空闲项后仍然超出上限时，再淘汰最久未访问的十分之一
+     */
+    private void evict(long nowMillis, boolean evictOldest) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long idleBefore = nowMillis - 2 * properties.getWindow().toMillis();
+            entries.values().removeIf(entry -> entry.lastAccessMillis < idleBefore);
+            if (evictOldest && entries.size() >= properties.getMaxTrackedKeys()) {
+                long[] accessTimes = entries.values().stream().mapToLong(entry -> entry.lastAccessMillis).toArray();
+                Arrays.sort(accessTimes);
+                long cutoff = accessTimes[Math.min(accessTimes.length - 1, accessTimes.length / EVICT_OLDEST_DIVISOR)];
+                entries.values().removeIf(entry -> entry.lastAccessMillis <= cutoff);
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+    
+    private Entry entry(Scope scope, String id, long nowMillis, long nowNanos) {
+        String key = scope.name().toLowerCase() + ":" + id;
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            return entry;
+        }
+        
+        if (entries.size() >= properties.getMaxTrackedKeys()) {
+            // 大量来源（例如伪造的地址）时淘汰最久未访问的条目，每个来源仍按自己的额度限流，
+            // 不会因为共用一个桶而让正常来源被攻击流量拖累；正在清理时其他线程直接写入，超出量以并发数为限
+            evict(nowMillis, true);
+        }
+        return entries.computeIfAbsent(key, k -> new Entry(k, limitFor(scope), properties.getWindow().toMillis(), nowMillis, nowNanos));
+    }
+    
+    private RateLimitProperties.Limit limitFor(Scope scope) {
+        return switch (scope) {
+            case IP -> properties.getIp();
+            case CLIENT -> properties.getClient();
+            case INTROSPECTION -> properties.getIntrospection();
+            case AVATAR -> properties.getAvatar();
+        };
+    }
+    
+    static final class Entry {
+        final String key;
+        final RateLimitProperties.Limit limit;
+        final TokenBucket bucket;
+        final SlidingWindowCounter window;
+        volatile long lastAccessMillis;
+        
+        Entry(String key, RateLimitProperties.Limit limit, long windowMillis, long nowMillis, long nowNanos) {
+            this.key = key;
+            this.limit = limit;
+            this.bucket = new TokenBucket(limit.getBurstCapacity(), limit.getRefillPerSecond(), nowNanos);
+            this.window = new SlidingWindowCounter(windowMillis, nowMillis);
+            this.lastAccessMillis = nowMillis;
+        }
+    }
+}
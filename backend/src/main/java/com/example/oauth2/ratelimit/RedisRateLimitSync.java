@@ -0,0 +1,121 @@
+package com.example.oauth2.ratelimit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 将本地窗口计数同步到Redis，并取回集群合计
+ * 
+ * 每个周期对当前窗口内活跃的条目执行一次管道化的 INCRBY + EXPIRE，
+ * 没有新增请求的条目以 INCRBY 0 读取其他节点的计数。请求路径上不访问Redis，
+ * Redis不可用时退化为单节点限流。
+ */
+@Component
+public class RedisRateLimitSync {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RedisRateLimitSync.class);
+    
+    private static final String KEY_PREFIX = "oauth2:ratelimit:";
+    
+    @Autowired
+    private RateLimiter rateLimiter;
+    
+    @Autowired
+    private RateLimitProperties properties;
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "rate-limit-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private record Pending(RateLimiter.Entry entry, long windowIndex, long delta) {
+    }
+    
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled() || !properties.getSync().isEnabled()) {
+            return;
+        }
+        long interval = properties.getSync().getInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::sync, interval, interval, TimeUnit.MILLISECONDS);
+    }
+    
+    void sync() {
+        try {
+            long nowMillis = System.currentTimeMillis();
+            rateLimiter.evictIdle(nowMillis);
+            
+            long windowMillis = properties.getWindow().toMillis();
+            long windowStart = nowMillis - nowMillis % windowMillis;
+            List<Pending> batch = new ArrayList<>();
+            for (RateLimiter.Entry entry : rateLimiter.entries()) {
+                if (entry.lastAccessMillis < windowStart) {
+                    continue;
+                }
+                long[] drained = entry.window.drainUnsynced(nowMillis);
+                batch.add(new Pending(entry, drained[0], drained[1]));
+                if (batch.size() >= properties.getSync().getBatchSize()) {
+                    flush(batch, windowMillis);
+                    batch = new ArrayList<>();
+                }
+            }
+            if (!batch.isEmpty()) {
+                flush(batch, windowMillis);
+            }
+        } catch (Exception e) {
+            logger.warn("限流计数同步失败: {}", e.getMessage());
+        }
+    }
+    
+    private void flush(List<Pending> batch, long windowMillis) {
+        // 键保留两个窗口，供下一窗口计算加权的上一窗口计数
+        long ttlSeconds = TimeUnit.MILLISECONDS.toSeconds(windowMillis * 2) + 1;
+        List<Object> results;
+        try {
+            results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (Pending pending : batch) {
+                    byte[] key = key(pending);
+                    connection.stringCommands().incrBy(key, pending.delta());
+                    connection.keyCommands().expire(key, ttlSeconds);
+                }
+                return null;
+            });
+        } catch (Exception e) {
+            batch.forEach(p -> p.entry().window.restoreUnsynced(p.windowIndex(), p.delta()));
+            logger.warn("限流计数同步到Redis失败: {}", e.getMessage());
+            return;
+        }
+        
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            if (results.get(i * 2) instanceof Long total) {
+                pending.entry().window.applyClusterCount(pending.windowIndex(), total);
+            }
+        }
+    }
+    
+    private static byte[] key(Pending pending) {
+        return (KEY_PREFIX + pending.entry().key + ":" + pending.windowIndex()).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.oauth2.ratelimit;
+
+/**
+ * 滑动窗口计数（两个固定窗口加权近似）
+ * 
+ * 估算值 = 上一窗口计数 × 上一窗口仍在滑动范围内的比例 + 当前窗口计数。
+ * 窗口按墙上时间对齐，各节点的窗口编号一致，Redis中的计数可以直接汇总。
+ * 本地计数与Redis返回的集群计数取较大者；尚未同步的本地增量单独记录，由 {@link RedisRateLimitSync} 定期取走。
+ */
+public class SlidingWindowCounter {
+    
+    private final long windowMillis;
+    
+    private long windowIndex;
+    private long localCurrent;
+    private long localPrevious;
+    private long clusterCurrent;
+    private long clusterPrevious;
+    private long unsynced;
+    
+    public SlidingWindowCounter(long windowMillis, long nowMillis) {
+        this.windowMillis = windowMillis;
+        this.windowIndex = nowMillis / windowMillis;
+    }
+    
+    public synchronized double estimate(long nowMillis) {
+        roll(nowMillis);
+        double previousWeight = 1 - (nowMillis % windowMillis) / (double) windowMillis;
+        long previous = Math.max(localPrevious, clusterPrevious);
+        long current = Math.max(localCurrent, clusterCurrent + unsynced);
+        return previous * previousWeight + current;
+    }
+    
+    public synchronized void increment(long nowMillis) {
+        roll(nowMillis);
+        localCurrent++;
+        unsynced++;
+    }
+    
+    /**
+     * 当前窗口结束前剩余的毫秒数
+     */
+    public long millisUntilWindowEnd(long nowMillis) {
+        return windowMillis - nowMillis % windowMillis;
+    }
+    
+    /**
+     * 取走尚未同步的增量，返回 {窗口编号, 增量}
+     */
+    synchronized long[] drainUnsynced(long nowMillis) {
+        roll(nowMillis);
+        long delta = unsynced;
+        unsynced = 0;
+        return new long[] {windowIndex, delta};
+    }
+    
+    /**
+     * 同步失败时归还增量，窗口已切换则丢弃
+     */
+    synchronized void restoreUnsynced(long index, long delta) {
+        if (index == windowIndex) {
+            unsynced += delta;
+        }
+    }
+    
+    /**
+     * 写入Redis返回的集群合计（已包含本节点同步过的增量）
+     */
+    synchronized void applyClusterCount(long index, long total) {
+        if (index == windowIndex) {
+            clusterCurrent = Math.max(clusterCurrent, total);
+        } else if (index == windowIndex - 1) {
+            clusterPrevious = Math.max(clusterPrevious, total);
+        }
+    }
+    
+    private void roll(long nowMillis) {
+        long index = nowMillis / windowMillis;
+        if (index == windowIndex) {
+            return;
+        }
+        if (index == windowIndex + 1) {
+            // 上一窗口最后一个同步周期内的增量不再写入Redis，只计入本地的上一窗口
+            localPrevious = localCurrent;
+            clusterPrevious = clusterCurrent + unsynced;
+        } else {
+            localPrevious = 0;
+            clusterPrevious = 0;
+        }
+        localCurrent = 0;
+        clusterCurrent = 0;
+        unsynced = 0;
+        windowIndex = index;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.oauth2.ratelimit;
+
+/**
+ * 令牌桶
+ * 
+ * 不使用后台线程补充令牌，而是在每次获取时按经过的时间补足。
+ * 单个桶只被同一IP/客户端的请求访问，锁基本无竞争。
+ */
+public class TokenBucket {
+    
+    private final double capacity;
+    private final double refillPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+    
+    public TokenBucket(int capacity, double refillPerSecond, long nowNanos) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000d;
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+    
+    /**
+     * 尝试取出一个令牌
+     * 
+     * @return 0 表示成功，否则为下一个令牌可用前需要等待的纳秒数
+     */
+    public synchronized long tryConsume(long nowNanos) {
+        long elapsed = nowNanos - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * refillPerNano);
+            lastRefillNanos = nowNanos;
+        }
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        if (refillPerNano <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return (long) Math.ceil((1 - tokens) / refillPerNano);
+    }
+}
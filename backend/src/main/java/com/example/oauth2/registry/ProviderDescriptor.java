@@ -0,0 +1,110 @@
+package com.example.oauth2.registry;
+
+import com.example.oauth2.model.AuthProvider;
+import lombok.Builder;
+import java.net.URI;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 一个提供商的不可变配置
+ * 
+ * 基线来自 application.yml（app.oauth2.{provider}.*），运行时的覆盖项合并后生成新的描述符整体替换，
+ * 请求路径拿到的描述符在使用期间不会变化。extra 保存提供商特有的配置，如 Apple 的 team-id。
+ */
+@Builder(toBuilder = true)
+public record ProviderDescriptor(
+    AuthProvider provider,
+    boolean enabled,
+    String clientId,
+    String clientSecret,
+    String authorizationUri,
+    String tokenUri,
+    String userInfoUri,
+    String scopes,
+    Map<String, String> extra
+) {
+    
+    public ProviderDescriptor {
+        extra = extra != null ? Collections.unmodifiableMap(new LinkedHashMap<>(extra)) : Map.of();
+    }
+    
+    public String extra(String key) {
+        return extra.get(key);
+    }
+    
+    /**
+     * 用覆盖项中非空的字段替换当前值，extra 按键合并
+     */
+    public ProviderDescriptor merge(ProviderOverride override) {
+        if (override == null) {
+            return this;
+        }
+        Map<String, String> mergedExtra = new LinkedHashMap<>(extra);
+        if (override.extra() != null) {
+            mergedExtra.putAll(override.extra());
+        }
+        return toBuilder()
+            .enabled(override.enabled() != null ? override.enabled() : enabled)
+            .clientId(override.clientId() != null ? override.clientId() : clientId)
+            .clientSecret(override.clientSecret() != null ? override.clientSecret() : clientSecret)
+            .authorizationUri(override.authorizationUri() != null ? override.authorizationUri() : authorizationUri)
+            .tokenUri(override.tokenUri() != null ? override.tokenUri() : tokenUri)
+            .userInfoUri(override.userInfoUri() != null ? override.userInfoUri() : userInfoUri)
+            .scopes(override.scopes() != null ? override.scopes() : scopes)
+            .extra(mergedExtra)
+            .build();
+    }
+    
+    /**
+     * 配置的URI必须是绝对的 http(s) 地址，否则拒绝整次更新
+     */
+    public void validate() {
+        validateUri("authorizationUri", authorizationUri);
+        validateUri("tokenUri", tokenUri);
+        validateUri("userInfoUri", userInfoUri);
+        extra.forEach((key, value) -> {
+            if (key.endsWith("Uri")) {
+                validateUri(key, value);
+            }
+        });
+    }
+    
+    /**
+     * 管理接口返回的视图，不包含 client secret
+     */
+    public Map<String, Object> toView() {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("provider", provider);
+        view.put("enabled", enabled);
+        view.put("clientId", clientId);
+        view.put("clientSecretSet", clientSecret != null && !clientSecret.isEmpty());
+        view.put("authorizationUri", authorizationUri);
+        view.put("tokenUri", tokenUri);
+        view.put("userInfoUri", userInfoUri);
+        view.put("scopes", scopes);
+        view.put("extra", extra);
+        return view;
+    }
+    
+    @Override
+    public String toString() {
+        return "ProviderDescriptor" + toView();
+    }
+    
+    private void validateUri(String name, String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        URI uri;
+        try {
+            uri = URI.create(value);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(provider + " " + name + " is not a valid URI: " + value);
+        }
+        if (!"http".equals(uri.getScheme()) && !"https".equals(uri.getScheme())) {
+            throw new IllegalArgumentException(provider + " " + name + " must be an absolute http(s) URI: " + value);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.oauth2.registry;
+
+import java.util.Map;
+
+/**
+ * 覆盖 application.yml 中提供商配置的字段，为 null 的字段保持基线值
+ * 
+ * 来自监视的配置文件或管理接口，例如轮换密钥只需要 {"clientSecret": "..."}。
+ */
+public record ProviderOverride(
+    Boolean enabled,
+    String clientId,
+    String clientSecret,
+    String authorizationUri,
+    String tokenUri,
+    String userInfoUri,
+    String scopes,
+    Map<String, String> extra
+) {
+}
@@ -0,0 +1,127 @@
+package com.example.oauth2.registry;
+
+import com.example.oauth2.model.AuthProvider;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 监视 app.oauth2.registry.file 指定的 JSON 文件，内容变化后替换注册表中的文件覆盖项
+ * 
+ * 文件格式为 {"google": {"clientSecret": "..."}, "facebook": {"enabled": false}}，字段见 {@link ProviderOverride}。
+ * 监视所在目录而不是文件本身，Kubernetes ConfigMap 以替换符号链接的方式更新时也能收到事件。
+ * 文件被删除时清空文件覆盖项；内容无法解析或校验失败时保留当前配置。
+ */
+@Component
+public class ProviderOverrideFileWatcher {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProviderOverrideFileWatcher.class);
+    
+    /** 编辑器保存时可能连续触发多个事件，等待片刻后再读取 */
+    private static final long DEBOUNCE_MILLIS = 200;
+    
+    @Autowired
+    private ProviderRegistry providerRegistry;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Value("${app.oauth2.registry.file:}")
+    private String file;
+    
+    private Path path;
+    private WatchService watchService;
+    private byte[] lastContent;
+    
+    @PostConstruct
+    public void init() throws IOException {
+        if (file.isBlank()) {
+            return;
+        }
+        path = Path.of(file).toAbsolutePath();
+        reload();
+        
+        watchService = FileSystems.getDefault().newWatchService();
+        path.getParent().register(watchService,
+            StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY,
+            StandardWatchEventKinds.ENTRY_DELETE);
+        Thread thread = new Thread(this::watch, "provider-registry-watcher");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("正在监视提供商配置文件: {}", path);
+    }
+    
+    @PreDestroy
+    public void shutdown() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+    
+    public boolean isEnabled() {
+        return path != null;
+    }
+    
+    /**
+     * 读取文件并替换文件覆盖项；内容与上次相同时跳过
+     */
+    public synchronized void reload() throws IOException {
+        if (path == null) {
+            throw new IllegalStateException("app.oauth2.registry.file is not configured");
+        }
+        byte[] content = Files.exists(path) ? Files.readAllBytes(path) : new byte[0];
+        if (lastContent != null && Arrays.equals(content, lastContent)) {
+            return;
+        }
+        
+        Map<AuthProvider, ProviderOverride> overrides = new EnumMap<>(AuthProvider.class);
+        if (content.length > 0) {
+            Map<String, ProviderOverride> parsed = objectMapper.readValue(content, new TypeReference<Map<String, ProviderOverride>>() {});
+            parsed.forEach((name, override) -> overrides.put(AuthProvider.valueOf(name.toUpperCase(Locale.ROOT)), override));
+        }
+        providerRegistry.replaceFileOverrides(overrides);
+        lastContent = content;
+        logger.info("已加载提供商配置文件, 覆盖 {} 个提供商", overrides.size());
+    }
+    
+    private void watch() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+                Thread.sleep(DEBOUNCE_MILLIS);
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            key.pollEvents();
+            try {
+                reload();
+            } catch (Exception e) {
+                logger.error("提供商配置文件无效，保留当前配置: {}", e.getMessage());
+            }
+            if (!key.reset()) {
+                logger.warn("提供商配置文件所在目录已不可访问，停止监视: {}", path.getParent());
+                return;
+            }
+        }
+    }
+}
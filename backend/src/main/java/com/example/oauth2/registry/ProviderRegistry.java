@@ -0,0 +1,178 @@
+package com.example.oauth2.registry;
+
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.service.AuthorizationUrlTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * 提供商描述符注册表
+ * 
+ * 生效配置 = yml 基线 ⊕ 配置文件覆盖 ⊕ 管理接口覆盖。所有描述符和预编译的授权URL模板组成一个不可变快照，
+ * 变更时在写锁内合并、校验、编译出完整的新快照后一次性替换；读路径只读取 AtomicReference，不加锁。
+ * 校验或编译失败时整次更新被拒绝，当前快照保持不变。
+ */
+@Component
+public class ProviderRegistry {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProviderRegistry.class);
+    
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(0, Map.of()));
+    
+    // 以下状态只在 synchronized 写方法中访问
+    private final Map<AuthProvider, ProviderDescriptor> baselines = new EnumMap<>(AuthProvider.class);
+    private final Map<AuthProvider, Function<ProviderDescriptor, AuthorizationUrlTemplate>> templateCompilers = new EnumMap<>(AuthProvider.class);
+    private Map<AuthProvider, ProviderOverride> fileOverrides = new EnumMap<>(AuthProvider.class);
+    private final Map<AuthProvider, ProviderOverride> adminOverrides = new EnumMap<>(AuthProvider.class);
+    
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    
+    /**
+     * 生效的描述符和由它编译出的授权URL模板（没有授权页的提供商为 null）
+     */
+    public record Entry(ProviderDescriptor descriptor, AuthorizationUrlTemplate authorizationUrlTemplate) {
+    }
+    
+    public record Snapshot(long version, Map<AuthProvider, Entry> entries) {
+    }
+    
+    public interface Listener {
+        void onChange(ProviderDescriptor previous, ProviderDescriptor current);
+    }
+    
+    /**
+     * 提供商服务在初始化时注册 yml 中的基线配置
+     * 
+     * @param templateCompiler 描述符变化时重新编译授权URL模板，可以为 null
+     */
+    public synchronized void register(ProviderDescriptor baseline,
+                                      Function<ProviderDescriptor, AuthorizationUrlTemplate> templateCompiler) {
+        baselines.put(baseline.provider(), baseline);
+        if (templateCompiler != null) {
+            templateCompilers.put(baseline.provider(), templateCompiler);
+        }
+        publish();
+    }
+    
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+    
+    public Entry get(AuthProvider provider) {
+        Entry entry = snapshot.get().entries().get(provider);
+        if (entry == null) {
+            throw new IllegalStateException("Provider " + provider + " is not registered");
+        }
+        return entry;
+    }
+    
+    public ProviderDescriptor descriptor(AuthProvider provider) {
+        return get(provider).descriptor();
+    }
+    
+    /**
+     * 未注册描述符的提供商实现视为启用
+     */
+    public boolean isEnabled(AuthProvider provider) {
+        Entry entry = snapshot.get().entries().get(provider);
+        return entry == null || entry.descriptor().enabled();
+    }
+    
+    public Snapshot snapshot() {
+        return snapshot.get();
+    }
+    
+    /**
+     * 用配置文件的内容整体替换文件覆盖项
+     */
+    public synchronized void replaceFileOverrides(Map<AuthProvider, ProviderOverride> overrides) {
+        Map<AuthProvider, ProviderOverride> previous = fileOverrides;
+        fileOverrides = new EnumMap<>(AuthProvider.class);
+        fileOverrides.putAll(overrides);
+        try {
+            publish();
+        } catch (RuntimeException e) {
+            fileOverrides = previous;
+            throw e;
+        }
+    }
+    
+    public synchronized ProviderDescriptor putAdminOverride(AuthProvider provider, ProviderOverride override) {
+        if (!baselines.containsKey(provider)) {
+            throw new IllegalArgumentException("Provider " + provider + " has no implementation");
+        }
+        ProviderOverride previous = adminOverrides.put(provider, override);
+        try {
+            publish();
+        } catch (RuntimeException e) {
+            if (previous != null) {
+                adminOverrides.put(provider, previous);
+            } else {
+                adminOverrides.remove(provider);
+            }
+            throw e;
+        }
+        return descriptor(provider);
+    }
+    
+    public synchronized void removeAdminOverride(AuthProvider provider) {
+        if (adminOverrides.remove(provider) != null) {
+            publish();
+        }
+    }
+    
+    public synchronized Map<AuthProvider, ProviderOverride> adminOverrides() {
+        return Collections.unmodifiableMap(new EnumMap<>(adminOverrides));
+    }
+    
+    /**
+     * 合并三层配置生成新快照；描述符未变化的提供商复用原有的模板
+     */
+    private void publish() {
+        Snapshot current = snapshot.get();
+        Map<AuthProvider, Entry> entries = new EnumMap<>(AuthProvider.class);
+        baselines.forEach((provider, baseline) -> {
+            ProviderDescriptor descriptor = baseline
+                .merge(fileOverrides.get(provider))
+                .merge(adminOverrides.get(provider));
+            
+            Entry previous = current.entries().get(provider);
+            if (previous != null && previous.descriptor().equals(descriptor)) {
+                entries.put(provider, previous);
+                return;
+            }
+            
+            descriptor.validate();
+            Function<ProviderDescriptor, AuthorizationUrlTemplate> compiler = templateCompilers.get(provider);
+            entries.put(provider, new Entry(descriptor, compiler != null ? compiler.apply(descriptor) : null));
+        });
+        
+        Snapshot next = new Snapshot(current.version() + 1, Collections.unmodifiableMap(entries));
+        snapshot.set(next);
+        
+        next.entries().forEach((provider, entry) -> {
+            Entry previous = current.entries().get(provider);
+            if (previous == entry) {
+                return;
+            }
+            if (previous != null) {
+                logger.info("提供商配置已更新: {}, 版本 {}", provider, next.version());
+            }
+            for (Listener listener : listeners) {
+                try {
+                    listener.onChange(previous != null ? previous.descriptor() : null, entry.descriptor());
+                } catch (Exception e) {
+                    logger.error("提供商配置变更通知失败: {}", e.getMessage(), e);
+                }
+            }
+        });
+    }
+}
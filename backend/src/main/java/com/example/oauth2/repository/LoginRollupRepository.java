@@ -0,0 +1,20 @@
+package com.example.oauth2.repository;
+
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.model.ClientPlatform;
+import com.example.oauth2.model.LoginRollup;
+import com.example.oauth2.model.RollupPeriod;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface LoginRollupRepository extends JpaRepository<LoginRollup, Long> {
+    Optional<LoginRollup> findByPeriodAndBucketStartAndProviderAndPlatform(
+        RollupPeriod period, LocalDateTime bucketStart, AuthProvider provider, ClientPlatform platform);
+    
+    List<LoginRollup> findByPeriodAndBucketStartGreaterThanEqualAndBucketStartLessThanOrderByBucketStart(
+        RollupPeriod period, LocalDateTime from, LocalDateTime to);
+}
@@ -9,4 +9,6 @@ import java.util.Optional;
 @Repository
 public interface UserAuthRepository extends JpaRepository<UserAuth, Long> {
     Optional<UserAuth> findByProviderAndProviderUserId(AuthProvider provider, String providerUserId);
+    
+    Optional<UserAuth> findFirstByProviderAndUnionId(AuthProvider provider, String unionId);
 }
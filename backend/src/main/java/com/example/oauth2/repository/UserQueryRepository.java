@@ -0,0 +1,166 @@
+package com.example.oauth2.repository;
+
+import com.example.oauth2.dto.LinkedAccountDTO;
+import com.example.oauth2.dto.UserQuery;
+import com.example.oauth2.dto.UserSummaryDTO;
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.model.ClientPlatform;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 面向管理和分析工具的只读查询
+ * 
+ * 直接用 JDBC 查询投影列，不经过 JPA 实体，也不加载 User.authAccounts。
+ * 分页使用键集（id > 游标 ORDER BY id），深翻页的代价与第一页相同；
+ * 导出使用只进游标和 fetch size 逐行回调，内存占用与结果行数无关。
+ * 所有查询都在只读事务中执行，配置了只读副本时路由到副本。
+ */
+@Repository
+public class UserQueryRepository {
+    
+    private static final String ACCOUNT_COLUMNS =
+        "a.id, a.user_id, a.provider, a.platform, a.provider_user_id, a.email, a.name, a.created_at, a.last_login_at";
+    
+    private static final RowMapper<LinkedAccountDTO> ACCOUNT_MAPPER = (rs, rowNum) -> LinkedAccountDTO.builder()
+        .id(rs.getLong("id"))
+        .userId(rs.getLong("user_id"))
+        .provider(enumValue(AuthProvider.class, rs.getString("provider")))
+        .platform(enumValue(ClientPlatform.class, rs.getString("platform")))
+        .providerUserId(rs.getString("provider_user_id"))
+        .email(rs.getString("email"))
+        .name(rs.getString("name"))
+        .createdAt(rs.getObject("created_at", LocalDateTime.class))
+        .lastLoginAt(rs.getObject("last_login_at", LocalDateTime.class))
+        .build();
+    
+    private static final RowMapper<UserSummaryDTO> USER_MAPPER = (rs, rowNum) -> UserSummaryDTO.builder()
+        .id(rs.getLong("id"))
+        .name(rs.getString("name"))
+        .email(rs.getString("email"))
+        .primaryProvider(enumValue(AuthProvider.class, rs.getString("primary_provider")))
+        .linkedAccounts(rs.getInt("linked_accounts"))
+        .lastLoginAt(rs.getObject("last_login_at", LocalDateTime.class))
+        .build();
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Value("${app.admin.export.fetch-size:1000}")
+    private int fetchSize;
+    
+    @Transactional(readOnly = true)
+    public List<LinkedAccountDTO> findLinkedAccounts(UserQuery query, long after, int limit) {
+        List<Object> args = new ArrayList<>();
+        String sql = linkedAccountsSql(query, after, args) + " LIMIT ?";
+        args.add(limit);
+        return jdbcTemplate.query(sql, ACCOUNT_MAPPER, args.toArray());
+    }
+    
+    @Transactional(readOnly = true)
+    public List<UserSummaryDTO> findUsers(UserQuery query, long after, int limit) {
+        List<Object> args = new ArrayList<>();
+        String sql = usersSql(query, after, args) + " LIMIT ?";
+        args.add(limit);
+        return jdbcTemplate.query(sql, USER_MAPPER, args.toArray());
+    }
+    
+    /**
+     * 只读事务（关闭自动提交）保证 PostgreSQL 按 fetch size 使用服务端游标，而不是一次取回全部结果；
+     * MySQL 见 {@link #streamingFetchSize}
+     */
+    @Transactional(readOnly = true)
+    public void streamLinkedAccounts(UserQuery query, Consumer<LinkedAccountDTO> consumer) {
+        List<Object> args = new ArrayList<>();
+        stream(linkedAccountsSql(query, 0, args), args, ACCOUNT_MAPPER, consumer);
+    }
+    
+    @Transactional(readOnly = true)
+    public void streamUsers(UserQuery query, Consumer<UserSummaryDTO> consumer) {
+        List<Object> args = new ArrayList<>();
+        stream(usersSql(query, 0, args), args, USER_MAPPER, consumer);
+    }
+    
+    private String linkedAccountsSql(UserQuery query, long after, List<Object> args) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(ACCOUNT_COLUMNS)
+            .append(" FROM user_auth a WHERE a.id > ?");
+        args.add(after);
+        appendAccountFilters(sql, query, args);
+        return sql.append(" ORDER BY a.id").toString();
+    }
+    
+    /**
+     * 只返回至少有一个符合条件的绑定账号的用户，按用户聚合账号数和最近登录时间
+     */
+    private String usersSql(UserQuery query, long after, List<Object> args) {
+        StringBuilder sql = new StringBuilder(
+            "SELECT u.id, u.name, u.email, u.primary_provider, " +
+            "COUNT(a.id) AS linked_accounts, MAX(a.last_login_at) AS last_login_at " +
+            "FROM users u JOIN user_auth a ON a.user_id = u.id WHERE u.id > ?");
+        args.add(after);
+        appendAccountFilters(sql, query, args);
+        return sql.append(" GROUP BY u.id, u.name, u.email, u.primary_provider ORDER BY u.id").toString();
+    }
+    
+    private static void appendAccountFilters(StringBuilder sql, UserQuery query, List<Object> args) {
+        if (query.getProvider() != null) {
+            sql.append(" AND a.provider = ?");
+            args.add(query.getProvider().name());
+        }
+        if (query.getPlatform() != null) {
+            sql.append(" AND a.platform = ?");
+            args.add(query.getPlatform().name());
+        }
+        if (query.getLastLoginFrom() != null) {
+            sql.append(" AND a.last_login_at >= ?");
+            args.add(query.getLastLoginFrom());
+        }
+        if (query.getLastLoginTo() != null) {
+            sql.append(" AND a.last_login_at < ?");
+            args.add(query.getLastLoginTo());
+        }
+    }
+    
+    private <T> void stream(String sql, List<Object> args, RowMapper<T> mapper, Consumer<T> consumer) {
+        ArgumentPreparedStatementSetter setter = new ArgumentPreparedStatementSetter(args.toArray());
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(streamingFetchSize(connection));
+            setter.setValues(statement);
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(mapper.mapRow(rs, rs.getRow())));
+    }
+    
+    /**
+     * MySQL Connector/J 默认忽略 fetch size，把结果全部读入内存：
+     * URL 带 useCursorFetch=true 时按 fetch size 使用服务端游标，否则用 Integer.MIN_VALUE 逐行流式读取
+     * （读完之前该连接不能执行其他语句，这里每次导出独占一个连接）
+     */
+    private int streamingFetchSize(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        if ("MySQL".equalsIgnoreCase(metaData.getDatabaseProductName())
+                && !metaData.getURL().contains("useCursorFetch=true")) {
+            return Integer.MIN_VALUE;
+        }
+        return fetchSize;
+    }
+    
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String value) {
+        return value != null ? Enum.valueOf(type, value) : null;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.oauth2.resilience;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于延迟梯度的自适应并发上限（Gradient 算法）
+ * 
+ * 长期 RTT 是指数移动平均，代表无排队时的基准延迟；每个样本的 RTT 与之比较得到梯度：
+ * 延迟上升说明请求开始排队，梯度小于1，上限按比例收缩；延迟回落后梯度为1，上限每次多放 sqrt(limit) 个请求试探。
+ * 在途请求不到上限一半时样本不反映容量（流量本身不大），不调整上限。
+ * 
+ * 获取/释放许可是无锁的 CAS；调整上限在锁内完成，每个请求一次，开销相对请求本身可以忽略。
+ */
+public class AdaptiveConcurrencyLimit {
+    
+    /** 样本数少于该值时长期 RTT 取简单平均，避免首个样本权重过大 */
+    private static final int WARMUP_SAMPLES = 10;
+    
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double rttTolerance;
+    private final double backoffRatio;
+    private final double longRttFactor;
+    
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+    
+    private double estimatedLimit;
+    private double longRttNanos;
+    private long samples;
+    
+    public AdaptiveConcurrencyLimit(ConcurrencyLimitProperties properties) {
+        this.minLimit = Math.max(1, properties.getMinLimit());
+        this.maxLimit = Math.max(minLimit, properties.getMaxLimit());
+        this.smoothing = properties.getSmoothing();
+        this.rttTolerance = properties.getRttTolerance();
+        this.backoffRatio = properties.getBackoffRatio();
+        this.longRttFactor = 2.0 / (Math.max(1, properties.getLongWindow()) + 1);
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, properties.getInitialLimit()));
+        this.limit = (int) estimatedLimit;
+    }
+    
+    /**
+     * 在途请求未达上限时占用一个许可
+     * 
+     * @return 占用后的在途请求数，超限时返回 -1
+     */
+    public int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+    
+    /**
+     * 释放许可并用本次请求的耗时调整上限
+     * 
+     * @param inFlightAtStart tryAcquire 的返回值
+     * @param dropped 请求因超时或异常失败，此时直接按 backoffRatio 收缩
+     */
+    public void release(int inFlightAtStart, long rttNanos, boolean dropped) {
+        inFlight.decrementAndGet();
+        onSample(inFlightAtStart, rttNanos, dropped);
+    }
+    
+    private synchronized void onSample(int inFlightAtStart, long rttNanos, boolean dropped) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        
+        samples++;
+        if (samples <= WARMUP_SAMPLES) {
+            longRttNanos += (rttNanos - longRttNanos) / samples;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) * longRttFactor;
+        }
+        // 持续高负载会把长期 RTT 也抬高；负载解除后让它更快回落，否则上限恢复很慢
+        if (longRttNanos / rttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+        
+        double newLimit;
+        if (dropped) {
+            newLimit = estimatedLimit * backoffRatio;
+        } else {
+            if (inFlightAtStart < estimatedLimit / 2) {
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRttNanos / rttNanos));
+            double queueSize = Math.sqrt(estimatedLimit);
+            newLimit = estimatedLimit * gradient + queueSize;
+            newLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+        }
+        
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+        limit = (int) estimatedLimit;
+    }
+    
+    public int getLimit() {
+        return limit;
+    }
+    
+    public int getInFlight() {
+        return inFlight.get();
+    }
+    
+    /**
+     * 当前长期 RTT（毫秒），用于指标
+     */
+    public synchronized double getLongRttMillis() {
+        return longRttNanos / 1_000_000.0;
+    }
+}
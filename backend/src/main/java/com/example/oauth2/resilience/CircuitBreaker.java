@@ -0,0 +1,134 @@
+package com.example.oauth2.resilience;
+
+/**
+ * 基于计数滑动窗口的熔断器
+ * 
+ * CLOSED: 正常放行，窗口内失败率超过阈值后转为 OPEN
+ * OPEN: 直接拒绝，持续 openStateDuration 后转为 HALF_OPEN
+ * HALF_OPEN: 只放行有限的探测调用，全部成功则关闭，任一失败则重新打开
+ * 
+ * 状态变化都在锁内完成；与一次网络调用相比，锁的开销可以忽略。
+ */
+public class CircuitBreaker {
+    
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+    
+    private final int failureRateThreshold;
+    private final int minimumNumberOfCalls;
+    private final long openStateNanos;
+    private final int permittedCallsInHalfOpenState;
+    
+    private final boolean[] outcomes;
+    private int windowCount;
+    private int windowIndex;
+    private int windowFailures;
+    
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+    
+    public CircuitBreaker(ResilienceProperties.Policy policy) {
+        this.failureRateThreshold = policy.getFailureRateThreshold();
+        this.minimumNumberOfCalls = policy.getMinimumNumberOfCalls();
+        this.openStateNanos = policy.getOpenStateDuration().toNanos();
+        this.permittedCallsInHalfOpenState = policy.getPermittedCallsInHalfOpenState();
+        this.outcomes = new boolean[Math.max(1, policy.getSlidingWindowSize())];
+    }
+    
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openStateNanos) {
+                return false;
+            }
+            transitionTo(State.HALF_OPEN);
+        }
+        
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits >= permittedCallsInHalfOpenState) {
+                return false;
+            }
+            halfOpenPermits++;
+        }
+        return true;
+    }
+    
+    /**
+     * 已获得许可但调用未真正发出（例如舱壁拒绝）时归还许可
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+        }
+    }
+    
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            halfOpenSuccesses++;
+            if (halfOpenSuccesses >= permittedCallsInHalfOpenState) {
+                transitionTo(State.CLOSED);
+            }
+            return;
+        }
+        record(false);
+    }
+    
+    public synchronized void onError() {
+        if (state == State.HALF_OPEN) {
+            transitionTo(State.OPEN);
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && windowCount >= minimumNumberOfCalls && failureRate() >= failureRateThreshold) {
+            transitionTo(State.OPEN);
+        }
+    }
+    
+    public synchronized State getState() {
+        return state;
+    }
+    
+    /**
+     * 当前窗口的失败率（百分比），样本不足时为 0
+     */
+    public synchronized double getFailureRate() {
+        return windowCount < minimumNumberOfCalls ? 0.0 : failureRate();
+    }
+    
+    private double failureRate() {
+        return windowCount == 0 ? 0.0 : windowFailures * 100.0 / windowCount;
+    }
+    
+    private void record(boolean failure) {
+        if (windowCount == outcomes.length) {
+            if (outcomes[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        outcomes[windowIndex] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % outcomes.length;
+    }
+    
+    private void transitionTo(State newState) {
+        state = newState;
+        halfOpenPermits = 0;
+        halfOpenSuccesses = 0;
+        if (newState == State.OPEN) {
+            openedAt = System.nanoTime();
+        }
+        if (newState == State.CLOSED) {
+            windowCount = 0;
+            windowIndex = 0;
+            windowFailures = 0;
+        }
+    }
+}
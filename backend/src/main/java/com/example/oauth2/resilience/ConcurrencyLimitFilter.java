@@ -0,0 +1,116 @@
+package com.example.oauth2.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 回调和令牌端点的自适应并发限制
+ * 
+ * 数据库或提供商变慢时，这些请求会在线程池里无限排队直到超时，用户等很久才失败。
+ * 这里按观测延迟学习可承受的在途请求数，超出的请求立即返回503和 Retry-After，客户端可以马上重试。
+ * 排在限流过滤器之后，被限流的请求不占用并发许可。
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+    
+    private static final List<String> PROTECTED_PATHS = List.of(
+        "/auth/oauth2/callback/",
+        "/auth/oauth2/token",
+        "/oauth/callback/"
+    );
+    
+    @Autowired
+    private ConcurrencyLimitProperties properties;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private AdaptiveConcurrencyLimit limit;
+    private Counter acceptedCounter;
+    private Counter rejectedCounter;
+    
+    @PostConstruct
+    public void init() {
+        limit = new AdaptiveConcurrencyLimit(properties);
+        acceptedCounter = Counter.builder("oauth2.concurrency.requests")
+            .tag("outcome", "accepted")
+            .register(meterRegistry);
+        rejectedCounter = Counter.builder("oauth2.concurrency.requests")
+            .tag("outcome", "rejected")
+            .register(meterRegistry);
+        Gauge.builder("oauth2.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+            .description("当前自适应并发上限")
+            .register(meterRegistry);
+        Gauge.builder("oauth2.concurrency.inflight", limit, AdaptiveConcurrencyLimit::getInFlight)
+            .description("回调/令牌端点在途请求数")
+            .register(meterRegistry);
+        Gauge.builder("oauth2.concurrency.rtt.long", limit, AdaptiveConcurrencyLimit::getLongRttMillis)
+            .description("长期基准延迟（毫秒）")
+            .register(meterRegistry);
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!properties.isEnabled() || HttpMethod.OPTIONS.matches(request.getMethod())) {
+            return true;
+        }
+        String uri = request.getRequestURI();
+        for (String path : PROTECTED_PATHS) {
+            if (uri.startsWith(path)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        int inFlight = limit.tryAcquire();
+        if (inFlight < 0) {
+            rejectedCounter.increment();
+            logger.debug("并发超限，拒绝请求: {}, 当前上限: {}", request.getRequestURI(), limit.getLimit());
+            reject(response);
+            return;
+        }
+        
+        acceptedCounter.increment();
+        long start = System.nanoTime();
+        boolean dropped = true;
+        try {
+            filterChain.doFilter(request, response);
+            dropped = response.getStatus() == HttpStatus.GATEWAY_TIMEOUT.value();
+        } finally {
+            limit.release(inFlight, System.nanoTime() - start, dropped);
+        }
+    }
+    
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, properties.getRetryAfter().toSeconds())));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"overloaded\",\"limit\":" + limit.getLimit() + "}");
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.oauth2.resilience;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+
+/**
+ * 回调/令牌端点的自适应并发限制配置
+ * 
+ * app.oauth2.concurrency-limit.*，上限在 [min-limit, max-limit] 之间随观测延迟自动调整。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.oauth2.concurrency-limit")
+public class ConcurrencyLimitProperties {
+    
+    private boolean enabled = true;
+    
+    /** 启动时的并发上限，样本积累后自动调整 */
+    private int initialLimit = 50;
+    private int minLimit = 10;
+    private int maxLimit = 500;
+    
+    /** 每个样本对上限的影响权重，越小调整越平滑 */
+    private double smoothing = 0.2;
+    
+    /** 长期 RTT 的指数移动平均窗口（样本数） */
+    private int longWindow = 600;
+    
+    /** 延迟超过长期 RTT 的该倍数才开始收缩上限 */
+    private double rttTolerance = 1.5;
+    
+    /** 请求超时或异常时上限乘以该系数 */
+    private double backoffRatio = 0.9;
+    
+    /** 拒绝时 Retry-After 的秒数 */
+    private Duration retryAfter = Duration.ofSeconds(1);
+}
@@ -0,0 +1,52 @@
+package com.example.oauth2.resilience;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 最近N次成功调用的延迟环形缓冲区
+ * 
+ * 写入为无锁的单次数组赋值；百分位计算需要排序快照，由调用方控制计算频率。
+ */
+public class LatencyTracker {
+    
+    private final AtomicLongArray samples;
+    private final AtomicLong count = new AtomicLong();
+    
+    public LatencyTracker(int capacity) {
+        this.samples = new AtomicLongArray(capacity);
+    }
+    
+    /**
+     * 记录一次延迟，返回累计样本数
+     */
+    public long record(long latencyMillis) {
+        long n = count.getAndIncrement();
+        samples.set((int) (n % samples.length()), latencyMillis);
+        return n + 1;
+    }
+    
+    public long size() {
+        return Math.min(count.get(), samples.length());
+    }
+    
+    /**
+     * 计算当前窗口内的百分位延迟，没有样本时返回 -1
+     */
+    public long percentile(double percentile) {
+        int size = (int) size();
+        if (size == 0) {
+            return -1;
+        }
+        
+        long[] snapshot = new long[size];
+        for (int i = 0; i < size; i++) {
+            snapshot[i] = samples.get(i);
+        }
+        Arrays.sort(snapshot);
+        
+        int index = (int) Math.ceil(percentile / 100.0 * size) - 1;
+        return snapshot[Math.max(0, Math.min(index, size - 1))];
+    }
+}
@@ -0,0 +1,378 @@
+package com.example.oauth2.resilience;
+
+import com.example.oauth2.model.AuthProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import java.net.ConnectException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个提供商的弹性执行器：舱壁 + 熔断 + 自适应超时 + 重试 + 对冲
+ * 
+ * 每个提供商使用独立的有界线程池，某个提供商变慢只会耗尽自己的线程，
+ * 不会占满 Tomcat 线程进而拖垮其他提供商的登录。
+ * 
+ * 一次逻辑调用可能包含多次尝试（重试）和并发副本（对冲），
+ * 每次尝试都单独经过熔断器和舱壁；重试和对冲都受预算约束。
+ * 
+ * CompletableFuture.cancel 不会中断执行中的线程，超时或已有副本成功后由这里中断仍在运行的副本，
+ * 阻塞在 HttpClient 上的调用随之结束，舱壁线程不会被慢请求一直占用。
+ */
+public class ProviderResilience {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ProviderResilience.class);
+    
+    /** 每累计多少个样本重新计算一次超时和对冲延迟 */
+    private static final int TIMEOUT_RECALCULATION_INTERVAL = 32;
+    private static final int LATENCY_WINDOW = 512;
+    
+    private final AuthProvider provider;
+    private final ResilienceProperties.Policy policy;
+    private final ThreadPoolExecutor bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final LatencyTracker latencyTracker = new LatencyTracker(LATENCY_WINDOW);
+    private final AtomicLong timeoutMillis;
+    private final AtomicLong hedgeDelayMillis;
+    private final RetryBudget retryBudget;
+    private final RetryBudget hedgeBudget;
+    
+    private final LongAdder successCalls = new LongAdder();
+    private final LongAdder failedCalls = new LongAdder();
+    private final LongAdder timedOutCalls = new LongAdder();
+    private final LongAdder rejectedCalls = new LongAdder();
+    private final LongAdder shortCircuitedCalls = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    
+    public ProviderResilience(AuthProvider provider, ResilienceProperties.Policy policy) {
+        this.provider = provider;
+        this.policy = policy;
+        this.circuitBreaker = new CircuitBreaker(policy);
+        this.timeoutMillis = new AtomicLong(policy.getInitialTimeout().toMillis());
+        this.hedgeDelayMillis = new AtomicLong(policy.getHedge().getMinDelay().toMillis());
+        this.retryBudget = new RetryBudget(policy.getRetry().getBudgetRatio(), policy.getRetry().getBudgetBurst());
+        this.hedgeBudget = new RetryBudget(policy.getHedge().getBudgetRatio(), policy.getHedge().getBudgetBurst());
+        
+        AtomicInteger threadIndex = new AtomicInteger();
+        String threadPrefix = "oauth2-" + provider.name().toLowerCase() + "-";
+        this.bulkhead = new ThreadPoolExecutor(
+            policy.getMaxConcurrentCalls(),
+            policy.getMaxConcurrentCalls(),
+            60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, policy.getMaxWaitingCalls())),
+            runnable -> {
+                Thread thread = new Thread(runnable, threadPrefix + threadIndex.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.bulkhead.allowCoreThreadTimeOut(true);
+    }
+    
+    /**
+     * 执行一次逻辑调用
+     * 
+     * @param idempotent 幂等调用允许在更多错误类型后重试，并可启用对冲
+     */
+    public <T> T execute(String operation, boolean idempotent, Callable<T> call) {
+        ResilienceProperties.Retry retry = policy.getRetry();
+        boolean hedged = idempotent && policy.getHedge().isEnabled();
+        retryBudget.deposit();
+        if (hedged) {
+            hedgeBudget.deposit();
+        }
+        
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return executeAttempt(operation, call, hedged);
+            } catch (RuntimeException e) {
+                if (attempt >= retry.getMaxAttempts() || !isRetryable(e, idempotent)) {
+                    throw e;
+                }
+                if (!retryBudget.tryWithdraw()) {
+                    logger.warn("{} {} 重试预算耗尽，放弃重试: {}", provider, operation, e.getMessage());
+                    throw e;
+                }
+                
+                long backoff = backoffMillis(attempt, retry);
+                retries.increment();
+                logger.warn("{} {} 第{}次尝试失败，{}ms后重试: {}", provider, operation, attempt, backoff, e.getMessage());
+                sleep(backoff);
+            }
+        }
+    }
+    
+    private <T> T executeAttempt(String operation, Callable<T> call, boolean hedged) {
+        if (!circuitBreaker.tryAcquirePermission()) {
+            shortCircuitedCalls.increment();
+            throw new ProviderUnavailableException(provider, ProviderUnavailableException.Reason.CIRCUIT_OPEN);
+        }
+        
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicInteger pendingCopies = new AtomicInteger(1);
+        Set<Thread> workers = ConcurrentHashMap.newKeySet();
+        try {
+            submitCopy(call, result, pendingCopies, workers, false);
+        } catch (RejectedExecutionException e) {
+            circuitBreaker.releasePermission();
+            rejectedCalls.increment();
+            logger.warn("{} {} 被舱壁拒绝, 活跃: {}, 排队: {}", provider, operation,
+                bulkhead.getActiveCount(), bulkhead.getQueue().size());
+            throw new ProviderUnavailableException(provider, ProviderUnavailableException.Reason.BULKHEAD_FULL);
+        }
+        
+        long timeout = timeoutMillis.get();
+        long start = System.nanoTime();
+        try {
+            T value;
+            long hedgeDelay = hedgeDelayMillis.get();
+            if (hedged && hedgeDelay < timeout) {
+                value = awaitWithHedge(operation, call, result, pendingCopies, workers, hedgeDelay, timeout);
+            } else {
+                value = result.get(timeout, TimeUnit.MILLISECONDS);
+            }
+            // 对冲时落后的副本不再需要
+            interruptWorkers(workers);
+            onSuccess(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return value;
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            interruptWorkers(workers);
+            timedOutCalls.increment();
+            circuitBreaker.onError();
+            logger.warn("{} {} 超时 ({}ms)", provider, operation, timeout);
+            throw new ProviderUnavailableException(provider, ProviderUnavailableException.Reason.TIMEOUT);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof HttpClientErrorException) {
+                // 4xx 是请求本身的问题（如授权码无效），不代表提供商不健康
+                circuitBreaker.onSuccess();
+            } else {
+                failedCalls.increment();
+                circuitBreaker.onError();
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(provider + " " + operation + " failed", cause);
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            interruptWorkers(workers);
+            circuitBreaker.releasePermission();
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(provider + " " + operation + " interrupted", e);
+        }
+    }
+    
+    /**
+     * 等待首个副本；超过对冲延迟仍未返回且预算允许时再发一个副本，取先成功者
+     */
+    private <T> T awaitWithHedge(String operation, Callable<T> call, CompletableFuture<T> result,
+                                 AtomicInteger pendingCopies, Set<Thread> workers, long hedgeDelay, long timeout)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        try {
+            return result.get(hedgeDelay, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (hedgeBudget.tryWithdraw()) {
+                pendingCopies.incrementAndGet();
+                try {
+                    submitCopy(call, result, pendingCopies, workers, true);
+                    hedges.increment();
+                    logger.debug("{} {} 超过 {}ms 未返回，发出对冲请求", provider, operation, hedgeDelay);
+                } catch (RejectedExecutionException rejected) {
+                    // 舱壁已满时放弃对冲，继续等待首个副本
+                    pendingCopies.decrementAndGet();
+                }
+            }
+            return result.get(timeout - hedgeDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    private <T> void submitCopy(Callable<T> call, CompletableFuture<T> result, AtomicInteger pendingCopies,
+                                Set<Thread> workers, boolean hedge) {
+        bulkhead.execute(() -> {
+            // 先登记再检查：此后完成的超时/取消一定能看到并中断本线程
+            Thread worker = Thread.currentThread();
+            workers.add(worker);
+            try {
+                if (result.isDone()) {
+                    return;
+                }
+                T value = call.call();
+                if (result.complete(value) && hedge) {
+                    hedgeWins.increment();
+                }
+            } catch (Throwable t) {
+                // 只有所有副本都失败时才把异常交给调用方
+                if (pendingCopies.decrementAndGet() == 0) {
+                    result.completeExceptionally(t);
+                }
+            } finally {
+                // 与 interruptWorkers 互斥：移出之后不会再被中断，清除可能残留的中断标记再归还线程
+                synchronized (workers) {
+                    workers.remove(worker);
+                }
+                Thread.interrupted();
+            }
+        });
+    }
+    
+    private static void interruptWorkers(Set<Thread> workers) {
+        synchronized (workers) {
+            for (Thread worker : workers) {
+                worker.interrupt();
+            }
+        }
+    }
+    
+    /**
+     * 熔断和舱壁拒绝从不重试，否则会在故障期间放大流量
+     */
+    private boolean isRetryable(RuntimeException e, boolean idempotent) {
+        if (e instanceof ProviderUnavailableException unavailable) {
+            return idempotent && unavailable.getReason() == ProviderUnavailableException.Reason.TIMEOUT;
+        }
+        if (e instanceof HttpServerErrorException serverError) {
+            if (idempotent) {
+                return true;
+            }
+            HttpStatus status = HttpStatus.resolve(serverError.getStatusCode().value());
+            return status == HttpStatus.BAD_GATEWAY
+                || status == HttpStatus.SERVICE_UNAVAILABLE
+                || status == HttpStatus.GATEWAY_TIMEOUT;
+        }
+        if (e instanceof ResourceAccessException) {
+            return idempotent || e.getCause() instanceof ConnectException;
+        }
+        return false;
+    }
+    
+    /**
+     * 全抖动退避：在 [0, min(maxBackoff, initial * multiplier^(attempt-1))] 内均匀取值
+     */
+    private static long backoffMillis(int attempt, ResilienceProperties.Retry retry) {
+        double exponential = retry.getInitialBackoff().toMillis() * Math.pow(retry.getBackoffMultiplier(), attempt - 1);
+        long cap = (long) Math.min(retry.getMaxBackoff().toMillis(), exponential);
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Retry backoff interrupted", e);
+        }
+    }
+    
+    private void onSuccess(long latencyMillis) {
+        successCalls.increment();
+        circuitBreaker.onSuccess();
+        
+        long samples = latencyTracker.record(latencyMillis);
+        if (samples % TIMEOUT_RECALCULATION_INTERVAL == 0) {
+            recalculateDelays();
+        }
+    }
+    
+    /**
+     * 超时 = 观测延迟百分位 × 放大倍数，并限制在 [minTimeout, maxTimeout] 之间；
+     * 对冲延迟 = 观测延迟的对冲百分位，不低于 minDelay
+     */
+    private void recalculateDelays() {
+        long observed = latencyTracker.percentile(policy.getTimeoutPercentile());
+        if (observed < 0) {
+            return;
+        }
+        long adaptive = (long) (observed * policy.getTimeoutMultiplier());
+        long bounded = Math.max(policy.getMinTimeout().toMillis(), Math.min(adaptive, policy.getMaxTimeout().toMillis()));
+        timeoutMillis.set(bounded);
+        
+        if (policy.getHedge().isEnabled()) {
+            long hedgeDelay = latencyTracker.percentile(policy.getHedge().getDelayPercentile());
+            hedgeDelayMillis.set(Math.max(policy.getHedge().getMinDelay().toMillis(), hedgeDelay));
+        }
+    }
+    
+    public AuthProvider getProvider() {
+        return provider;
+    }
+    
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+    
+    public long getTimeoutMillis() {
+        return timeoutMillis.get();
+    }
+    
+    public long getHedgeDelayMillis() {
+        return hedgeDelayMillis.get();
+    }
+    
+    public int getActiveCalls() {
+        return bulkhead.getActiveCount();
+    }
+    
+    public int getWaitingCalls() {
+        return bulkhead.getQueue().size();
+    }
+    
+    public long getSuccessCalls() {
+        return successCalls.sum();
+    }
+    
+    public long getFailedCalls() {
+        return failedCalls.sum();
+    }
+    
+    public long getTimedOutCalls() {
+        return timedOutCalls.sum();
+    }
+    
+    public long getRejectedCalls() {
+        return rejectedCalls.sum();
+    }
+    
+    public long getShortCircuitedCalls() {
+        return shortCircuitedCalls.sum();
+    }
+    
+    public long getRetries() {
+        return retries.sum();
+    }
+    
+    public long getHedges() {
+        return hedges.sum();
+    }
+    
+    public long getHedgeWins() {
+        return hedgeWins.sum();
+    }
+    
+    public double getRetryBudgetBalance() {
+        return retryBudget.getBalance();
+    }
+    
+    public void shutdown() {
+        bulkhead.shutdownNow();
+    }
+}
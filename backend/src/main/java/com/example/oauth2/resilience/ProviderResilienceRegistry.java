@@ -0,0 +1,94 @@
+package com.example.oauth2.resilience;
+
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.service.OAuth2Service;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 按提供商管理弹性执行器，并将熔断状态、失败率、超时等指标注册到 Micrometer
+ * 
+ * 指标通过 /actuator/metrics/oauth2.provider.* 查看，均带有 provider 标签。
+ */
+@Component
+public class ProviderResilienceRegistry {
+    
+    @Autowired
+    private ResilienceProperties resilienceProperties;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private final Map<AuthProvider, ProviderResilience> resiliences = new EnumMap<>(AuthProvider.class);
+    
+    public synchronized ProviderResilience get(AuthProvider provider) {
+        return resiliences.computeIfAbsent(provider, this::create);
+    }
+    
+    public OAuth2Service decorate(AuthProvider provider, OAuth2Service service) {
+        return new ResilientOAuth2Service(service, get(provider));
+    }
+    
+    private ProviderResilience create(AuthProvider provider) {
+        ProviderResilience resilience = new ProviderResilience(provider, resilienceProperties.policyFor(provider));
+        String tag = provider.name().toLowerCase();
+        
+        Gauge.builder("oauth2.provider.failure.rate", resilience, r -> r.getCircuitBreaker().getFailureRate())
+            .description("熔断窗口内的失败率（百分比）")
+            .tag("provider", tag)
+            .register(meterRegistry);
+        Gauge.builder("oauth2.provider.circuit.state", resilience, r -> r.getCircuitBreaker().getState().ordinal())
+            .description("熔断状态: 0=CLOSED, 1=HALF_OPEN, 2=OPEN")
+            .tag("provider", tag)
+            .register(meterRegistry);
+        Gauge.builder("oauth2.provider.timeout", resilience, ProviderResilience::getTimeoutMillis)
+            .description("当前自适应超时（毫秒）")
+            .tag("provider", tag)
+            .register(meterRegistry);
+        Gauge.builder("oauth2.provider.hedge.delay", resilience, ProviderResilience::getHedgeDelayMillis)
+            .description("当前对冲延迟（毫秒）")
+            .tag("provider", tag)
+            .register(meterRegistry);
+        Gauge.builder("oauth2.provider.retry.budget", resilience, ProviderResilience::getRetryBudgetBalance)
+            .description("剩余重试令牌")
+            .tag("provider", tag)
+            .register(meterRegistry);
+        Gauge.builder("oauth2.provider.bulkhead.active", resilience, ProviderResilience::getActiveCalls)
+            .tag("provider", tag)
+            .register(meterRegistry);
+        Gauge.builder("oauth2.provider.bulkhead.waiting", resilience, ProviderResilience::getWaitingCalls)
+            .tag("provider", tag)
+            .register(meterRegistry);
+        
+        registerCallCounter(resilience, tag, "success", ProviderResilience::getSuccessCalls);
+        registerCallCounter(resilience, tag, "failure", ProviderResilience::getFailedCalls);
+        registerCallCounter(resilience, tag, "timeout", ProviderResilience::getTimedOutCalls);
+        registerCallCounter(resilience, tag, "rejected", ProviderResilience::getRejectedCalls);
+        registerCallCounter(resilience, tag, "short_circuited", ProviderResilience::getShortCircuitedCalls);
+        registerCallCounter(resilience, tag, "retry", ProviderResilience::getRetries);
+        registerCallCounter(resilience, tag, "hedge", ProviderResilience::getHedges);
+        registerCallCounter(resilience, tag, "hedge_win", ProviderResilience::getHedgeWins);
+        
+        return resilience;
+    }
+    
+    private void registerCallCounter(ProviderResilience resilience, String provider, String outcome,
+                                     ToDoubleFunction<ProviderResilience> count) {
+        FunctionCounter.builder("oauth2.provider.calls", resilience, count)
+            .tag("provider", provider)
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+    
+    @PreDestroy
+    public synchronized void shutdown() {
+        resiliences.values().forEach(ProviderResilience::shutdown);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.oauth2.resilience;
+
+import com.example.oauth2.model.AuthProvider;
+import java.util.Locale;
+
+/**
+ * 提供商调用被弹性层快速拒绝
+ * 
+ * 消息保持为不含空格的短标识（例如 facebook_circuit_open），可直接作为回调重定向中的 error 参数。
+ */
+public class ProviderUnavailableException extends RuntimeException {
+    
+    public enum Reason {
+        CIRCUIT_OPEN,
+        BULKHEAD_FULL,
+        TIMEOUT
+    }
+    
+    private final AuthProvider provider;
+    private final Reason reason;
+    
+    public ProviderUnavailableException(AuthProvider provider, Reason reason) {
+        super(provider.name().toLowerCase(Locale.ROOT) + "_" + reason.name().toLowerCase(Locale.ROOT));
+        this.provider = provider;
+        this.reason = reason;
+    }
+    
+    public AuthProvider getProvider() {
+        return provider;
+    }
+    
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.oauth2.resilience;
+
+import com.example.oauth2.model.AuthProvider;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 提供商弹性策略配置
+ * 
+ * app.oauth2.resilience.providers.{google|facebook|apple|...}.*
+ * 未配置的提供商或字段使用 Policy 中的默认值。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.oauth2.resilience")
+public class ResilienceProperties {
+    
+    private Map<String, Policy> providers = new HashMap<>();
+    
+    public Policy policyFor(AuthProvider provider) {
+        Policy policy = providers.get(provider.name().toLowerCase(Locale.ROOT));
+        return policy != null ? policy : new Policy();
+    }
+    
+    @Data
+    public static class Policy {
+        /** 舱壁：同时进行的提供商调用上限 */
+        private int maxConcurrentCalls = 32;
+        /** 舱壁：排队等待的调用上限，超出直接拒绝 */
+        private int maxWaitingCalls = 16;
+        
+        /** 熔断：失败率阈值（百分比） */
+        private int failureRateThreshold = 50;
+        /** 熔断：统计最近多少次调用 */
+        private int slidingWindowSize = 50;
+        /** 熔断：窗口内至少多少次调用才计算失败率 */
+        private int minimumNumberOfCalls = 10;
+        /** 熔断：打开状态持续时间，之后进入半开 */
+        private Duration openStateDuration = Duration.ofSeconds(30);
+        /** 熔断：半开状态允许的探测调用数 */
+        private int permittedCallsInHalfOpenState = 3;
+        
+        /** 自适应超时：样本不足时使用的初始超时 */
+        private Duration initialTimeout = Duration.ofSeconds(5);
+        /** 自适应超时：下限 */
+        private Duration minTimeout = Duration.ofMillis(500);
+        /** 自适应超时：上限 */
+        private Duration maxTimeout = Duration.ofSeconds(10);
+        /** 自适应超时：以该百分位的观测延迟为基准 */
+        private double timeoutPercentile = 99.0;
+        /** 自适应超时：基准延迟的放大倍数 */
+        private double timeoutMultiplier = 2.0;
+        
+        private Retry retry = new Retry();
+        private Hedge hedge = new Hedge();
+    }
+    
+    /**
+     * 重试策略：指数退避 + 全抖动
+     * 
+     * 令牌交换只在请求确定未被处理时重试（连接失败、502/503/504），
+     * userinfo 等幂等调用在任意5xx、IO错误和超时后都会重试。
+     */
+    @Data
+    public static class Retry {
+        /** 包含首次调用在内的最大尝试次数，1表示不重试 */
+        private int maxAttempts = 3;
+        private Duration initialBackoff = Duration.ofMillis(100);
+        private Duration maxBackoff = Duration.ofSeconds(1);
+        private double backoffMultiplier = 2.0;
+        /** 重试预算：重试次数不超过原始调用的该比例 */
+        private double budgetRatio = 0.1;
+        /** 重试预算：可累积的最大重试令牌数 */
+        private int budgetBurst = 10;
+    }
+    
+    /**
+     * 对冲请求：仅用于幂等调用，首个请求超过 delay-percentile 延迟仍未返回时再发一个副本，取先返回者
+     */
+    @Data
+    public static class Hedge {
+        private boolean enabled = false;
+        /** 以该百分位的观测延迟作为对冲延迟 */
+        private double delayPercentile = 95.0;
+        /** 对冲延迟下限，同时作为样本不足时的默认值 */
+        private Duration minDelay = Duration.ofMillis(50);
+        /** 对冲预算：对冲请求不超过原始调用的该比例 */
+        private double budgetRatio = 0.05;
+        private int budgetBurst = 5;
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.oauth2.resilience;
+
+import com.example.oauth2.dto.OAuth2TokenResponse;
+import com.example.oauth2.dto.OAuth2UserInfo;
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.service.OAuth2Service;
+
+/**
+ * 为提供商服务的远程调用加上弹性保护的装饰器
+ * 
+ * buildAuthorizationUrl 只做本地字符串拼接，直接透传。
+ * 授权码只能使用一次，令牌交换按非幂等调用处理；userinfo 是幂等的，可重试和对冲。
+ */
+public class ResilientOAuth2Service implements OAuth2Service {
+    
+    private final OAuth2Service delegate;
+    private final ProviderResilience resilience;
+    
+    public ResilientOAuth2Service(OAuth2Service delegate, ProviderResilience resilience) {
+        this.delegate = delegate;
+        this.resilience = resilience;
+    }
+    
+    @Override
+    public AuthProvider getProvider() {
+        return delegate.getProvider();
+    }
+    
+    @Override
+    public String buildAuthorizationUrl(String redirectUri, String state, String codeChallenge, String codeChallengeMethod) {
+        return delegate.buildAuthorizationUrl(redirectUri, state, codeChallenge, codeChallengeMethod);
+    }
+    
+    @Override
+    public boolean supportsPkce() {
+        return delegate.supportsPkce();
+    }
+    
+    @Override
+    public String buildAuthorizationUrl(String redirectUri, String state, String nonce, String codeChallenge, String codeChallengeMethod) {
+        return delegate.buildAuthorizationUrl(redirectUri, state, nonce, codeChallenge, codeChallengeMethod);
+    }
+    
+    @Override
+    public OAuth2TokenResponse exchangeToken(String code, String redirectUri, String codeVerifier) {
+        return resilience.execute("exchangeToken", false, () -> delegate.exchangeToken(code, redirectUri, codeVerifier));
+    }
+    
+    @Override
+    public OAuth2TokenResponse exchangeToken(String code, String redirectUri) {
+        return resilience.execute("exchangeToken", false, () -> delegate.exchangeToken(code, redirectUri));
+    }
+    
+    @Override
+    public OAuth2UserInfo getUserInfo(String accessToken) {
+        return resilience.execute("getUserInfo", true, () -> delegate.getUserInfo(accessToken));
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.oauth2.resilience;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 重试/对冲预算
+ * 
+ * 每次原始调用存入 ratio 个令牌，每次重试（或对冲）取出1个令牌，余额上限为 burst。
+ * 因此长期来看额外请求不会超过原始请求的 ratio 倍，提供商故障时不会被重试放大。
+ * 余额以千分之一令牌为单位保存，避免浮点运算。
+ */
+public class RetryBudget {
+    
+    private static final long SCALE = 1000;
+    
+    private final long depositPerCall;
+    private final long maxBalance;
+    private final AtomicLong balance;
+    
+    public RetryBudget(double ratio, int burst) {
+        this.depositPerCall = (long) (ratio * SCALE);
+        this.maxBalance = Math.max(1, burst) * SCALE;
+        this.balance = new AtomicLong(maxBalance);
+    }
+    
+    public void deposit() {
+        balance.accumulateAndGet(depositPerCall, (current, deposit) -> Math.min(maxBalance, current + deposit));
+    }
+    
+    public boolean tryWithdraw() {
+        while (true) {
+            long current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+            if (balance.compareAndSet(current, current - SCALE)) {
+                return true;
+            }
+        }
+    }
+    
+    public double getBalance() {
+        return balance.get() / (double) SCALE;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.oauth2.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * /admin/**、/actuator/metrics/** 和令牌自省接口的 API Key 认证
+ * 
+ * 请求头 X-Admin-Key 与 app.admin.api-key 一致时授予 ROLE_ADMIN。
+ * 未配置 api-key 时管理接口全部拒绝。只在 SecurityConfig 中注册，不作为 Bean，
+ * 避免被 Spring Boot 重复注册到 Servlet 过滤器链。
+ */
+public class AdminApiKeyFilter extends OncePerRequestFilter {
+    
+    public static final String HEADER = "X-Admin-Key";
+    
+    private final byte[] apiKey;
+    
+    public AdminApiKeyFilter(String apiKey) {
+        this.apiKey = apiKey == null || apiKey.isBlank() ? null : apiKey.getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !uri.startsWith("/admin/") && !uri.startsWith("/actuator/metrics")
+            && !uri.startsWith(IntrospectionClientFilter.PATH);
+    }
+    
+    /**
+     * 导出接口使用 StreamingResponseBody，异步分派时同样需要认证
+     */
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String provided = request.getHeader(HEADER);
+        if (apiKey != null && provided != null
+                && MessageDigest.isEqual(apiKey, provided.getBytes(StandardCharsets.UTF_8))) {
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                "admin", null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))
+            );
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(authentication);
+            SecurityContextHolder.setContext(context);
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.oauth2.security;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * id_token 的本地声明校验
+ * 
+ * id_token 由后端通过TLS直接从提供商令牌端点获取，按 OpenID Connect Core 3.1.3.7，
+ * 此时可以用TLS服务端认证代替签名校验，只需校验 iss、aud、exp（以及 nonce）。
+ * 校验完全在本地完成，不需要额外的网络请求。
+ */
+@Component
+public class IdTokenVerifier {
+    
+    private static final long CLOCK_SKEW_SECONDS = 60;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    /**
+     * @param expectedNonce 授权请求时发送的 nonce，为空时跳过 nonce 校验
+     */
+    public Map<String, Object> verify(String idToken, Set<String> issuers, String audience, String expectedNonce) {
+        Map<String, Object> claims = decodeClaims(idToken);
+        
+        Object issuer = claims.get("iss");
+        if (!issuers.contains(issuer)) {
+            throw new IllegalStateException("id_token issuer mismatch: " + issuer);
+        }
+        
+        Object aud = claims.get("aud");
+        boolean audienceMatches = aud instanceof Collection<?> audiences
+            ? audiences.contains(audience)
+            : audience.equals(aud);
+        if (!audienceMatches) {
+            throw new IllegalStateException("id_token audience mismatch");
+        }
+        
+        Object exp = claims.get("exp");
+        long now = System.currentTimeMillis() / 1000;
+        if (!(exp instanceof Number expiry) || expiry.longValue() + CLOCK_SKEW_SECONDS < now) {
+            throw new IllegalStateException("id_token expired");
+        }
+        
+        if (expectedNonce != null && !expectedNonce.equals(claims.get("nonce"))) {
+            throw new IllegalStateException("id_token nonce mismatch");
+        }
+        
+        return claims;
+    }
+    
+    private Map<String, Object> decodeClaims(String idToken) {
+        String[] parts = idToken.split("\\.");
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Malformed id_token");
+        }
+        try {
+            byte[] payload = Base64.getUrlDecoder().decode(parts[1]);
+            return objectMapper.readValue(payload, new TypeReference<Map<String, Object>>() {});
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Malformed id_token", e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.oauth2.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /auth/introspect 的客户端认证
+ * 
+ * Authorization: Basic 中的 clientId/secret 与 app.auth.introspection.clients 一致时授予 ROLE_INTROSPECTION。
+ * 与 {@link AdminApiKeyFilter} 一样只在 SecurityConfig 中注册。
+ */
+public class IntrospectionClientFilter extends OncePerRequestFilter {
+    
+    public static final String PATH = "/auth/introspect";
+    
+    private static final String BASIC_PREFIX = "Basic ";
+    
+    private final Map<String, byte[]> secrets = new HashMap<>();
+    
+    public IntrospectionClientFilter(Map<String, String> clients) {
+        clients.forEach((clientId, secret) -> {
+            if (secret != null && !secret.isBlank()) {
+                secrets.put(clientId, secret.getBytes(StandardCharsets.UTF_8));
+            }
+        });
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith(PATH);
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String clientId = authenticate(request.getHeader(HttpHeaders.AUTHORIZATION));
+        if (clientId != null) {
+            UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                clientId, null, List.of(new SimpleGrantedAuthority("ROLE_INTROSPECTION"))
+            );
+            SecurityContext context = SecurityContextHolder.createEmptyContext();
+            context.setAuthentication(authentication);
+            SecurityContextHolder.setContext(context);
+        }
+        filterChain.doFilter(request, response);
+    }
+    
+    /**
+     * @return 认证通过的 clientId，否则返回 null
+     */
+    private String authenticate(String authorization) {
+        if (secrets.isEmpty() || authorization == null || !authorization.startsWith(BASIC_PREFIX)) {
+            return null;
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getDecoder().decode(authorization.substring(BASIC_PREFIX.length()).trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int colon = decoded.indexOf(':');
+        if (colon <= 0) {
+            return null;
+        }
+        byte[] expected = secrets.get(decoded.substring(0, colon));
+        byte[] provided = decoded.substring(colon + 1).getBytes(StandardCharsets.UTF_8);
+        return expected != null && MessageDigest.isEqual(expected, provided) ? decoded.substring(0, colon) : null;
+    }
+}
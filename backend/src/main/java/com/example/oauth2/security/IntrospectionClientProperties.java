@@ -0,0 +1,20 @@
+package com.example.oauth2.security;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 允许调用令牌自省接口的客户端：app.auth.introspection.clients.{clientId}={secret}
+ * 
+ * 调用方以 HTTP Basic 携带 clientId/secret（RFC 7662），也可以使用管理 API Key。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.auth.introspection")
+public class IntrospectionClientProperties {
+    
+    private Map<String, String> clients = new HashMap<>();
+}
@@ -0,0 +1,90 @@
+package com.example.oauth2.security;
+
+import org.springframework.stereotype.Component;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * 服务端生成 state、nonce 和 PKCE 参数
+ * 
+ * 每个线程持有独立的 SecureRandom，优先使用不会因熵池阻塞的 NativePRNGNonBlocking，
+ * 避免共享实例上的锁竞争；输出统一使用无填充的 base64url 编码。
+ */
+@Component
+public class OAuth2ParameterGenerator {
+    
+    /** 128 位随机数，编码后 22 个字符 */
+    private static final int STATE_BYTES = 16;
+    private static final int NONCE_BYTES = 16;
+    /** 256 位随机数，编码后 43 个字符，满足 RFC 7636 对 code_verifier 的最小长度 */
+    private static final int CODE_VERIFIER_BYTES = 32;
+    
+    public static final String S256 = "S256";
+    public static final String PLAIN = "plain";
+    
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    
+    private static final ThreadLocal<SecureRandom> RANDOM = ThreadLocal.withInitial(OAuth2ParameterGenerator::createSecureRandom);
+    
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+    
+    public record Pkce(String codeVerifier, String codeChallenge) {
+    }
+    
+    public String newState() {
+        return randomToken(STATE_BYTES);
+    }
+    
+    public String newNonce() {
+        return randomToken(NONCE_BYTES);
+    }
+    
+    public Pkce newPkce() {
+        String codeVerifier = randomToken(CODE_VERIFIER_BYTES);
+        return new Pkce(codeVerifier, s256(codeVerifier));
+    }
+    
+    /**
+     * 校验 code_verifier 与授权时保存的 code_challenge 是否匹配
+     */
+    public boolean verifyPkce(String codeVerifier, String codeChallenge, String codeChallengeMethod) {
+        if (codeVerifier == null || codeChallenge == null) {
+            return false;
+        }
+        String expected = PLAIN.equals(codeChallengeMethod) ? codeVerifier : s256(codeVerifier);
+        return MessageDigest.isEqual(
+            expected.getBytes(StandardCharsets.US_ASCII),
+            codeChallenge.getBytes(StandardCharsets.US_ASCII)
+        );
+    }
+    
+    public static String s256(String codeVerifier) {
+        MessageDigest digest = SHA256.get();
+        digest.reset();
+        return ENCODER.encodeToString(digest.digest(codeVerifier.getBytes(StandardCharsets.US_ASCII)));
+    }
+    
+    private static String randomToken(int bytes) {
+        byte[] buffer = new byte[bytes];
+        RANDOM.get().nextBytes(buffer);
+        return ENCODER.encodeToString(buffer);
+    }
+    
+    private static SecureRandom createSecureRandom() {
+        try {
+            return SecureRandom.getInstance("NativePRNGNonBlocking");
+        } catch (NoSuchAlgorithmException e) {
+            // Windows 等平台没有 NativePRNG，回退到默认实现
+            return new SecureRandom();
+        }
+    }
+}
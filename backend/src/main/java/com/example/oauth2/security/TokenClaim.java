@@ -0,0 +1,32 @@
+package com.example.oauth2.security;
+
+/**
+ * 可选的JWT自定义声明及其短键名
+ * 
+ * 解析时同时识别完整键名和短键名，切换配置后已签发的令牌仍可读取。
+ */
+public enum TokenClaim {
+    PLATFORM("platform", "p"),
+    EMAIL("email", "e"),
+    NAME("name", "n");
+    
+    private final String fullKey;
+    private final String shortKey;
+    
+    TokenClaim(String fullKey, String shortKey) {
+        this.fullKey = fullKey;
+        this.shortKey = shortKey;
+    }
+    
+    public String getFullKey() {
+        return fullKey;
+    }
+    
+    public String getShortKey() {
+        return shortKey;
+    }
+    
+    public String key(boolean shortKeys) {
+        return shortKeys ? shortKey : fullKey;
+    }
+}
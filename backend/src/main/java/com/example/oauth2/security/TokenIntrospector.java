@@ -0,0 +1,84 @@
+package com.example.oauth2.security;
+
+import com.example.oauth2.dto.IntrospectionResponse;
+import com.example.oauth2.dto.UserDTO;
+import com.example.oauth2.service.UserProjectionCache;
+import com.example.oauth2.session.SessionRegistry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import java.util.Optional;
+
+/**
+ * 校验本服务签发的JWT，并用本地用户投影补全用户信息
+ * 
+ * 令牌的会话已登出（或被同设备的新登录替换、超出会话上限被淘汰）时视为无效。
+ */
+@Component
+public class TokenIntrospector {
+    
+    @Autowired
+    private TokenProvider tokenProvider;
+    
+    @Autowired
+    private UserProjectionCache userProjectionCache;
+    
+    @Autowired
+    private SessionRegistry sessionRegistry;
+    
+    public IntrospectionResponse introspect(String token) {
+        Claims claims = parse(token);
+        if (claims == null) {
+            return IntrospectionResponse.inactive();
+        }
+        
+        Optional<UserDTO> user = userProjectionCache.get(Long.parseLong(claims.getSubject()));
+        if (user.isEmpty()) {
+            return IntrospectionResponse.inactive();
+        }
+        
+        return IntrospectionResponse.builder()
+            .active(true)
+            .sub(claims.getSubject())
+            .iat(claims.getIssuedAt().getTime() / 1000)
+            .exp(claims.getExpiration().getTime() / 1000)
+            .platform(TokenProvider.getClaim(claims, TokenClaim.PLATFORM))
+            .sid(claims.get(TokenProvider.SESSION_ID_CLAIM, String.class))
+            .name(user.get().getName())
+            .email(user.get().getEmail())
+            .build();
+    }
+    
+    /**
+     * 返回令牌的声明，令牌无效或会话已登出时为空
+     */
+    public Optional<Claims> activeClaims(String token) {
+        return Optional.ofNullable(parse(token));
+    }
+    
+    /**
+     * 返回令牌对应的用户，令牌无效或用户不存在时为空
+     */
+    public Optional<UserDTO> currentUser(String token) {
+        Claims claims = parse(token);
+        if (claims == null) {
+            return Optional.empty();
+        }
+        return userProjectionCache.get(Long.parseLong(claims.getSubject()));
+    }
+    
+    private Claims parse(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        Claims claims;
+        try {
+            claims = tokenProvider.parseClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        long userId = Long.parseLong(claims.getSubject());
+        return sessionRegistry.isActive(userId, TokenProvider.getSessionId(claims)) ? claims : null;
+    }
+}
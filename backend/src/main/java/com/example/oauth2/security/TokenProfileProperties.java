@@ -0,0 +1,53 @@
+package com.example.oauth2.security;
+
+import com.example.oauth2.model.ClientPlatform;
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 按平台配置JWT内容：app.auth.jwt.profiles.{平台名或平台组}.*
+ * 
+ * 先按平台名（如 ios）查找，再按平台组（web、mobile、miniapp）查找，都没有时使用默认值（完整声明、HS512）。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.auth.jwt")
+public class TokenProfileProperties {
+    
+    private Map<String, Profile> profiles = new HashMap<>();
+    
+    public Profile profileFor(ClientPlatform platform) {
+        Profile profile = profiles.get(platform.name().toLowerCase(Locale.ROOT));
+        if (profile == null) {
+            profile = profiles.get(group(platform));
+        }
+        return profile != null ? profile : new Profile();
+    }
+    
+    private static String group(ClientPlatform platform) {
+        return switch (platform) {
+            case WEB, H5 -> "web";
+            case IOS, ANDROID -> "mobile";
+            case WECHAT_MINIAPP, DOUYIN_MINIAPP -> "miniapp";
+        };
+    }
+    
+    @Data
+    public static class Profile {
+        /** 签名算法，仅支持 HS256、HS384、HS512 */
+        private SignatureAlgorithm algorithm = SignatureAlgorithm.HS512;
+        /** 除 sub、iat、exp 外写入令牌的声明 */
+        private List<TokenClaim> claims = new ArrayList<>(List.of(TokenClaim.PLATFORM, TokenClaim.EMAIL, TokenClaim.NAME));
+        /** 使用单字母键名 */
+        private boolean shortKeys = false;
+        /** DEFLATE 压缩载荷，声明较少时压缩后反而更长，且客户端无法直接解码载荷 */
+        private boolean compress = false;
+    }
+}
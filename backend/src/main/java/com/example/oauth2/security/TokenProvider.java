@@ -3,15 +3,27 @@ package com.example.oauth2.security;
 import com.example.oauth2.model.ClientPlatform;
 import com.example.oauth2.model.User;
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 @Component
 public class TokenProvider {
     
+    /** 会话ID声明（与 OIDC 的 sid 同名），由 SessionRegistry 分配，始终写入，不受令牌配置影响 */
+    public static final String SESSION_ID_CLAIM = "sid";
+    
+    private static final List<SignatureAlgorithm> HMAC_ALGORITHMS =
+        List.of(SignatureAlgorithm.HS256, SignatureAlgorithm.HS384, SignatureAlgorithm.HS512);
+    
     @Value("${app.auth.jwt.secret}")
     private String tokenSecret;
     
@@ -24,46 +36,134 @@ public class TokenProvider {
     @Value("${app.auth.jwt.expiration.miniapp}")
     private long miniappExpiration;
     
+    @Autowired
+    private TokenProfileProperties profileProperties;
+    
+    private final Map<SignatureAlgorithm, Key> keys = new EnumMap<>(SignatureAlgorithm.class);
+    private final Map<ClientPlatform, TokenProfileProperties.Profile> profiles = new EnumMap<>(ClientPlatform.class);
+    private JwtParser parser;
+    
+    /**
+     * 密钥和解析器只创建一次；所有 HMAC 算法的密钥都注册到解析器，
+     * 修改某个平台的签名算法后，之前签发的令牌在过期前仍然有效
+     */
+    @PostConstruct
+    public void init() {
+        byte[] secret = tokenSecret.getBytes(StandardCharsets.UTF_8);
+        for (SignatureAlgorithm algorithm : HMAC_ALGORITHMS) {
+            keys.put(algorithm, new SecretKeySpec(secret, algorithm.getJcaName()));
+        }
+        
+        for (ClientPlatform platform : ClientPlatform.values()) {
+            TokenProfileProperties.Profile profile = profileProperties.profileFor(platform);
+            if (!keys.containsKey(profile.getAlgorithm())) {
+                throw new IllegalStateException("Unsupported JWT algorithm for " + platform + ": " + profile.getAlgorithm());
+            }
+            profiles.put(platform, profile);
+        }
+        
+        parser = Jwts.parserBuilder()
+            .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                @Override
+                public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                    Key key = keys.get(SignatureAlgorithm.forName(header.getAlgorithm()));
+                    if (key == null) {
+                        throw new UnsupportedJwtException("Unsupported JWT algorithm: " + header.getAlgorithm());
+                    }
+                    return key;
+                }
+            })
+            .build();
+    }
+    
     public String createToken(User user, ClientPlatform platform) {
+        return createToken(user, platform, 0);
+    }
+    
+    /**
+     * @param sessionId 会话ID，0 表示不写入 sid 声明
+     */
+    public String createToken(User user, ClientPlatform platform, long sessionId) {
+        TokenProfileProperties.Profile profile = profiles.get(platform);
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + getExpirationTime(platform));
         
-        Key key = Keys.hmacShaKeyFor(tokenSecret.getBytes());
-        
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
             .setSubject(Long.toString(user.getId()))
-            .claim("platform", platform.name())
-            .claim("email", user.getEmail())
-            .claim("name", user.getName())
             .setIssuedAt(now)
-            .setExpiration(expiryDate)
-            .signWith(key, SignatureAlgorithm.HS512)
+            .setExpiration(expiryDate);
+        
+        if (sessionId != 0) {
+            builder.claim(SESSION_ID_CLAIM, Long.toString(sessionId, 36));
+        }
+        
+        for (TokenClaim claim : profile.getClaims()) {
+            Object value = switch (claim) {
+                case PLATFORM -> platform.name();
+                case EMAIL -> user.getEmail();
+                case NAME -> user.getName();
+            };
+            if (value != null) {
+                builder.claim(claim.key(profile.isShortKeys()), value);
+            }
+        }
+        
+        if (profile.isCompress()) {
+            builder.compressWith(CompressionCodecs.DEFLATE);
+        }
+        
+        return builder
+            .signWith(keys.get(profile.getAlgorithm()), profile.getAlgorithm())
             .compact();
     }
     
+    /**
+     * 校验签名和有效期并返回声明，失败时抛出 JwtException
+     */
+    public Claims parseClaims(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+    
+    /**
+     * 读取自定义声明，兼容完整键名和短键名
+     */
+    public static String getClaim(Claims claims, TokenClaim claim) {
+        Object value = claims.get(claim.getShortKey());
+        if (value == null) {
+            value = claims.get(claim.getFullKey());
+        }
+        return value != null ? value.toString() : null;
+    }
+    
+    /**
+     * 读取会话ID，没有 sid 声明（功能上线前签发的令牌）或格式不对时返回 0
+     */
+    public static long getSessionId(Claims claims) {
+        Object value = claims.get(SESSION_ID_CLAIM);
+        if (value == null) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value.toString(), 36);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+    
     public Long getUserIdFromToken(String token) {
-        Key key = Keys.hmacShaKeyFor(tokenSecret.getBytes());
-        
-        Claims claims = Jwts.parserBuilder()
-            .setSigningKey(key)
-            .build()
-            .parseClaimsJws(token)
-            .getBody();
-        
-        return Long.parseLong(claims.getSubject());
+        return Long.parseLong(parseClaims(token).getSubject());
     }
     
     public boolean validateToken(String authToken) {
         try {
-            Key key = Keys.hmacShaKeyFor(tokenSecret.getBytes());
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(authToken);
+            parseClaims(authToken);
             return true;
         } catch (JwtException | IllegalArgumentException ex) {
             return false;
         }
     }
     
-    private long getExpirationTime(ClientPlatform platform) {
+    public long getExpirationTime(ClientPlatform platform) {
         return switch (platform) {
             case WEB, H5 -> webExpiration;
             case IOS, ANDROID -> mobileExpiration;
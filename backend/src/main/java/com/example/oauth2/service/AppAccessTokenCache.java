@@ -0,0 +1,159 @@
+package com.example.oauth2.service;
+
+import com.example.oauth2.model.AuthProvider;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 小程序平台应用级 access_token 的进程内缓存
+ * 
+ * 小程序平台（目前为微信）对获取 access_token 的频率限制很严格，这里保证：
+ * 同一提供商同时只有一个刷新请求，并发调用方共享其结果；
+ * 后台定期检查，令牌在过期前 refresh-ahead 内提前刷新，请求路径通常直接命中缓存；
+ * 刷新失败时继续使用尚未过期的旧令牌，由下一次检查重试。
+ */
+@Component
+public class AppAccessTokenCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AppAccessTokenCache.class);
+    
+    @Value("${app.oauth2.app-token.refresh-ahead:5m}")
+    private Duration refreshAhead;
+    
+    @Value("${app.oauth2.app-token.check-interval:30s}")
+    private Duration checkInterval;
+    
+    private final Map<AuthProvider, Loader> loaders = new ConcurrentHashMap<>();
+    private final Map<AuthProvider, AppAccessToken> tokens = new ConcurrentHashMap<>();
+    private final Map<AuthProvider, CompletableFuture<AppAccessToken>> inFlight = new ConcurrentHashMap<>();
+    
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "app-token-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    @PostConstruct
+    public void init() {
+        long intervalMillis = checkInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::refreshExpiring, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+    
+    /**
+     * 提供商服务在初始化时注册获取令牌的方法
+     */
+    public void register(AuthProvider provider, Loader loader) {
+        loaders.put(provider, loader);
+    }
+    
+    /**
+     * 返回有效的 access_token，缓存为空或已过期时同步等待刷新
+     */
+    public String get(AuthProvider provider) {
+        AppAccessToken token = tokens.get(provider);
+        if (token != null && !token.isExpired(System.currentTimeMillis())) {
+            return token.value();
+        }
+        try {
+            return refresh(provider).join().value();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("Failed to load app access token for " + provider, cause);
+        }
+    }
+    
+    /**
+     * 平台返回令牌失效时调用；只有被拒绝的令牌仍是当前缓存值时才丢弃，
+     * 避免多个请求拿着同一个旧令牌失败后重复触发刷新
+     */
+    public void invalidate(AuthProvider provider, String rejectedToken) {
+        AppAccessToken token = tokens.get(provider);
+        if (token != null && token.value().equals(rejectedToken)) {
+            tokens.remove(provider, token);
+            logger.warn("{} access_token 被平台拒绝，已丢弃缓存", provider);
+        }
+    }
+    
+    /**
+     * 应用凭证变更后丢弃缓存的令牌，下次使用时按新凭证获取
+     */
+    public void evict(AuthProvider provider) {
+        if (tokens.remove(provider) != null) {
+            logger.info("{} 应用凭证已变更，丢弃缓存的 access_token", provider);
+        }
+    }
+    
+    /**
+     * 发起刷新；已有刷新在进行时直接返回同一个 Future
+     */
+    public CompletableFuture<AppAccessToken> refresh(AuthProvider provider) {
+        Loader loader = loaders.get(provider);
+        if (loader == null) {
+            return CompletableFuture.failedFuture(
+                new UnsupportedOperationException("No app access token loader for " + provider));
+        }
+        
+        CompletableFuture<AppAccessToken> created = new CompletableFuture<>();
+        CompletableFuture<AppAccessToken> existing = inFlight.putIfAbsent(provider, created);
+        if (existing != null) {
+            return existing;
+        }
+        
+        Thread.ofVirtual().name("app-token-load-" + provider.name().toLowerCase(Locale.ROOT)).start(() -> {
+            try {
+                AppAccessToken token = loader.load();
+                tokens.put(provider, token);
+                logger.info("{} access_token 已刷新, 有效期至 {}", provider, token.expiresAtMillis());
+                created.complete(token);
+            } catch (Throwable e) {
+                logger.error("{} access_token 刷新失败: {}", provider, e.getMessage());
+                created.completeExceptionally(e);
+            } finally {
+                inFlight.remove(provider, created);
+            }
+        });
+        return created;
+    }
+    
+    private void refreshExpiring() {
+        long refreshBefore = System.currentTimeMillis() + refreshAhead.toMillis();
+        tokens.forEach((provider, token) -> {
+            if (token.expiresAtMillis() <= refreshBefore) {
+                refresh(provider);
+            }
+        });
+    }
+    
+    public record AppAccessToken(String value, long expiresAtMillis) {
+        
+        public boolean isExpired(long nowMillis) {
+            return nowMillis >= expiresAtMillis;
+        }
+    }
+    
+    @FunctionalInterface
+    public interface Loader {
+        AppAccessToken load();
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.oauth2.service;
+
+import org.springframework.web.util.UriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * 预编译的授权URL模板
+ * 
+ * authorization-uri 和 client_id、scope、response_type 等常量参数在启动时解析并编码一次，
+ * 每次 /authorize 请求只追加 state、redirect_uri、PKCE 等变化的参数。
+ * 变化参数的编码方式与 UriComponentsBuilder#toUriString 对查询参数的编码一致。
+ */
+public final class AuthorizationUrlTemplate {
+    
+    private final String prefix;
+    private final boolean hasQuery;
+    
+    private AuthorizationUrlTemplate(String prefix) {
+        this.prefix = prefix;
+        this.hasQuery = prefix.indexOf('?') >= 0;
+    }
+    
+    /**
+     * @param constantParams 按插入顺序追加的常量参数
+     */
+    public static AuthorizationUrlTemplate compile(String authorizationUri, Map<String, String> constantParams) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(authorizationUri);
+        constantParams.forEach(builder::queryParam);
+        return new AuthorizationUrlTemplate(builder.toUriString());
+    }
+    
+    public UrlBuilder newUrl() {
+        return new UrlBuilder();
+    }
+    
+    public class UrlBuilder {
+        
+        private final StringBuilder url = new StringBuilder(prefix.length() + 256).append(prefix);
+        private boolean first = !hasQuery;
+        
+        /**
+         * 追加一个参数，值为空时跳过
+         */
+        public UrlBuilder param(String name, String value) {
+            if (value == null) {
+                return this;
+            }
+            url.append(first ? '?' : '&')
+               .append(name)
+               .append('=')
+               .append(UriUtils.encodeQueryParam(value, StandardCharsets.UTF_8));
+            first = false;
+            return this;
+        }
+        
+        public String build() {
+            return url.toString();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.oauth2.service;
+
+import com.example.oauth2.dto.OAuth2UserInfo;
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.model.ClientPlatform;
+import com.example.oauth2.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 (provider, providerUserId) 合并并发的 findOrCreateUser
+ * 
+ * 双击、重试、多标签页登录会让同一身份的回调同时到达：
+ * 进程内同一身份只有一个请求访问数据库，其余请求等待并共享其结果（登录事件也只记录一次）；
+ * 多节点部署可开启 Redis 锁，让不同节点上的同一身份串行执行；
+ * 仍然发生唯一约束冲突时（锁超时或 Redis 不可用），重新执行一次，此时会走已存在身份的路径。
+ */
+@Component
+public class IdentityResolver {
+    
+    private static final Logger logger = LoggerFactory.getLogger(IdentityResolver.class);
+    
+    private static final String LOCK_PREFIX = "oauth2:identity-lock:";
+    private static final long LOCK_POLL_MILLIS = 20;
+    
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+        "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+        Long.class
+    );
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${app.identity.redis-lock.enabled:false}")
+    private boolean redisLockEnabled;
+    
+    @Value("${app.identity.redis-lock.ttl:10s}")
+    private Duration lockTtl;
+    
+    @Value("${app.identity.redis-lock.wait:3s}")
+    private Duration lockWait;
+    
+    private final Map<String, CompletableFuture<User>> inFlight = new ConcurrentHashMap<>();
+    
+    private Counter resolvedCounter;
+    private Counter coalescedCounter;
+    private Counter retriedCounter;
+    
+    @PostConstruct
+    public void init() {
+        resolvedCounter = Counter.builder("oauth2.identity.resolutions").tag("outcome", "resolved").register(meterRegistry);
+        coalescedCounter = Counter.builder("oauth2.identity.resolutions").tag("outcome", "coalesced").register(meterRegistry);
+        retriedCounter = Counter.builder("oauth2.identity.resolutions").tag("outcome", "retried").register(meterRegistry);
+    }
+    
+    public User resolve(OAuth2UserInfo userInfo, AuthProvider provider, ClientPlatform platform) {
+        String key = provider.name() + ":" + userInfo.getId();
+        
+        CompletableFuture<User> created = new CompletableFuture<>();
+        CompletableFuture<User> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            coalescedCounter.increment();
+            return join(existing);
+        }
+        
+        try {
+            User user = resolveWithLock(key, userInfo, provider, platform);
+            resolvedCounter.increment();
+            created.complete(user);
+            return user;
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+    
+    private User resolveWithLock(String key, OAuth2UserInfo userInfo, AuthProvider provider, ClientPlatform platform) {
+        String lockToken = redisLockEnabled ? acquireLock(key) : null;
+        try {
+            return findOrCreate(key, userInfo, provider, platform);
+        } finally {
+            if (lockToken != null) {
+                releaseLock(key, lockToken);
+            }
+        }
+    }
+    
+    private User findOrCreate(String key, OAuth2UserInfo userInfo, AuthProvider provider, ClientPlatform platform) {
+        try {
+            return userService.findOrCreateUser(userInfo, provider, platform);
+        } catch (DataIntegrityViolationException e) {
+            retriedCounter.increment();
+            logger.info("身份并发插入冲突, 重新查找: {}", key);
+            return userService.findOrCreateUser(userInfo, provider, platform);
+        }
+    }
+    
+    /**
+     * 在 wait 内轮询获取锁；超时或 Redis 不可用时返回 null，不加锁继续执行，由唯一约束兜底
+     */
+    private String acquireLock(String key) {
+        String token = UUID.randomUUID().toString();
+        long deadline = System.currentTimeMillis() + lockWait.toMillis();
+        try {
+            while (true) {
+                if (Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(LOCK_PREFIX + key, token, lockTtl))) {
+                    return token;
+                }
+                if (System.currentTimeMillis() >= deadline) {
+                    logger.warn("等待身份锁超时, 不加锁继续: {}", key);
+                    return null;
+                }
+                Thread.sleep(LOCK_POLL_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            logger.warn("获取身份锁失败, 不加锁继续: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    private void releaseLock(String key, String token) {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, List.of(LOCK_PREFIX + key), token);
+        } catch (Exception e) {
+            logger.debug("释放身份锁失败, 等待过期: {}", e.getMessage());
+        }
+    }
+    
+    private static User join(CompletableFuture<User> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.oauth2.service;
+
+import com.example.oauth2.model.AuthProvider;
+import java.util.Locale;
+
+/**
+ * 小程序平台接口返回非0错误码（微信 errcode、抖音 err_no）
+ * 
+ * 消息为不含空格的短标识（例如 wechat_error_40029），平台原始说明保存在 platformMessage。
+ */
+public class MiniappApiException extends RuntimeException {
+    
+    /** 错误码为0但响应中没有 openid，不是平台定义的错误码 */
+    public static final int MISSING_OPENID = -1;
+    
+    /** 错误码为0但响应中没有 access_token */
+    public static final int MISSING_ACCESS_TOKEN = -2;
+    
+    private final AuthProvider provider;
+    private final int errorCode;
+    private final String platformMessage;
+    
+    public MiniappApiException(AuthProvider provider, int errorCode, String platformMessage) {
+        super(provider.name().toLowerCase(Locale.ROOT) + "_error_" + errorCode);
+        this.provider = provider;
+        this.errorCode = errorCode;
+        this.platformMessage = platformMessage;
+    }
+    
+    public AuthProvider getProvider() {
+        return provider;
+    }
+    
+    public int getErrorCode() {
+        return errorCode;
+    }
+    
+    public String getPlatformMessage() {
+        return platformMessage;
+    }
+}
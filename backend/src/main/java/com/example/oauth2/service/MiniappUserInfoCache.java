@@ -0,0 +1,53 @@
+package com.example.oauth2.service;
+
+import com.example.oauth2.dto.OAuth2UserInfo;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 小程序 code2session 结果的短期缓存
+ * 
+ * 小程序没有用户级 access_token，用户信息随 code2session 一起返回。令牌交换时签发一个一次性句柄作为
+ * access_token，{@link OAuth2Service#getUserInfo} 凭句柄取回同一份用户信息；未被取走的条目到期丢弃。
+ */
+@Component
+public class MiniappUserInfoCache {
+    
+    private static final Duration TTL = Duration.ofMinutes(5);
+    private static final int MAX_SIZE = 10_000;
+    
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    
+    /**
+     * @return 用作 access_token 的一次性句柄
+     */
+    public String put(OAuth2UserInfo userInfo) {
+        long now = System.currentTimeMillis();
+        if (entries.size() >= MAX_SIZE) {
+            entries.values().removeIf(e -> e.expiresAt() <= now);
+        }
+        String handle = UUID.randomUUID().toString();
+        // 清理后仍然已满时不缓存，之后按句柄取不到
+        if (entries.size() < MAX_SIZE) {
+            entries.put(handle, new Entry(userInfo, now + TTL.toMillis()));
+        }
+        return handle;
+    }
+    
+    /**
+     * 取出并删除，句柄无效或已过期时返回 null
+     */
+    public OAuth2UserInfo take(String handle) {
+        if (handle == null) {
+            return null;
+        }
+        Entry entry = entries.remove(handle);
+        return entry != null && entry.expiresAt() > System.currentTimeMillis() ? entry.userInfo() : null;
+    }
+    
+    private record Entry(OAuth2UserInfo userInfo, long expiresAt) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.oauth2.service;
+
+import com.example.oauth2.model.AuthProvider;
+
+/**
+ * 提供商的响应中无法得到可信的用户标识（例如 id_token 缺失或无法解析）
+ * 
+ * 不能用占位ID继续登录：身份按 providerUserId 匹配，所有失败的登录会落到同一个账号上。
+ */
+public class OAuth2AuthenticationException extends RuntimeException {
+    
+    private final AuthProvider provider;
+    
+    public OAuth2AuthenticationException(AuthProvider provider, String message) {
+        super(message);
+        this.provider = provider;
+    }
+    
+    public OAuth2AuthenticationException(AuthProvider provider, String message, Throwable cause) {
+        super(message, cause);
+        this.provider = provider;
+    }
+    
+    public AuthProvider getProvider() {
+        return provider;
+    }
+}
@@ -2,9 +2,32 @@ package com.example.oauth2.service;
 
 import com.example.oauth2.dto.OAuth2TokenResponse;
 import com.example.oauth2.dto.OAuth2UserInfo;
+import com.example.oauth2.model.AuthProvider;
 
 public interface OAuth2Service {
+    AuthProvider getProvider();
     String buildAuthorizationUrl(String redirectUri, String state, String codeChallenge, String codeChallengeMethod);
     OAuth2TokenResponse exchangeToken(String code, String redirectUri);
     OAuth2UserInfo getUserInfo(String accessToken);
+    
+    /**
+     * 是否在授权请求中发送 code_challenge；为 true 时服务端会为未自带PKCE的客户端生成 code_verifier
+     */
+    default boolean supportsPkce() {
+        return false;
+    }
+    
+    /**
+     * 带 OpenID Connect nonce 的授权URL，不支持 nonce 的提供商忽略该参数
+     */
+    default String buildAuthorizationUrl(String redirectUri, String state, String nonce, String codeChallenge, String codeChallengeMethod) {
+        return buildAuthorizationUrl(redirectUri, state, codeChallenge, codeChallengeMethod);
+    }
+    
+    /**
+     * 带 PKCE code_verifier 的令牌交换，codeVerifier 为空时等同于不带 PKCE
+     */
+    default OAuth2TokenResponse exchangeToken(String code, String redirectUri, String codeVerifier) {
+        return exchangeToken(code, redirectUri);
+    }
 }
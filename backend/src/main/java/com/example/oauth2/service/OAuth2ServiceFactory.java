@@ -2,24 +2,75 @@ package com.example.oauth2.service;
 
 import com.example.oauth2.model.AuthProvider;
 import com.example.oauth2.model.ClientPlatform;
+import com.example.oauth2.registry.ProviderRegistry;
+import com.example.oauth2.resilience.ProviderResilienceRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Primary;
 import org.springframework.stereotype.Service;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * 按 AuthProvider 查找提供商服务
+ * 
+ * 启动时根据各服务声明的 getProvider() 构建 EnumMap，并包装上弹性保护；
+ * 同一提供商有多个实现时（例如 dev 环境的 Apple Mock）优先使用 @Primary 的实现。
+ */
 @Service
 public class OAuth2ServiceFactory {
     
+    private static final Logger logger = LoggerFactory.getLogger(OAuth2ServiceFactory.class);
+    
     @Autowired
     private Map<String, OAuth2Service> serviceMap;
     
-    public OAuth2Service getService(AuthProvider provider, ClientPlatform platform) {
-        String key = provider.name().toLowerCase() + "OAuth2Service";
+    @Autowired
+    private ApplicationContext applicationContext;
+    
+    @Autowired
+    private ProviderResilienceRegistry resilienceRegistry;
+    
+    @Autowired
+    private ProviderRegistry providerRegistry;
+    
+    private final Map<AuthProvider, OAuth2Service> services = new EnumMap<>(AuthProvider.class);
+    
+    @PostConstruct
+    public void init() {
+        Map<AuthProvider, String> selectedBeans = new HashMap<>();
+        Map<AuthProvider, OAuth2Service> selected = new EnumMap<>(AuthProvider.class);
+        
+        serviceMap.forEach((beanName, service) -> {
+            AuthProvider provider = service.getProvider();
+            String existing = selectedBeans.get(provider);
+            if (existing == null || isPrimary(beanName)) {
+                selectedBeans.put(provider, beanName);
+                selected.put(provider, service);
+            }
+        });
         
-        OAuth2Service service = serviceMap.get(key);
-        if (service == null) {
+        selected.forEach((provider, service) -> services.put(provider, resilienceRegistry.decorate(provider, service)));
+        logger.info("已注册OAuth2提供商: {}", selectedBeans);
+    }
+    
+    /**
+     * 返回带舱壁、熔断和超时保护的提供商服务；在注册表中被停用的提供商视为不支持
+     */
+    public OAuth2Service getService(AuthProvider provider, ClientPlatform platform) {
+        OAuth2Service service = provider != null ? services.get(provider) : null;
+        if (service == null || !providerRegistry.isEnabled(provider)) {
             throw new UnsupportedOperationException("OAuth2 provider " + provider + " not supported");
         }
         
         return service;
     }
+    
+    private boolean isPrimary(String beanName) {
+        return applicationContext.findAnnotationOnBean(beanName, Primary.class) != null;
+    }
 }
@@ -0,0 +1,90 @@
+package com.example.oauth2.service;
+
+import com.example.oauth2.config.RedisTopologyProperties;
+import com.example.oauth2.dto.OAuth2State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * OAuth2State 的 Redis 存取
+ * 
+ * 键格式为 oauth2:state:{state}（不带 hash tag）。state 是随机值，Redis Cluster 按整个键计算槽，
+ * 各 state 均匀分布到全部 16384 个槽；每次操作只涉及一个键，不需要把键固定到同一个槽。
+ * 
+ * state 通过 GETDEL 一次性取出并删除：写命令总是路由到主节点，开启副本读时也不会读到复制延迟前的空值，
+ * 并且同一个 state 并发回调时只有一个能取到。
+ */
+@Component
+public class OAuth2StateStore {
+    
+    private static final Logger logger = LoggerFactory.getLogger(OAuth2StateStore.class);
+    
+    public static final String KEY_PREFIX = "oauth2:state:";
+    
+    @Autowired
+    private RedisTemplate<String, OAuth2State> redisTemplate;
+    
+    @Autowired
+    private RedisTopologyProperties topologyProperties;
+    
+    @Value("${app.oauth2.state.ttl:5m}")
+    private Duration ttl;
+    
+    /**
+     * SET 是幂等的，主从切换期间的连接失败和超时都可以重试
+     */
+    public void save(String state, OAuth2State stateData) {
+        withRetry("save", true, () -> {
+            redisTemplate.opsForValue().set(key(state), stateData, ttl);
+            return null;
+        });
+    }
+    
+    /**
+     * 取出并删除 state，不存在或已被使用时返回 null
+     * 
+     * 超时后命令可能已经执行，重试会读到空值，因此只在连接失败（命令未发出）时重试。
+     */
+    public OAuth2State consume(String state) {
+        return withRetry("consume", false, () -> redisTemplate.opsForValue().getAndDelete(key(state)));
+    }
+    
+    public String key(String state) {
+        return KEY_PREFIX + state;
+    }
+    
+    private <T> T withRetry(String operation, boolean retryOnTimeout, Supplier<T> command) {
+        int maxAttempts = Math.max(1, topologyProperties.getStateMaxAttempts());
+        long backoff = topologyProperties.getStateRetryBackoff().toMillis();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return command.get();
+            } catch (RedisConnectionFailureException | QueryTimeoutException e) {
+                boolean retryable = e instanceof RedisConnectionFailureException || retryOnTimeout;
+                if (!retryable || attempt >= maxAttempts) {
+                    throw e;
+                }
+                logger.warn("Redis state {} 失败，{}ms 后第{}次重试: {}", operation, backoff, attempt, e.getMessage());
+                sleep(backoff);
+                backoff *= 2;
+            }
+        }
+    }
+    
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying Redis state operation", e);
+        }
+    }
+}
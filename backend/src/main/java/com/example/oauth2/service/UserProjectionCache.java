@@ -0,0 +1,76 @@
+package com.example.oauth2.service;
+
+import com.example.oauth2.dto.UserDTO;
+import com.example.oauth2.model.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 令牌自省和 /auth/me 使用的本地用户投影缓存
+ * 
+ * 用户更新或删除提交后由 {@link UserProjectionEvictionListener} 清除本节点的投影，其他节点按 TTL 过期；
+ * 未命中时先查只读副本，副本上没有时再查主库，避免刚创建的用户因副本延迟被判为无效。
+ */
+@Component
+public class UserProjectionCache {
+    
+    @Autowired
+    private UserService userService;
+    
+    @Value("${app.auth.introspection.cache-ttl:5m}")
+    private Duration ttl;
+    
+    @Value("${app.auth.introspection.cache-max-size:10000}")
+    private int maxSize;
+    
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    
+    public Optional<UserDTO> get(Long userId) {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(userId);
+        if (entry != null && entry.expiresAt() > now) {
+            return Optional.of(entry.user());
+        }
+        
+        Optional<User> found = userService.findByIdOnReplica(userId);
+        if (found.isEmpty()) {
+            found = userService.findById(userId);
+        }
+        Optional<UserDTO> loaded = found
+            .map(user -> UserDTO.builder()
+                .id(user.getId())
+                .name(user.getName())
+                .email(user.getEmail())
+                .imageUrl(user.getImageUrl())
+                .build());
+        
+        if (loaded.isPresent()) {
+            if (entries.size() >= maxSize) {
+                entries.values().removeIf(e -> e.expiresAt() <= now);
+            }
+            // 清理后仍然已满时不再缓存，直接返回
+            if (entries.size() < maxSize) {
+                entries.put(userId, new Entry(loaded.get(), now + ttl.toMillis()));
+            }
+        } else {
+            entries.remove(userId);
+        }
+        return loaded;
+    }
+    
+    public void evict(Long userId) {
+        entries.remove(userId);
+    }
+    
+    public int size() {
+        return entries.size();
+    }
+    
+    private record Entry(UserDTO user, long expiresAt) {
+    }
+}
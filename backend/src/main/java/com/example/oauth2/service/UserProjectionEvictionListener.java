@@ -0,0 +1,39 @@
+package com.example.oauth2.service;
+
+import com.example.oauth2.model.User;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 用户更新或删除后清除本节点的 {@link UserProjectionCache}
+ * 
+ * 在提交之后清除，避免提交前的并发读取把旧资料重新放回缓存；其他节点按 TTL 过期。
+ * 由 Hibernate 通过 Spring 容器实例化，缓存按需获取，避免与 EntityManagerFactory 的初始化循环依赖。
+ */
+@Component
+public class UserProjectionEvictionListener {
+    
+    @Autowired
+    private ObjectProvider<UserProjectionCache> userProjectionCache;
+    
+    @PostUpdate
+    @PostRemove
+    public void evict(User user) {
+        Long userId = user.getId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            userProjectionCache.getObject().evict(userId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                userProjectionCache.getObject().evict(userId);
+            }
+        });
+    }
+}
@@ -1,47 +1,86 @@
 package com.example.oauth2.service;
 
+import com.example.oauth2.analytics.LoginAnalytics;
+import com.example.oauth2.avatar.AvatarService;
+import com.example.oauth2.datasource.UsePrimary;
+import com.example.oauth2.datasource.UseReplica;
 import com.example.oauth2.dto.OAuth2UserInfo;
 import com.example.oauth2.model.AuthProvider;
 import com.example.oauth2.model.ClientPlatform;
 import com.example.oauth2.model.User;
 import com.example.oauth2.model.UserAuth;
+import com.example.oauth2.outbox.OutboxEventType;
+import com.example.oauth2.outbox.OutboxWriter;
 import com.example.oauth2.repository.UserAuthRepository;
 import com.example.oauth2.repository.UserRepository;
+import com.example.oauth2.sharding.ShardedIdentityStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 public class UserService {
     
+    private static final Logger logger = LoggerFactory.getLogger(UserService.class);
+    
     @Autowired
     private UserRepository userRepository;
     
     @Autowired
     private UserAuthRepository userAuthRepository;
     
+    @Autowired
+    private LoginAnalytics loginAnalytics;
+    
+    @Autowired
+    private OutboxWriter outboxWriter;
+    
+    @Autowired
+    private AvatarService avatarService;
+    
+    /** 配置了 app.sharding.shards 时 users/user_auth 存在分片上，不走 JPA 仓库 */
+    @Autowired(required = false)
+    private ShardedIdentityStore shardedStore;
+    
+    /**
+     * 先查后写，查询必须读到主库的最新数据，否则并发首次登录会重复创建用户
+     */
+    @UsePrimary
     @Transactional
     public User findOrCreateUser(OAuth2UserInfo userInfo, AuthProvider provider, ClientPlatform platform) {
-        UserAuth userAuth = userAuthRepository
-            .findByProviderAndProviderUserId(provider, userInfo.getId())
-            .orElse(null);
+        UserAuth userAuth = findAuth(provider, userInfo.getId()).orElse(null);
         
         if (userAuth != null) {
-            userAuth.setLastLoginAt(LocalDateTime.now());
-            userAuthRepository.save(userAuth);
+            // 小程序绑定开放平台后才开始返回 unionId
+            if (userAuth.getUnionId() == null && userInfo.getUnionId() != null) {
+                userAuth.setUnionId(userInfo.getUnionId());
+            }
+            touchLogin(userAuth);
+            outboxWriter.append(OutboxEventType.USER_LOGIN, userAuth.getUser().getId(), loginPayload(userAuth, platform, false));
+            loginAnalytics.recordAfterCommit(userAuth.getUser().getId(), provider, platform, false);
+            avatarService.refreshAfterCommit(userAuth.getUser().getId(), userInfo.getImageUrl());
             return userAuth.getUser();
         }
         
-        User user = userRepository.findByEmail(userInfo.getEmail()).orElse(null);
+        User user = findLinkedUser(userInfo, provider);
+        boolean newUser = user == null;
         
-        if (user == null) {
+        if (newUser) {
             user = new User();
             user.setName(userInfo.getName());
             user.setEmail(userInfo.getEmail());
             user.setImageUrl(userInfo.getImageUrl());
+            user.setPhone(userInfo.getPhone());
             user.setPrimaryProvider(provider);
-            user = userRepository.save(user);
+            user = createUser(user);
         }
         
         userAuth = new UserAuth();
@@ -49,11 +88,124 @@ public class UserService {
         userAuth.setProvider(provider);
         userAuth.setPlatform(platform);
         userAuth.setProviderUserId(userInfo.getId());
+        userAuth.setUnionId(userInfo.getUnionId());
         userAuth.setEmail(userInfo.getEmail());
         userAuth.setName(userInfo.getName());
         userAuth.setImageUrl(userInfo.getImageUrl());
-        userAuthRepository.save(userAuth);
+        createAuth(userAuth);
+        
+        if (newUser) {
+            outboxWriter.append(OutboxEventType.USER_CREATED, user.getId(), loginPayload(userAuth, platform, true));
+        }
+        outboxWriter.append(OutboxEventType.ACCOUNT_LINKED, user.getId(), loginPayload(userAuth, platform, newUser));
+        outboxWriter.append(OutboxEventType.USER_LOGIN, user.getId(), loginPayload(userAuth, platform, newUser));
+        loginAnalytics.recordAfterCommit(user.getId(), provider, platform, newUser);
+        avatarService.refreshAfterCommit(user.getId(), userInfo.getImageUrl());
         
         return user;
     }
+    
+    /**
+     * 同一提供商下 unionId 相同的账号（例如同一主体的另一个小程序）属于同一用户，
+     * 其次按邮箱关联；小程序账号没有邮箱，不能按空邮箱查找
+     */
+    private User findLinkedUser(OAuth2UserInfo userInfo, AuthProvider provider) {
+        if (userInfo.getUnionId() != null) {
+            User user = shardedStore != null
+                ? shardedStore.findUserByUnionId(provider, userInfo.getUnionId()).orElse(null)
+                : userAuthRepository.findFirstByProviderAndUnionId(provider, userInfo.getUnionId())
+                    .map(UserAuth::getUser)
+                    .orElse(null);
+            if (user != null) {
+                return user;
+            }
+        }
+        if (userInfo.getEmail() == null) {
+            return null;
+        }
+        return shardedStore != null
+            ? shardedStore.findUserByEmail(userInfo.getEmail()).orElse(null)
+            : userRepository.findByEmail(userInfo.getEmail()).orElse(null);
+    }
+    
+    @UsePrimary
+    public Optional<User> findById(Long userId) {
+        return shardedStore != null ? shardedStore.findUser(userId) : userRepository.findById(userId);
+    }
+    
+    /**
+     * 资料读取走只读副本；副本可能尚未复制刚创建的用户，未找到时由调用方回退 {@link #findById}
+     */
+    @UseReplica
+    public Optional<User> findByIdOnReplica(Long userId) {
+        return shardedStore != null ? shardedStore.findUser(userId) : userRepository.findById(userId);
+    }
+    
+    private Optional<UserAuth> findAuth(AuthProvider provider, String providerUserId) {
+        return shardedStore != null
+            ? shardedStore.findAuth(provider, providerUserId)
+            : userAuthRepository.findByProviderAndProviderUserId(provider, providerUserId);
+    }
+    
+    private void touchLogin(UserAuth userAuth) {
+        if (shardedStore != null) {
+            shardedStore.touchLogin(userAuth);
+            return;
+        }
+        userAuth.setLastLoginAt(LocalDateTime.now());
+        userAuthRepository.save(userAuth);
+    }
+    
+    private User createUser(User user) {
+        if (shardedStore == null) {
+            return userRepository.save(user);
+        }
+        User created = shardedStore.createUser(user);
+        compensateOnRollback(() -> shardedStore.deleteUser(created));
+        return created;
+    }
+    
+    private void createAuth(UserAuth userAuth) {
+        if (shardedStore == null) {
+            userAuthRepository.save(userAuth);
+            return;
+        }
+        shardedStore.createAuth(userAuth);
+        compensateOnRollback(() -> shardedStore.deleteAuth(userAuth));
+    }
+    
+    /**
+     * 分片写入在各分片连接池上自动提交，不在本事务内。之后任何一步失败（身份冲突、发件箱写入、
+     * 主库提交）事务都不会提交，此时撤销分片上的写入，避免留下没有登录事件的孤立用户和绑定账号
+     */
+    private static void compensateOnRollback(Runnable compensation) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    return;
+                }
+                try {
+                    compensation.run();
+                } catch (Exception e) {
+                    logger.error("撤销分片写入失败: {}", e.getMessage(), e);
+                }
+            }
+        });
+    }
+    
+    /**
+     * platform 为本次登录的平台，与账号首次绑定时记录的平台可能不同
+     */
+    private static Map<String, Object> loginPayload(UserAuth userAuth, ClientPlatform platform, boolean newUser) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("userId", userAuth.getUser().getId());
+        payload.put("provider", userAuth.getProvider().name());
+        payload.put("platform", platform != null ? platform.name() : null);
+        payload.put("providerUserId", userAuth.getProviderUserId());
+        payload.put("email", userAuth.getEmail());
+        payload.put("newUser", newUser);
+        payload.put("occurredAt", LocalDateTime.now().toString());
+        return payload;
+    }
 }
@@ -2,18 +2,28 @@ package com.example.oauth2.service.impl;
 
 import com.example.oauth2.dto.OAuth2TokenResponse;
 import com.example.oauth2.dto.OAuth2UserInfo;
+import com.example.oauth2.dto.provider.AppleIdTokenClaims;
+import com.example.oauth2.dto.provider.TokenEndpointResponse;
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.registry.ProviderDescriptor;
+import com.example.oauth2.registry.ProviderRegistry;
+import com.example.oauth2.service.AuthorizationUrlTemplate;
+import com.example.oauth2.service.OAuth2AuthenticationException;
 import com.example.oauth2.service.OAuth2Service;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Service("appleOAuth2Service")
@@ -21,6 +31,15 @@ public class AppleOAuth2Service implements OAuth2Service {
     
     private static final Logger logger = LoggerFactory.getLogger(AppleOAuth2Service.class);
     
+    @Autowired
+    private RestTemplate restTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private ProviderRegistry providerRegistry;
+    
     @Value("${app.oauth2.apple.client-id:com.yourapp.service}")
     private String clientId;
     
@@ -39,53 +58,93 @@ public class AppleOAuth2Service implements OAuth2Service {
     @Value("${app.oauth2.apple.scopes:name email}")
     private String scopes;
     
+    /**
+     * 以上配置作为基线注册到 ProviderRegistry，运行时的覆盖项合并后从注册表读取
+     */
+    @PostConstruct
+    public void init() {
+        providerRegistry.register(ProviderDescriptor.builder()
+            .provider(AuthProvider.APPLE)
+            .enabled(true)
+            .clientId(clientId)
+            .authorizationUri(authorizationUri)
+            .tokenUri(tokenUri)
+            .scopes(scopes)
+            .extra(Map.of("teamId", teamId, "keyId", keyId))
+            .build(), AppleOAuth2Service::compileAuthorizationUrl);
+    }
+    
+    private static AuthorizationUrlTemplate compileAuthorizationUrl(ProviderDescriptor descriptor) {
+        Map<String, String> constantParams = new LinkedHashMap<>();
+        constantParams.put("client_id", descriptor.clientId());
+        constantParams.put("response_type", "code");
+        constantParams.put("response_mode", "form_post");
+        constantParams.put("scope", descriptor.scopes());
+        if (isMockMode(descriptor)) {
+            // 模拟的授权URL，指向本地的mock页面
+            constantParams.put("mock", "true");
+            return AuthorizationUrlTemplate.compile("http://localhost:3000/mock-apple-auth.html", constantParams);
+        }
+        return AuthorizationUrlTemplate.compile(descriptor.authorizationUri(), constantParams);
+    }
+    
+    /**
+     * 检查是否配置了真实的Apple凭证
+     */
+    private static boolean isMockMode(ProviderDescriptor descriptor) {
+        String clientId = descriptor.clientId();
+        return clientId.contains("yourapp") || clientId.equals("com.yourapp.service");
+    }
+    
+    @Override
+    public AuthProvider getProvider() {
+        return AuthProvider.APPLE;
+    }
+    
+    @Override
+    public boolean supportsPkce() {
+        return true;
+    }
+    
     @Override
     public String buildAuthorizationUrl(String redirectUri, String state, String codeChallenge, String codeChallengeMethod) {
+        return buildAuthorizationUrl(redirectUri, state, null, codeChallenge, codeChallengeMethod);
+    }
+    
+    @Override
+    public String buildAuthorizationUrl(String redirectUri, String state, String nonce, String codeChallenge, String codeChallengeMethod) {
+        ProviderRegistry.Entry entry = providerRegistry.get(AuthProvider.APPLE);
         logger.info("=== 构建Apple授权URL ===");
-        logger.info("Client ID: {}", clientId);
+        logger.info("Client ID: {}", entry.descriptor().clientId());
         logger.info("Redirect URI: {}", redirectUri);
         logger.info("State: {}", state);
         
-        // 检查是否配置了真实的Apple凭证
-        boolean isMockMode = clientId.contains("yourapp") || clientId.equals("com.yourapp.service");
-        
-        if (isMockMode) {
+        if (isMockMode(entry.descriptor())) {
             logger.warn("⚠️  检测到未配置真实的Apple凭证，使用Mock模式");
             logger.warn("⚠️  要使用真实的Apple Sign In，需要付费的Apple Developer账号");
             
-            // 返回模拟的授权URL，指向本地的mock页面
-            String mockAuthUrl = UriComponentsBuilder
-                .fromHttpUrl("http://localhost:3000/mock-apple-auth.html")
-                .queryParam("client_id", clientId)
-                .queryParam("redirect_uri", redirectUri)
-                .queryParam("response_type", "code")
-                .queryParam("response_mode", "form_post")
-                .queryParam("scope", scopes)
-                .queryParam("state", state)
-                .queryParam("mock", "true")
-                .toUriString();
+            String mockAuthUrl = entry.authorizationUrlTemplate().newUrl()
+                .param("redirect_uri", redirectUri)
+                .param("state", state)
+                .build();
             
             logger.info("[MOCK] 生成的模拟授权URL: {}", mockAuthUrl);
             return mockAuthUrl;
         }
         
         // 真实的Apple授权URL
-        UriComponentsBuilder builder = UriComponentsBuilder
-            .fromHttpUrl(authorizationUri)
-            .queryParam("client_id", clientId)
-            .queryParam("redirect_uri", redirectUri)
-            .queryParam("response_type", "code")
-            .queryParam("response_mode", "form_post")
-            .queryParam("scope", scopes)
-            .queryParam("state", state);
+        AuthorizationUrlTemplate.UrlBuilder builder = entry.authorizationUrlTemplate().newUrl()
+            .param("redirect_uri", redirectUri)
+            .param("state", state)
+            .param("nonce", nonce);
         
         // Apple支持PKCE
         if (codeChallenge != null) {
-            builder.queryParam("code_challenge", codeChallenge)
-                   .queryParam("code_challenge_method", codeChallengeMethod);
+            builder.param("code_challenge", codeChallenge)
+                   .param("code_challenge_method", codeChallengeMethod);
         }
         
-        String authUrl = builder.toUriString();
+        String authUrl = builder.build();
         logger.info("Apple授权URL: {}", authUrl);
         
         return authUrl;
@@ -93,6 +152,11 @@ public class AppleOAuth2Service implements OAuth2Service {
     
     @Override
     public OAuth2TokenResponse exchangeToken(String code, String redirectUri) {
+        return exchangeToken(code, redirectUri, null);
+    }
+    
+    @Override
+    public OAuth2TokenResponse exchangeToken(String code, String redirectUri, String codeVerifier) {
         logger.info("=== 开始交换Apple访问令牌 ===");
         logger.info("Authorization Code: {}...", code.substring(0, Math.min(20, code.length())));
         
@@ -108,37 +172,39 @@ public class AppleOAuth2Service implements OAuth2Service {
             );
         }
         
-        RestTemplate restTemplate = new RestTemplate();
-        
         // Apple需要使用client_secret (JWT格式)
-        String clientSecret = generateClientSecret();
+        ProviderDescriptor descriptor = providerRegistry.descriptor(AuthProvider.APPLE);
+        String clientSecret = generateClientSecret(descriptor);
         
         MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
-        params.add("client_id", clientId);
+        params.add("client_id", descriptor.clientId());
         params.add("client_secret", clientSecret);
         params.add("code", code);
         params.add("grant_type", "authorization_code");
         params.add("redirect_uri", redirectUri);
+        if (codeVerifier != null) {
+            params.add("code_verifier", codeVerifier);
+        }
         
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
         HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(params, headers);
         
+        TokenEndpointResponse body;
         try {
-            ResponseEntity<Map> response = restTemplate.postForEntity(tokenUri, request, Map.class);
-            Map<String, Object> body = response.getBody();
-            
+            body = restTemplate.postForObject(descriptor.tokenUri(), request, TokenEndpointResponse.class);
             logger.info("Apple Token响应: {}", body);
-            
-            return new OAuth2TokenResponse(
-                (String) body.get("access_token"),
-                (String) body.get("refresh_token"),
-                (Integer) body.get("expires_in")
-            );
         } catch (Exception e) {
             logger.error("Apple Token交换失败: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to exchange Apple token", e);
         }
+        
+        // id_token 由令牌端点经 TLS 直接返回，可直接取其中的用户标识，无需再调用 getUserInfo
+        OAuth2TokenResponse tokenResponse = body.toTokenResponse();
+        if (body.idToken() != null) {
+            tokenResponse.setUserInfo(parseIdToken(body.idToken()));
+        }
+        return tokenResponse;
     }
     
     @Override
@@ -166,52 +232,45 @@ public class AppleOAuth2Service implements OAuth2Service {
         }
         
         // Apple的特殊处理：用户信息在id_token中，不需要额外API调用
-        // 这里我们从id_token中解析用户信息
-        try {
-            // 解析JWT id_token
-            String[] parts = accessToken.split("\\.");
-            if (parts.length >= 2) {
-                String payload = new String(Base64.getUrlDecoder().decode(parts[1]));
-                logger.info("Apple ID Token Payload: {}", payload);
-                
-                // 这里应该解析JSON，简化处理
-                // 实际应用中需要使用JSON库解析
-                OAuth2UserInfo userInfo = OAuth2UserInfo.builder()
-                    .id("apple_user_id")  // 从id_token的sub字段获取
-                    .email("user@privaterelay.appleid.com")  // 从id_token的email字段获取
-                    .name("Apple User")  // Apple可能不提供name
-                    .imageUrl(null)
-                    .build();
-                
-                logger.info("Apple用户信息解析完成");
-                return userInfo;
-            }
-        } catch (Exception e) {
-            logger.error("解析Apple ID Token失败: {}", e.getMessage(), e);
-        }
-        
-        // 降级处理
-        return OAuth2UserInfo.builder()
-            .id("apple_user_unknown")
-            .email(null)
-            .name("Apple User")
-            .imageUrl(null)
-            .build();
+        OAuth2UserInfo userInfo = parseIdToken(accessToken);
+        logger.info("Apple用户信息解析完成");
+        return userInfo;
     }
     
     /**
      * 生成Apple Client Secret (JWT格式)
      * 注意：这需要使用Apple提供的私钥文件
      */
-    private String generateClientSecret() {
+    private String generateClientSecret(ProviderDescriptor descriptor) {
         logger.warn("Apple Client Secret生成 - 需要配置私钥文件");
         
         // TODO: 实际实现需要：
         // 1. 读取Apple提供的.p8私钥文件
         // 2. 使用ECDSA算法生成JWT
-        // 3. JWT包含: iss(Team ID), iat, exp, aud, sub(Client ID)
+        // 3. JWT包含: iss(descriptor.extra("teamId")), iat, exp, aud, sub(descriptor.clientId())，头部 kid 为 extra("keyId")
         
         // 临时返回占位符
         return "APPLE_CLIENT_SECRET_PLACEHOLDER";
     }
+    
+    /**
+     * 把 JWT 载荷直接绑定到 {@link AppleIdTokenClaims}，不是JWT、解析失败或没有 sub 时拒绝登录
+     */
+    private OAuth2UserInfo parseIdToken(String jwt) {
+        String[] parts = jwt.split("\\.");
+        if (parts.length < 2) {
+            throw new OAuth2AuthenticationException(AuthProvider.APPLE, "Apple id_token is not a JWT");
+        }
+        AppleIdTokenClaims claims;
+        try {
+            claims = objectMapper.readValue(Base64.getUrlDecoder().decode(parts[1]), AppleIdTokenClaims.class);
+        } catch (Exception e) {
+            logger.error("解析Apple ID Token失败: {}", e.getMessage());
+            throw new OAuth2AuthenticationException(AuthProvider.APPLE, "Failed to parse Apple id_token", e);
+        }
+        if (claims.sub() == null || claims.sub().isBlank()) {
+            throw new OAuth2AuthenticationException(AuthProvider.APPLE, "Apple id_token has no sub");
+        }
+        return claims.toUserInfo();
+    }
 }
@@ -2,13 +2,16 @@ package com.example.oauth2.service.impl;
 
 import com.example.oauth2.dto.OAuth2TokenResponse;
 import com.example.oauth2.dto.OAuth2UserInfo;
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.service.AuthorizationUrlTemplate;
 import com.example.oauth2.service.OAuth2Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Service;
-import org.springframework.web.util.UriComponentsBuilder;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Apple OAuth2 Mock服务 - 用于开发测试
@@ -27,6 +30,23 @@ public class AppleOAuth2ServiceMock implements OAuth2Service {
     
     private static final Logger logger = LoggerFactory.getLogger(AppleOAuth2ServiceMock.class);
     
+    private static final AuthorizationUrlTemplate MOCK_AUTHORIZATION_URL = mockAuthorizationUrlTemplate();
+    
+    private static AuthorizationUrlTemplate mockAuthorizationUrlTemplate() {
+        Map<String, String> constantParams = new LinkedHashMap<>();
+        constantParams.put("client_id", "com.yourapp.service.mock");
+        constantParams.put("response_type", "code");
+        constantParams.put("response_mode", "form_post");
+        constantParams.put("scope", "name email");
+        constantParams.put("mock", "true");
+        return AuthorizationUrlTemplate.compile("http://localhost:3000/mock-apple-auth", constantParams);
+    }
+    
+    @Override
+    public AuthProvider getProvider() {
+        return AuthProvider.APPLE;
+    }
+    
     @Override
     public String buildAuthorizationUrl(String redirectUri, String state, 
                                        String codeChallenge, String codeChallengeMethod) {
@@ -37,16 +57,10 @@ public class AppleOAuth2ServiceMock implements OAuth2Service {
         
         // 返回一个模拟的授权URL
         // 实际上这个URL不会真正跳转到Apple
-        String mockAuthUrl = UriComponentsBuilder
-            .fromHttpUrl("http://localhost:3000/mock-apple-auth")
-            .queryParam("client_id", "com.yourapp.service.mock")
-            .queryParam("redirect_uri", redirectUri)
-            .queryParam("response_type", "code")
-            .queryParam("response_mode", "form_post")
-            .queryParam("scope", "name email")
-            .queryParam("state", state)
-            .queryParam("mock", "true")
-            .toUriString();
+        String mockAuthUrl = MOCK_AUTHORIZATION_URL.newUrl()
+            .param("redirect_uri", redirectUri)
+            .param("state", state)
+            .build();
         
         logger.info("[MOCK] 生成的模拟授权URL: {}", mockAuthUrl);
         logger.warn("⚠️  这是MOCK服务，不会真正跳转到Apple授权页面");
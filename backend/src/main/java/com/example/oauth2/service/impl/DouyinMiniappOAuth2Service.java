@@ -0,0 +1,128 @@
+package com.example.oauth2.service.impl;
+
+import com.example.oauth2.dto.OAuth2TokenResponse;
+import com.example.oauth2.dto.OAuth2UserInfo;
+import com.example.oauth2.dto.provider.DouyinApiResponse;
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.registry.ProviderDescriptor;
+import com.example.oauth2.registry.ProviderRegistry;
+import com.example.oauth2.service.MiniappApiException;
+import com.example.oauth2.service.MiniappUserInfoCache;
+import com.example.oauth2.service.OAuth2AuthenticationException;
+import com.example.oauth2.service.OAuth2Service;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import java.util.Map;
+
+/**
+ * 抖音小程序登录
+ * 
+ * 小程序端 tt.login() 取得 code 后调用 /auth/oauth2/token，这里以 v2 jscode2session 换取 openid/unionid。
+ * 登录不需要应用级 access_token，需要调用抖音开放接口时再接入 AppAccessTokenCache。
+ */
+@Service("douyinMiniappOAuth2Service")
+public class DouyinMiniappOAuth2Service implements OAuth2Service {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DouyinMiniappOAuth2Service.class);
+    
+    @Autowired
+    private RestTemplate restTemplate;
+    
+    @Autowired
+    private ProviderRegistry providerRegistry;
+    
+    @Autowired
+    private MiniappUserInfoCache userInfoCache;
+    
+    @Value("${app.oauth2.douyin.app-id:}")
+    private String appId;
+    
+    @Value("${app.oauth2.douyin.app-secret:}")
+    private String appSecret;
+    
+    @Value("${app.oauth2.douyin.code2session-uri:https://developer.toutiao.com/api/apps/v2/jscode2session}")
+    private String code2sessionUri;
+    
+    /**
+     * app-id/app-secret 对应描述符的 clientId/clientSecret
+     */
+    @PostConstruct
+    public void init() {
+        providerRegistry.register(ProviderDescriptor.builder()
+            .provider(AuthProvider.DOUYIN)
+            .enabled(true)
+            .clientId(appId)
+            .clientSecret(appSecret)
+            .extra(Map.of("code2sessionUri", code2sessionUri))
+            .build(), null);
+    }
+    
+    @Override
+    public AuthProvider getProvider() {
+        return AuthProvider.DOUYIN;
+    }
+    
+    /**
+     * 小程序没有授权页
+     */
+    @Override
+    public String buildAuthorizationUrl(String redirectUri, String state, String codeChallenge, String codeChallengeMethod) {
+        return null;
+    }
+    
+    @Override
+    public OAuth2TokenResponse exchangeToken(String code, String redirectUri) {
+        ProviderDescriptor descriptor = providerRegistry.descriptor(AuthProvider.DOUYIN);
+        DouyinApiResponse.Data data = call(descriptor.extra("code2sessionUri"), Map.of(
+            "appid", descriptor.clientId(),
+            "secret", descriptor.clientSecret(),
+            "code", code
+        ));
+        if (data.openid() == null || data.openid().isBlank()) {
+            // 空 openid 不能作为身份：唯一约束允许 NULL，每次登录都会创建新用户
+            throw new MiniappApiException(AuthProvider.DOUYIN, MiniappApiException.MISSING_OPENID, "code2session returned no openid");
+        }
+        
+        String unionId = data.unionid();
+        OAuth2UserInfo userInfo = OAuth2UserInfo.builder()
+            .id(data.openid())
+            .unionId(unionId == null || unionId.isEmpty() ? null : unionId)
+            .name("抖音用户")
+            .build();
+        logger.info("抖音 code2session 成功, OpenID: {}, 有UnionID: {}", userInfo.getId(), userInfo.getUnionId() != null);
+        
+        // 不预取用户信息，回调流水线随后以句柄调用 getUserInfo 取走缓存项，内存中不留 openid
+        return new OAuth2TokenResponse(userInfoCache.put(userInfo), null, null, null, null);
+    }
+    
+    /**
+     * 小程序没有 userinfo 接口，accessToken 是 exchangeToken 签发的句柄
+     */
+    @Override
+    public OAuth2UserInfo getUserInfo(String accessToken) {
+        OAuth2UserInfo userInfo = userInfoCache.take(accessToken);
+        if (userInfo == null) {
+            throw new OAuth2AuthenticationException(AuthProvider.DOUYIN, "Unknown or expired miniapp session handle");
+        }
+        return userInfo;
+    }
+    
+    /**
+     * 抖音 v2 接口统一返回 {err_no, err_tips, data}
+     */
+    private DouyinApiResponse.Data call(String uri, Map<String, String> request) {
+        DouyinApiResponse body = restTemplate.postForObject(uri, request, DouyinApiResponse.class);
+        if (body == null || (body.errorCode() == 0 && body.data() == null)) {
+            throw new IllegalStateException("Empty Douyin API response");
+        }
+        if (body.errorCode() != 0) {
+            throw new MiniappApiException(AuthProvider.DOUYIN, body.errorCode(), body.errTips());
+        }
+        return body.data();
+    }
+}
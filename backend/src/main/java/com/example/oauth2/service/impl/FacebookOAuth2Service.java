@@ -2,9 +2,17 @@ package com.example.oauth2.service.impl;
 
 import com.example.oauth2.dto.OAuth2TokenResponse;
 import com.example.oauth2.dto.OAuth2UserInfo;
+import com.example.oauth2.dto.provider.FacebookUserInfoResponse;
+import com.example.oauth2.dto.provider.TokenEndpointResponse;
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.registry.ProviderDescriptor;
+import com.example.oauth2.registry.ProviderRegistry;
+import com.example.oauth2.service.AuthorizationUrlTemplate;
 import com.example.oauth2.service.OAuth2Service;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
@@ -12,6 +20,7 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Service("facebookOAuth2Service")
@@ -19,6 +28,12 @@ public class FacebookOAuth2Service implements OAuth2Service {
     
     private static final Logger logger = LoggerFactory.getLogger(FacebookOAuth2Service.class);
     
+    @Autowired
+    private RestTemplate restTemplate;
+    
+    @Autowired
+    private ProviderRegistry providerRegistry;
+    
     @Value("${app.oauth2.facebook.client-id}")
     private String clientId;
     
@@ -37,62 +52,73 @@ public class FacebookOAuth2Service implements OAuth2Service {
     @Value("${app.oauth2.facebook.scopes}")
     private String scopes;
     
+    /**
+     * 以上配置作为基线注册到 ProviderRegistry，运行时的覆盖项合并后从注册表读取
+     */
+    @PostConstruct
+    public void init() {
+        providerRegistry.register(ProviderDescriptor.builder()
+            .provider(AuthProvider.FACEBOOK)
+            .enabled(true)
+            .clientId(clientId)
+            .clientSecret(clientSecret)
+            .authorizationUri(authorizationUri)
+            .tokenUri(tokenUri)
+            .userInfoUri(userInfoUri)
+            .scopes(scopes)
+            .build(), FacebookOAuth2Service::compileAuthorizationUrl);
+    }
+    
+    private static AuthorizationUrlTemplate compileAuthorizationUrl(ProviderDescriptor descriptor) {
+        Map<String, String> constantParams = new LinkedHashMap<>();
+        constantParams.put("client_id", descriptor.clientId());
+        constantParams.put("response_type", "code");
+        constantParams.put("scope", descriptor.scopes());
+        return AuthorizationUrlTemplate.compile(descriptor.authorizationUri(), constantParams);
+    }
+    
+    @Override
+    public AuthProvider getProvider() {
+        return AuthProvider.FACEBOOK;
+    }
+    
     @Override
     public String buildAuthorizationUrl(String redirectUri, String state, String codeChallenge, String codeChallengeMethod) {
-        return UriComponentsBuilder
-            .fromHttpUrl(authorizationUri)
-            .queryParam("client_id", clientId)
-            .queryParam("redirect_uri", redirectUri)
-            .queryParam("response_type", "code")
-            .queryParam("scope", scopes)
-            .queryParam("state", state)
-            .toUriString();
+        return providerRegistry.get(AuthProvider.FACEBOOK).authorizationUrlTemplate().newUrl()
+            .param("redirect_uri", redirectUri)
+            .param("state", state)
+            .build();
     }
     
     @Override
     public OAuth2TokenResponse exchangeToken(String code, String redirectUri) {
-        RestTemplate restTemplate = new RestTemplate();
-        
+        ProviderDescriptor descriptor = providerRegistry.descriptor(AuthProvider.FACEBOOK);
         String url = UriComponentsBuilder
-            .fromHttpUrl(tokenUri)
-            .queryParam("client_id", clientId)
-            .queryParam("client_secret", clientSecret)
+            .fromHttpUrl(descriptor.tokenUri())
+            .queryParam("client_id", descriptor.clientId())
+            .queryParam("client_secret", descriptor.clientSecret())
             .queryParam("redirect_uri", redirectUri)
             .queryParam("code", code)
             .toUriString();
         
-        ResponseEntity<Map> response = restTemplate.getForEntity(url, Map.class);
-        Map<String, Object> body = response.getBody();
-        
-        return new OAuth2TokenResponse(
-            (String) body.get("access_token"),
-            null,
-            (Integer) body.get("expires_in")
-        );
+        TokenEndpointResponse body = restTemplate.getForObject(url, TokenEndpointResponse.class);
+        return body.toTokenResponse();
     }
     
     @Override
     public OAuth2UserInfo getUserInfo(String accessToken) {
+        String userInfoUri = providerRegistry.descriptor(AuthProvider.FACEBOOK).userInfoUri();
         logger.info("=== 开始获取Facebook用户信息 ===");
         logger.info("UserInfo API: {}", userInfoUri);
         logger.info("AccessToken: {}...", accessToken.substring(0, Math.min(20, accessToken.length())));
         
-        RestTemplate restTemplate = new RestTemplate();
-        
         String url = userInfoUri + "&access_token=" + accessToken;
         logger.info("完整请求URL: {}", url);
         
-        ResponseEntity<Map> response = restTemplate.getForEntity(url, Map.class);
-        
-        Map<String, Object> body = response.getBody();
+        FacebookUserInfoResponse body = restTemplate.getForObject(url, FacebookUserInfoResponse.class);
         logger.info("Facebook API响应: {}", body);
         
-        OAuth2UserInfo userInfo = OAuth2UserInfo.builder()
-            .id((String) body.get("id"))
-            .email((String) body.get("email"))
-            .name((String) body.get("name"))
-            .imageUrl(null)  // 不使用头像
-            .build();
+        OAuth2UserInfo userInfo = body.toUserInfo();
             
         logger.info("解析后的用户信息:");
         logger.info("  - ID: {}", userInfo.getId());
@@ -0,0 +1,61 @@
+package com.example.oauth2.service.impl;
+
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.pipeline.CallbackContext;
+import com.example.oauth2.pipeline.CallbackPipeline;
+import com.example.oauth2.pipeline.CallbackStageContributor;
+import com.example.oauth2.pipeline.StageGraph;
+import com.example.oauth2.security.IdTokenVerifier;
+import com.example.oauth2.service.OAuth2AuthenticationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Google 回调附加阶段：在获取 userinfo 的同时本地校验 id_token，
+ * 并在创建用户前确认两者的 sub 一致
+ */
+@Component
+public class GoogleCallbackStages implements CallbackStageContributor {
+    
+    private static final Set<String> ISSUERS = Set.of("https://accounts.google.com", "accounts.google.com");
+    
+    @Autowired
+    private IdTokenVerifier idTokenVerifier;
+    
+    @Value("${app.oauth2.google.client-id}")
+    private String clientId;
+    
+    @Override
+    public AuthProvider getProvider() {
+        return AuthProvider.GOOGLE;
+    }
+    
+    @Override
+    public void contribute(StageGraph.Builder<CallbackContext> stages) {
+        stages
+            .stage("idToken", this::verifyIdToken, CallbackPipeline.TOKEN)
+            .stage("idTokenSubject", this::checkSubject, "idToken", CallbackPipeline.USER_INFO)
+            .dependsOn(CallbackPipeline.USER, "idTokenSubject");
+    }
+    
+    private void verifyIdToken(CallbackContext context) {
+        String idToken = context.getTokenResponse().getIdToken();
+        if (idToken != null) {
+            context.setIdTokenClaims(idTokenVerifier.verify(
+                idToken, ISSUERS, clientId, context.getStateData().getNonce()
+            ));
+        }
+    }
+    
+    private void checkSubject(CallbackContext context) {
+        Map<String, Object> claims = context.getIdTokenClaims();
+        // 缺少 sub 的 id_token 同样视为不匹配
+        if (claims != null && !Objects.equals(claims.get("sub"), context.getUserInfo().getId())) {
+            throw new OAuth2AuthenticationException(AuthProvider.GOOGLE, "id_token subject does not match userinfo");
+        }
+    }
+}
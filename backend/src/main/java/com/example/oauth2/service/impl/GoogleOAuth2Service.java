@@ -2,16 +2,24 @@ package com.example.oauth2.service.impl;
 
 import com.example.oauth2.dto.OAuth2TokenResponse;
 import com.example.oauth2.dto.OAuth2UserInfo;
+import com.example.oauth2.dto.provider.GoogleUserInfoResponse;
+import com.example.oauth2.dto.provider.TokenEndpointResponse;
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.registry.ProviderDescriptor;
+import com.example.oauth2.registry.ProviderRegistry;
+import com.example.oauth2.service.AuthorizationUrlTemplate;
 import com.example.oauth2.service.OAuth2Service;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Service("googleOAuth2Service")
@@ -19,6 +27,12 @@ public class GoogleOAuth2Service implements OAuth2Service {
     
     private static final Logger logger = LoggerFactory.getLogger(GoogleOAuth2Service.class);
     
+    @Autowired
+    private RestTemplate restTemplate;
+    
+    @Autowired
+    private ProviderRegistry providerRegistry;
+    
     @Value("${app.oauth2.google.client-id}")
     private String clientId;
     
@@ -37,77 +51,109 @@ public class GoogleOAuth2Service implements OAuth2Service {
     @Value("${app.oauth2.google.scopes}")
     private String scopes;
     
+    /**
+     * 以上配置作为基线注册到 ProviderRegistry，运行时的覆盖项合并后从注册表读取
+     */
+    @PostConstruct
+    public void init() {
+        providerRegistry.register(ProviderDescriptor.builder()
+            .provider(AuthProvider.GOOGLE)
+            .enabled(true)
+            .clientId(clientId)
+            .clientSecret(clientSecret)
+            .authorizationUri(authorizationUri)
+            .tokenUri(tokenUri)
+            .userInfoUri(userInfoUri)
+            .scopes(scopes)
+            .build(), GoogleOAuth2Service::compileAuthorizationUrl);
+    }
+    
+    private static AuthorizationUrlTemplate compileAuthorizationUrl(ProviderDescriptor descriptor) {
+        Map<String, String> constantParams = new LinkedHashMap<>();
+        constantParams.put("client_id", descriptor.clientId());
+        constantParams.put("response_type", "code");
+        constantParams.put("scope", descriptor.scopes());
+        return AuthorizationUrlTemplate.compile(descriptor.authorizationUri(), constantParams);
+    }
+    
+    @Override
+    public AuthProvider getProvider() {
+        return AuthProvider.GOOGLE;
+    }
+    
+    @Override
+    public boolean supportsPkce() {
+        return true;
+    }
+    
     @Override
     public String buildAuthorizationUrl(String redirectUri, String state, String codeChallenge, String codeChallengeMethod) {
-        UriComponentsBuilder builder = UriComponentsBuilder
-            .fromHttpUrl(authorizationUri)
-            .queryParam("client_id", clientId)
-            .queryParam("redirect_uri", redirectUri)
-            .queryParam("response_type", "code")
-            .queryParam("scope", scopes)
-            .queryParam("state", state);
+        return buildAuthorizationUrl(redirectUri, state, null, codeChallenge, codeChallengeMethod);
+    }
+    
+    @Override
+    public String buildAuthorizationUrl(String redirectUri, String state, String nonce, String codeChallenge, String codeChallengeMethod) {
+        AuthorizationUrlTemplate.UrlBuilder builder = providerRegistry.get(AuthProvider.GOOGLE).authorizationUrlTemplate().newUrl()
+            .param("redirect_uri", redirectUri)
+            .param("state", state)
+            .param("nonce", nonce);
         
         if (codeChallenge != null) {
-            builder.queryParam("code_challenge", codeChallenge)
-                   .queryParam("code_challenge_method", codeChallengeMethod);
+            builder.param("code_challenge", codeChallenge)
+                   .param("code_challenge_method", codeChallengeMethod);
         }
         
-        return builder.toUriString();
+        return builder.build();
     }
     
     @Override
     public OAuth2TokenResponse exchangeToken(String code, String redirectUri) {
-        RestTemplate restTemplate = new RestTemplate();
-        
+        return exchangeToken(code, redirectUri, null);
+    }
+    
+    @Override
+    public OAuth2TokenResponse exchangeToken(String code, String redirectUri, String codeVerifier) {
+        ProviderDescriptor descriptor = providerRegistry.descriptor(AuthProvider.GOOGLE);
         MultiValueMap<String, String> params = new LinkedMultiValueMap<>();
         params.add("code", code);
-        params.add("client_id", clientId);
-        params.add("client_secret", clientSecret);
+        params.add("client_id", descriptor.clientId());
+        params.add("client_secret", descriptor.clientSecret());
         params.add("redirect_uri", redirectUri);
         params.add("grant_type", "authorization_code");
+        if (codeVerifier != null) {
+            params.add("code_verifier", codeVerifier);
+        }
         
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
         HttpEntity<MultiValueMap<String, String>> request = new HttpEntity<>(params, headers);
         
-        ResponseEntity<Map> response = restTemplate.postForEntity(tokenUri, request, Map.class);
-        Map<String, Object> body = response.getBody();
-        
-        return new OAuth2TokenResponse(
-            (String) body.get("access_token"),
-            (String) body.get("refresh_token"),
-            (Integer) body.get("expires_in")
-        );
+        TokenEndpointResponse body = restTemplate.postForObject(descriptor.tokenUri(), request, TokenEndpointResponse.class);
+        return body.toTokenResponse();
     }
     
     @Override
     public OAuth2UserInfo getUserInfo(String accessToken) {
+        String userInfoUri = providerRegistry.descriptor(AuthProvider.GOOGLE).userInfoUri();
         logger.info("=== 开始获取Google用户信息 ===");
         logger.info("UserInfo API: {}", userInfoUri);
         logger.info("AccessToken: {}...", accessToken.substring(0, Math.min(20, accessToken.length())));
         
-        RestTemplate restTemplate = new RestTemplate();
-        
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(accessToken);
         HttpEntity<String> entity = new HttpEntity<>(headers);
         
-        ResponseEntity<Map> response = restTemplate.exchange(
+        ResponseEntity<GoogleUserInfoResponse> response = restTemplate.exchange(
             userInfoUri,
             HttpMethod.GET,
             entity,
-            Map.class
+            GoogleUserInfoResponse.class
         );
         
-        Map<String, Object> body = response.getBody();
+        GoogleUserInfoResponse body = response.getBody();
         logger.info("Google API响应: {}", body);
         
-        OAuth2UserInfo userInfo = OAuth2UserInfo.builder()
-            .id((String) body.get("sub"))  // OpenID Connect使用'sub'而不是'id'
-            .email((String) body.get("email"))
-            .name((String) body.get("name"))
-            .imageUrl((String) body.get("picture"))
-            .build();
+        OAuth2UserInfo userInfo = body.toUserInfo();
             
         logger.info("解析后的用户信息:");
         logger.info("  - ID: {}", userInfo.getId());
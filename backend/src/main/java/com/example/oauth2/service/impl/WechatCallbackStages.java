@@ -0,0 +1,55 @@
+package com.example.oauth2.service.impl;
+
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.pipeline.CallbackContext;
+import com.example.oauth2.pipeline.CallbackPipeline;
+import com.example.oauth2.pipeline.CallbackStageContributor;
+import com.example.oauth2.pipeline.StageGraph;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 微信小程序回调附加阶段：请求带 phoneCode 时，与 code2session 并行换取手机号
+ * 
+ * 手机号只是附加信息，获取失败不影响登录。
+ */
+@Component
+public class WechatCallbackStages implements CallbackStageContributor {
+    
+    private static final Logger logger = LoggerFactory.getLogger(WechatCallbackStages.class);
+    
+    @Autowired
+    private WechatMiniappOAuth2Service wechatService;
+    
+    @Override
+    public AuthProvider getProvider() {
+        return AuthProvider.WECHAT;
+    }
+    
+    @Override
+    public void contribute(StageGraph.Builder<CallbackContext> stages) {
+        stages
+            .stage("phoneNumber", this::fetchPhoneNumber, CallbackPipeline.STATE)
+            .stage("phoneMerge", this::applyPhoneNumber, "phoneNumber", CallbackPipeline.USER_INFO)
+            .dependsOn(CallbackPipeline.USER, "phoneMerge");
+    }
+    
+    private void fetchPhoneNumber(CallbackContext context) {
+        if (context.getPhoneCode() == null) {
+            return;
+        }
+        try {
+            context.setPhoneNumber(wechatService.fetchPhoneNumber(context.getPhoneCode()));
+        } catch (RuntimeException e) {
+            logger.warn("获取微信手机号失败: {}", e.getMessage());
+        }
+    }
+    
+    private void applyPhoneNumber(CallbackContext context) {
+        if (context.getPhoneNumber() != null) {
+            context.getUserInfo().setPhone(context.getPhoneNumber());
+        }
+    }
+}
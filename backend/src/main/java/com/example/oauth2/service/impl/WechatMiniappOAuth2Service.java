@@ -0,0 +1,212 @@
+package com.example.oauth2.service.impl;
+
+import com.example.oauth2.dto.OAuth2TokenResponse;
+import com.example.oauth2.dto.OAuth2UserInfo;
+import com.example.oauth2.dto.provider.WechatApiResponse;
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.registry.ProviderDescriptor;
+import com.example.oauth2.registry.ProviderRegistry;
+import com.example.oauth2.service.AppAccessTokenCache;
+import com.example.oauth2.service.MiniappApiException;
+import com.example.oauth2.service.MiniappUserInfoCache;
+import com.example.oauth2.service.OAuth2AuthenticationException;
+import com.example.oauth2.service.OAuth2Service;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 微信小程序登录
+ * 
+ * 小程序端 wx.login() 取得 code 后调用 /auth/oauth2/token，这里以 jscode2session 换取 openid/unionid。
+ * session_key 只用于解密小程序端数据，不保存也不下发。
+ * 应用级 access_token 使用 stable_token 接口获取，多个实例各自刷新也不会让对方的令牌失效。
+ */
+@Service("wechatMiniappOAuth2Service")
+public class WechatMiniappOAuth2Service implements OAuth2Service {
+    
+    private static final Logger logger = LoggerFactory.getLogger(WechatMiniappOAuth2Service.class);
+    
+    /** access_token 无效或已过期 */
+    private static final Set<Integer> INVALID_TOKEN_CODES = Set.of(40001, 42001);
+    
+    /** 微信文档中应用级 access_token 的有效期（秒），响应缺少 expires_in 时使用 */
+    private static final long DEFAULT_APP_TOKEN_EXPIRES_IN = 7200;
+    
+    @Autowired
+    private RestTemplate restTemplate;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private AppAccessTokenCache appAccessTokenCache;
+    
+    @Autowired
+    private ProviderRegistry providerRegistry;
+    
+    @Autowired
+    private MiniappUserInfoCache userInfoCache;
+    
+    @Value("${app.oauth2.wechat.app-id:}")
+    private String appId;
+    
+    @Value("${app.oauth2.wechat.app-secret:}")
+    private String appSecret;
+    
+    @Value("${app.oauth2.wechat.code2session-uri:https://api.weixin.qq.com/sns/jscode2session}")
+    private String code2sessionUri;
+    
+    @Value("${app.oauth2.wechat.token-uri:https://api.weixin.qq.com/cgi-bin/stable_token}")
+    private String tokenUri;
+    
+    @Value("${app.oauth2.wechat.phone-number-uri:https://api.weixin.qq.com/wxa/business/getuserphonenumber}")
+    private String phoneNumberUri;
+    
+    /**
+     * app-id/app-secret 对应描述符的 clientId/clientSecret；凭证在运行时变更后丢弃缓存的应用级令牌
+     */
+    @PostConstruct
+    public void init() {
+        providerRegistry.register(ProviderDescriptor.builder()
+            .provider(AuthProvider.WECHAT)
+            .enabled(true)
+            .clientId(appId)
+            .clientSecret(appSecret)
+            .tokenUri(tokenUri)
+            .extra(Map.of("code2sessionUri", code2sessionUri, "phoneNumberUri", phoneNumberUri))
+            .build(), null);
+        providerRegistry.addListener((previous, current) -> {
+            if (previous != null && current.provider() == AuthProvider.WECHAT
+                    && (!previous.clientId().equals(current.clientId()) || !previous.clientSecret().equals(current.clientSecret()))) {
+                appAccessTokenCache.evict(AuthProvider.WECHAT);
+            }
+        });
+        // 只在使用时加载，未配置 app-id 时不会被调用
+        appAccessTokenCache.register(AuthProvider.WECHAT, this::loadAppAccessToken);
+    }
+    
+    @Override
+    public AuthProvider getProvider() {
+        return AuthProvider.WECHAT;
+    }
+    
+    /**
+     * 小程序没有授权页
+     */
+    @Override
+    public String buildAuthorizationUrl(String redirectUri, String state, String codeChallenge, String codeChallengeMethod) {
+        return null;
+    }
+    
+    @Override
+    public OAuth2TokenResponse exchangeToken(String code, String redirectUri) {
+        ProviderDescriptor descriptor = providerRegistry.descriptor(AuthProvider.WECHAT);
+        String url = UriComponentsBuilder
+            .fromHttpUrl(descriptor.extra("code2sessionUri"))
+            .queryParam("appid", descriptor.clientId())
+            .queryParam("secret", descriptor.clientSecret())
+            .queryParam("js_code", code)
+            .queryParam("grant_type", "authorization_code")
+            .toUriString();
+        
+        // jscode2session 返回的 Content-Type 是 text/plain，按字符串读取后再解析
+        WechatApiResponse body = readBody(restTemplate.getForObject(url, String.class));
+        if (body.openid() == null || body.openid().isBlank()) {
+            // 空 openid 不能作为身份：唯一约束允许 NULL，每次登录都会创建新用户
+            throw new MiniappApiException(AuthProvider.WECHAT, MiniappApiException.MISSING_OPENID, "code2session returned no openid");
+        }
+        
+        OAuth2UserInfo userInfo = OAuth2UserInfo.builder()
+            .id(body.openid())
+            .unionId(emptyToNull(body.unionid()))
+            .name("微信用户")
+            .build();
+        logger.info("微信 code2session 成功, OpenID: {}, 有UnionID: {}", userInfo.getId(), userInfo.getUnionId() != null);
+        
+        // 不预取用户信息，回调流水线随后以句柄调用 getUserInfo 取走缓存项，内存中不留 openid
+        return new OAuth2TokenResponse(userInfoCache.put(userInfo), null, null, null, null);
+    }
+    
+    /**
+     * 小程序没有 userinfo 接口，accessToken 是 exchangeToken 签发的句柄
+     */
+    @Override
+    public OAuth2UserInfo getUserInfo(String accessToken) {
+        OAuth2UserInfo userInfo = userInfoCache.take(accessToken);
+        if (userInfo == null) {
+            throw new OAuth2AuthenticationException(AuthProvider.WECHAT, "Unknown or expired miniapp session handle");
+        }
+        return userInfo;
+    }
+    
+    /**
+     * 用手机号快速验证组件返回的 code 换取手机号；令牌被拒绝时丢弃缓存并重试一次
+     */
+    public String fetchPhoneNumber(String phoneCode) {
+        String accessToken = appAccessTokenCache.get(AuthProvider.WECHAT);
+        try {
+            return requestPhoneNumber(accessToken, phoneCode);
+        } catch (MiniappApiException e) {
+            if (!INVALID_TOKEN_CODES.contains(e.getErrorCode())) {
+                throw e;
+            }
+            appAccessTokenCache.invalidate(AuthProvider.WECHAT, accessToken);
+            return requestPhoneNumber(appAccessTokenCache.get(AuthProvider.WECHAT), phoneCode);
+        }
+    }
+    
+    private String requestPhoneNumber(String accessToken, String phoneCode) {
+        String url = UriComponentsBuilder
+            .fromHttpUrl(providerRegistry.descriptor(AuthProvider.WECHAT).extra("phoneNumberUri"))
+            .queryParam("access_token", accessToken)
+            .toUriString();
+        WechatApiResponse body = readBody(restTemplate.postForObject(url, Map.of("code", phoneCode), String.class));
+        return body.phoneInfo() != null ? emptyToNull(body.phoneInfo().phoneNumber()) : null;
+    }
+    
+    private AppAccessTokenCache.AppAccessToken loadAppAccessToken() {
+        ProviderDescriptor descriptor = providerRegistry.descriptor(AuthProvider.WECHAT);
+        WechatApiResponse body = readBody(restTemplate.postForObject(descriptor.tokenUri(), Map.of(
+            "grant_type", "client_credential",
+            "appid", descriptor.clientId(),
+            "secret", descriptor.clientSecret()
+        ), String.class));
+        
+        if (body.accessToken() == null || body.accessToken().isBlank()) {
+            throw new MiniappApiException(AuthProvider.WECHAT, MiniappApiException.MISSING_ACCESS_TOKEN, "stable_token returned no access_token");
+        }
+        // 缺少 expires_in 时按文档的 7200 秒计算，否则缓存的令牌立即过期，每次取用都会重新请求
+        long expiresIn = body.expiresIn() != null && body.expiresIn() > 0 ? body.expiresIn() : DEFAULT_APP_TOKEN_EXPIRES_IN;
+        return new AppAccessTokenCache.AppAccessToken(body.accessToken(), System.currentTimeMillis() + expiresIn * 1000);
+    }
+    
+    /**
+     * 直接绑定到 {@link WechatApiResponse}，不构建中间树，未知字段跳过
+     */
+    private WechatApiResponse readBody(String raw) {
+        WechatApiResponse body;
+        try {
+            body = objectMapper.readValue(raw, WechatApiResponse.class);
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new IllegalStateException("Invalid WeChat API response", e);
+        }
+        if (body.errorCode() != 0) {
+            throw new MiniappApiException(AuthProvider.WECHAT, body.errorCode(), body.errmsg());
+        }
+        return body;
+    }
+    
+    private static String emptyToNull(String value) {
+        return value != null && !value.isEmpty() ? value : null;
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.oauth2.session;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * userId -> 活跃会话ID 的本地缓存，开放寻址（线性探测）、long 键，不装箱
+ * 
+ * 容量在创建时固定，数组不会扩容；读取使用乐观读，写入持有写锁。
+ * 满了之后先清理过期项，仍然满时不再缓存，调用方直接使用从 Redis 读到的结果。
+ */
+final class LongSessionTable {
+    
+    /** 用户ID从 1 开始，负数不会作为键 */
+    private static final long EMPTY = Long.MIN_VALUE;
+    
+    private final long[] keys;
+    private final long[][] sessionIds;
+    private final long[] expiresAt;
+    private final int mask;
+    private final int maxSize;
+    private final StampedLock lock = new StampedLock();
+    
+    private int size;
+    
+    LongSessionTable(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+        // 负载因子不超过 0.5，保证探测链短且总有空槽
+        int capacity = Integer.highestOneBit(Math.max(2, this.maxSize * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.sessionIds = new long[capacity][];
+        this.expiresAt = new long[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+    
+    /**
+     * @return 缓存的会话ID，不存在或已过期时返回 null
+     */
+    long[] get(long userId, long now) {
+        long stamp = lock.tryOptimisticRead();
+        long[] result = find(userId, now);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                result = find(userId, now);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return result;
+    }
+    
+    private long[] find(long userId, long now) {
+        int index = indexFor(userId);
+        for (int probes = 0; probes <= mask; probes++) {
+            long key = keys[index];
+            if (key == EMPTY) {
+                return null;
+            }
+            if (key == userId) {
+                long[] ids = sessionIds[index];
+                return expiresAt[index] > now ? ids : null;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+    
+    void put(long userId, long[] ids, long expiry, long now) {
+        long stamp = lock.writeLock();
+        try {
+            int index = slotFor(userId);
+            if (keys[index] != userId) {
+                if (size >= maxSize) {
+                    purgeExpired(now);
+                    if (size >= maxSize) {
+                        return;
+                    }
+                    index = slotFor(userId);
+                }
+                keys[index] = userId;
+                size++;
+            }
+            sessionIds[index] = ids;
+            expiresAt[index] = expiry;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    void remove(long userId) {
+        long stamp = lock.writeLock();
+        try {
+            int index = slotFor(userId);
+            if (keys[index] == userId) {
+                delete(index);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+    
+    int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+    
+    /**
+     * 键所在的槽，不存在时返回探测链末尾的空槽；调用方持有写锁
+     */
+    private int slotFor(long userId) {
+        int index = indexFor(userId);
+        while (keys[index] != EMPTY && keys[index] != userId) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+    
+    /**
+     * 删除后把探测链上后续的项前移，不使用墓碑，查找不会因删除变慢
+     */
+    private void delete(int index) {
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = indexFor(keys[next]);
+            // home 不在 (gap, next] 区间内时，该项可以移到空位上
+            boolean movable = gap <= next ? (home <= gap || home > next) : (home <= gap && home > next);
+            if (movable) {
+                keys[gap] = keys[next];
+                sessionIds[gap] = sessionIds[next];
+                expiresAt[gap] = expiresAt[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        sessionIds[gap] = null;
+        expiresAt[gap] = 0;
+        size--;
+    }
+    
+    private void purgeExpired(long now) {
+        int index = 0;
+        while (index <= mask) {
+            // 前移后当前位置换成了新的项，需要再检查一次
+            if (keys[index] != EMPTY && expiresAt[index] <= now) {
+                delete(index);
+            } else {
+                index++;
+            }
+        }
+    }
+    
+    private int indexFor(long userId) {
+        long h = userId;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.oauth2.session;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+
+/**
+ * 会话登记配置
+ * 
+ * app.auth.sessions.*，每个用户的会话保存在 Redis 哈希中，本地只缓存活跃会话ID。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.auth.sessions")
+public class SessionProperties {
+    
+    /** 关闭后签发的令牌不带 sid，自省不检查会话 */
+    private boolean enabled = true;
+    
+    /** 每个用户最多保留的会话数，超出时淘汰最早登录的会话 */
+    private int maxPerUser = 5;
+    
+    /** 本地缓存的有效期，其他节点上的登出在这段时间内生效 */
+    private Duration localTtl = Duration.ofSeconds(10);
+    
+    /** 本地缓存最多容纳的用户数 */
+    private int localMaxUsers = 100_000;
+}
@@ -0,0 +1,296 @@
+package com.example.oauth2.session;
+
+import com.example.oauth2.model.ClientPlatform;
+import com.example.oauth2.security.TokenProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * 每个用户在各平台/设备上的活跃会话
+ * 
+ * Redis 哈希 oauth2:sessions:{userId}，字段为会话槽位（设备ID，没有时为平台），
+ * 值为 "sid:创建时间:过期时间:平台"。同一槽位再次登录会替换原会话，超过 max-per-user 时淘汰最早的会话。
+ * 请求路径上的检查先查本地 {@link LongSessionTable}，只信任其中的命中；本地没有该会话时读一次 Redis 哈希
+ * （不超过 max-per-user 项）再决定，不访问数据库。
+ */
+@Component
+public class SessionRegistry {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SessionRegistry.class);
+    
+    private static final String KEY_PREFIX = "oauth2:sessions:";
+    
+    private static final Pattern DEVICE_ID = Pattern.compile("[A-Za-z0-9._-]{1,64}");
+    
+    private static final long[] NO_SESSIONS = new long[0];
+    
+    /**
+     * 写入会话，删除已过期的会话，超出上限时按创建时间淘汰其他槽位，返回剩余的全部值
+     * KEYS[1] 哈希；ARGV: 槽位、值、上限、当前时间、本会话有效期（毫秒）
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> REGISTER_SCRIPT = new DefaultRedisScript<>("""
+        redis.call('hset', KEYS[1], ARGV[1], ARGV[2])
+        local max = tonumber(ARGV[3])
+        local now = tonumber(ARGV[4])
+        local entries = redis.call('hgetall', KEYS[1])
+        local live = {}
+        for i = 1, #entries, 2 do
+          local createdAt, expiresAt = string.match(entries[i + 1], '^[^:]+:(%d+):(%d+)')
+          if tonumber(expiresAt) <= now then
+            redis.call('hdel', KEYS[1], entries[i])
+          elseif entries[i] ~= ARGV[1] then
+            live[#live + 1] = {entries[i], tonumber(createdAt)}
+          end
+        end
+        table.sort(live, function(a, b) return a[2] < b[2] end)
+        for i = 1, #live - (max - 1) do
+          redis.call('hdel', KEYS[1], live[i][1])
+        end
+        if redis.call('pttl', KEYS[1]) < tonumber(ARGV[5]) then
+          redis.call('pexpire', KEYS[1], ARGV[5])
+        end
+        return redis.call('hvals', KEYS[1])
+        """, List.class);
+    
+    /**
+     * 读取全部会话值。只读，但以 EVAL 执行：Lettuce 总是把 EVAL 发往主节点，
+     * read-from 为 replicaPreferred 时普通的 HVALS 可能读到尚未复制新会话的副本
+     * KEYS[1] 哈希
+     */
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> VALUES_SCRIPT = new DefaultRedisScript<>("""
+        return redis.call('hvals', KEYS[1])
+        """, List.class);
+    
+    /**
+     * 删除指定会话，返回删除的数量
+     * KEYS[1] 哈希；ARGV[1] 会话ID（36进制）
+     */
+    private static final DefaultRedisScript<Long> REVOKE_SCRIPT = new DefaultRedisScript<>("""
+        local entries = redis.call('hgetall', KEYS[1])
+        local prefix = ARGV[1] .. ':'
+        local removed = 0
+        for i = 1, #entries, 2 do
+          if string.sub(entries[i + 1], 1, #prefix) == prefix then
+            removed = removed + redis.call('hdel', KEYS[1], entries[i])
+          end
+        end
+        return removed
+        """, Long.class);
+    
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+    
+    @Autowired
+    private SessionProperties properties;
+    
+    @Autowired
+    private TokenProvider tokenProvider;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private final SecureRandom random = new SecureRandom();
+    
+    private LongSessionTable table;
+    private Counter cachedCounter;
+    private Counter loadedCounter;
+    
+    public record Session(long id, String slot, ClientPlatform platform, long createdAt, long expiresAt) {
+        
+        public String sid() {
+            return Long.toString(id, 36);
+        }
+        
+        public String deviceId() {
+            return slot != null && slot.startsWith("d:") ? slot.substring(2) : null;
+        }
+    }
+    
+    @PostConstruct
+    public void init() {
+        table = new LongSessionTable(properties.getLocalMaxUsers());
+        cachedCounter = Counter.builder("oauth2.sessions.lookups").tag("source", "local").register(meterRegistry);
+        loadedCounter = Counter.builder("oauth2.sessions.lookups").tag("source", "redis").register(meterRegistry);
+        Gauge.builder("oauth2.sessions.cached.users", table, LongSessionTable::size)
+            .description("本地缓存了会话的用户数")
+            .register(meterRegistry);
+    }
+    
+    public boolean isEnabled() {
+        return properties.isEnabled();
+    }
+    
+    /**
+     * 登记一次登录，返回写入令牌的会话ID；未开启时返回 0
+     * 
+     * @param deviceId 客户端提供的设备标识，可选；不合法时按平台登记
+     */
+    public long register(long userId, ClientPlatform platform, String deviceId) {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+        
+        long sessionId;
+        do {
+            sessionId = random.nextLong() & Long.MAX_VALUE;
+        } while (sessionId == 0);
+        
+        long now = System.currentTimeMillis();
+        long ttl = tokenProvider.getExpirationTime(platform);
+        String value = Long.toString(sessionId, 36) + ":" + now + ":" + (now + ttl) + ":" + platform.name();
+        
+        @SuppressWarnings("unchecked")
+        List<String> remaining = redisTemplate.execute(REGISTER_SCRIPT, List.of(key(userId)),
+            slot(platform, deviceId), value, String.valueOf(Math.max(1, properties.getMaxPerUser())),
+            String.valueOf(now), String.valueOf(ttl));
+        cache(userId, remaining != null ? remaining : List.of(), now);
+        return sessionId;
+    }
+    
+    /**
+     * 请求路径上的检查：会话仍在登记中时返回 true
+     * 
+     * 没有 sid 的令牌（功能开启前签发）视为有效，直到自然过期；
+     * 本地缓存可能是其他实例登录之前加载的，缺少新会话，所以本地未包含时总是回源 Redis 主节点，只有主节点上也没有才拒绝。
+     * Redis 不可用时不因会话检查拒绝请求，此时已登出的令牌在恢复前仍然有效。
+     */
+    public boolean isActive(long userId, long sessionId) {
+        if (!properties.isEnabled() || sessionId == 0) {
+            return true;
+        }
+        
+        long now = System.currentTimeMillis();
+        long[] ids = table.get(userId, now);
+        if (ids != null && contains(ids, sessionId)) {
+            cachedCounter.increment();
+            return true;
+        }
+        
+        try {
+            @SuppressWarnings("unchecked")
+            List<String> values = redisTemplate.execute(VALUES_SCRIPT, List.of(key(userId)));
+            loadedCounter.increment();
+            ids = cache(userId, values != null ? values : List.of(), now);
+            return contains(ids, sessionId);
+        } catch (Exception e) {
+            logger.debug("读取会话失败，跳过会话检查: {}", e.getMessage());
+            return true;
+        }
+    }
+    
+    public List<Session> list(long userId) {
+        long now = System.currentTimeMillis();
+        List<Session> sessions = new ArrayList<>();
+        for (Map.Entry<Object, Object> entry : redisTemplate.opsForHash().entries(key(userId)).entrySet()) {
+            Session session = parse(entry.getKey().toString(), entry.getValue().toString());
+            if (session != null && session.expiresAt() > now) {
+                sessions.add(session);
+            }
+        }
+        sessions.sort(Comparator.comparingLong(Session::createdAt));
+        return sessions;
+    }
+    
+    /**
+     * 登出单个会话
+     * 
+     * @return 会话存在并被删除时返回 true
+     */
+    public boolean revoke(long userId, long sessionId) {
+        Long removed = redisTemplate.execute(REVOKE_SCRIPT, List.of(key(userId)), Long.toString(sessionId, 36));
+        // 下次检查重新从 Redis 读取
+        table.remove(userId);
+        if (removed == null || removed == 0) {
+            return false;
+        }
+        logger.info("会话已登出, userId: {}, sid: {}", userId, Long.toString(sessionId, 36));
+        return true;
+    }
+    
+    /**
+     * 登出全部设备
+     * 
+     * @return 删除的会话数
+     */
+    public int revokeAll(long userId) {
+        int count = list(userId).size();
+        redisTemplate.delete(key(userId));
+        long now = System.currentTimeMillis();
+        table.put(userId, NO_SESSIONS, now + properties.getLocalTtl().toMillis(), now);
+        logger.info("已登出用户的全部会话, userId: {}, 会话数: {}", userId, count);
+        return count;
+    }
+    
+    /**
+     * 把 Redis 中的值转换成会话ID数组写入本地缓存，已过期的会话不计入
+     */
+    private long[] cache(long userId, List<String> values, long now) {
+        long[] ids = new long[values.size()];
+        int count = 0;
+        for (String value : values) {
+            Session session = parse(null, value);
+            if (session != null && session.expiresAt() > now) {
+                ids[count++] = session.id();
+            }
+        }
+        ids = count == ids.length ? ids : Arrays.copyOf(ids, count);
+        table.put(userId, ids, now + properties.getLocalTtl().toMillis(), now);
+        return ids;
+    }
+    
+    private static Session parse(String slot, String value) {
+        String[] parts = value.split(":", 4);
+        if (parts.length < 4) {
+            return null;
+        }
+        try {
+            return new Session(
+                Long.parseLong(parts[0], 36),
+                slot,
+                ClientPlatform.valueOf(parts[3]),
+                Long.parseLong(parts[1]),
+                Long.parseLong(parts[2])
+            );
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
+    private static boolean contains(long[] ids, long sessionId) {
+        // 每个用户最多 max-per-user 个会话，线性查找即可
+        for (long id : ids) {
+            if (id == sessionId) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static String slot(ClientPlatform platform, String deviceId) {
+        if (deviceId != null && DEVICE_ID.matcher(deviceId).matches()) {
+            return "d:" + deviceId;
+        }
+        return "p:" + platform.name();
+    }
+    
+    private static String key(long userId) {
+        return KEY_PREFIX + userId;
+    }
+}
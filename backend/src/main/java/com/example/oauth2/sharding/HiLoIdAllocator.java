@@ -0,0 +1,105 @@
+package com.example.oauth2.sharding;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 全局ID分配（hi/lo）
+ * 
+ * 主库 id_block 表为每个序列记录下一个 hi，节点每次用 CAS 更新预留 [hi * blockSize, (hi + 1) * blockSize) 号段，
+ * 之后在本地递增，不需要每个ID访问一次主库。各节点的号段互不重叠，ID全局唯一但不严格递增。
+ * 
+ * 预留号段在独立事务（REQUIRES_NEW）中提交：调用方的登录事务回滚时号段不会被撤销，
+ * 否则本节点仍在使用的号段会被其他节点再次预留，分配出重复的ID。每次 CAS 尝试都是新事务，
+ * 可重复读隔离级别下也能读到其他节点提交的最新值。
+ */
+public class HiLoIdAllocator {
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int blockSize;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+    
+    public HiLoIdAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager, int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = Math.max(1, blockSize);
+    }
+    
+    public long nextId(String sequence) {
+        return blocks.computeIfAbsent(sequence, Block::new).next();
+    }
+    
+    /**
+     * 保证之后分配的ID都大于 maxExistingId，从单库导入已有数据后调用
+     */
+    public void advancePast(String sequence, long maxExistingId) {
+        long minHi = maxExistingId / blockSize + 1;
+        ensureRow(sequence);
+        transactionTemplate.executeWithoutResult(status ->
+            jdbcTemplate.update("UPDATE id_block SET next_hi = ? WHERE name = ? AND next_hi < ?", minHi, sequence, minHi));
+        blocks.remove(sequence);
+    }
+    
+    private long reserveHi(String sequence) {
+        while (true) {
+            Long hi = transactionTemplate.execute(status -> tryReserveHi(sequence));
+            if (hi == null) {
+                ensureRow(sequence);
+            } else if (hi >= 0) {
+                return hi;
+            }
+        }
+    }
+    
+    /**
+     * @return 预留到的 hi；CAS 失败返回 -1，序列不存在返回 null
+     */
+    private Long tryReserveHi(String sequence) {
+        List<Long> current = jdbcTemplate.queryForList("SELECT next_hi FROM id_block WHERE name = ?", Long.class, sequence);
+        if (current.isEmpty()) {
+            return null;
+        }
+        long hi = current.get(0);
+        if (jdbcTemplate.update("UPDATE id_block SET next_hi = ? WHERE name = ? AND next_hi = ?", hi + 1, sequence, hi) == 1) {
+            return hi;
+        }
+        return -1L;
+    }
+    
+    private void ensureRow(String sequence) {
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.update("INSERT INTO id_block (name, next_hi) VALUES (?, 1)", sequence));
+        } catch (DuplicateKeyException e) {
+            // 其他节点已创建
+        }
+    }
+    
+    private class Block {
+        
+        private final String sequence;
+        private long next;
+        private long end;
+        
+        Block(String sequence) {
+            this.sequence = sequence;
+        }
+        
+        synchronized long next() {
+            if (next >= end) {
+                long hi = reserveHi(sequence);
+                next = hi * blockSize;
+                end = next + blockSize;
+            }
+            return next++;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.oauth2.sharding;
+
+import com.example.oauth2.model.User;
+import com.example.oauth2.model.UserAuth;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 分片数据迁移
+ * 
+ * importFromPrimary：从单库迁移到分片时执行，把主库的 users/user_auth 复制到归属分片并建立邮箱索引。
+ * rebalance：修改 active-shards 后执行，把不在归属分片上的行搬过去。
+ * 
+ * 两者都按ID键集分页，每行先写目标再删源（导入不删主库）；目标上已有同一行（上次中断前已复制）时跳过，
+ * 因此中断后直接重新执行即可。目标上同ID的行属于另一个用户/身份时说明ID冲突，立即中止，不覆盖也不跳过。rebalance 期间需要配置 previous-active-shards，登录路径会在新旧分片上都查找。
+ */
+public class ReshardingTool {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReshardingTool.class);
+    
+    private static final int PAGE_SIZE = 500;
+    
+    private final ShardRouter router;
+    private final ShardedIdentityStore store;
+    private final HiLoIdAllocator idAllocator;
+    
+    public ReshardingTool(ShardRouter router, ShardedIdentityStore store, HiLoIdAllocator idAllocator) {
+        this.router = router;
+        this.store = store;
+        this.idAllocator = idAllocator;
+    }
+    
+    public record Report(boolean dryRun, long usersScanned, long usersMoved, long accountsScanned, long accountsMoved) {
+    }
+    
+    /**
+     * 先把ID分配推进到主库已有最大ID之后，再复制主库（JPA 表）中的用户和绑定账号，
+     * 导入期间的新登录不会分配到与旧数据相同的ID
+     */
+    public synchronized Report importFromPrimary(JdbcTemplate primary, boolean dryRun) {
+        logger.info("开始从主库导入身份数据, dryRun: {}", dryRun);
+        if (!dryRun) {
+            idAllocator.advancePast("users", maxId(primary, "users"));
+            idAllocator.advancePast("user_auth", maxId(primary, "user_auth"));
+        }
+        
+        long usersScanned = 0;
+        long usersMoved = 0;
+        long maxUserId = 0;
+        List<User> users;
+        do {
+            users = primary.query("SELECT " + ShardedIdentityStore.USER_COLUMNS + " FROM users WHERE id > ? ORDER BY id LIMIT ?",
+                ShardedIdentityStore.USER_MAPPER, maxUserId, PAGE_SIZE);
+            for (User user : users) {
+                usersScanned++;
+                maxUserId = user.getId();
+                if (!dryRun) {
+                    usersMoved += copyUser(router.shardForUser(user.getId()), user) ? 1 : 0;
+                    if (user.getEmail() != null) {
+                        store.indexEmail(user.getEmail(), user.getId());
+                    }
+                }
+            }
+        } while (users.size() == PAGE_SIZE);
+        
+        long accountsScanned = 0;
+        long accountsMoved = 0;
+        long maxAuthId = 0;
+        List<UserAuth> accounts;
+        do {
+            accounts = primary.query("SELECT " + ShardedIdentityStore.AUTH_COLUMNS + " FROM user_auth WHERE id > ? ORDER BY id LIMIT ?",
+                ShardedIdentityStore.AUTH_MAPPER, maxAuthId, PAGE_SIZE);
+            for (UserAuth userAuth : accounts) {
+                accountsScanned++;
+                maxAuthId = userAuth.getId();
+                if (!dryRun) {
+                    int target = router.shardForIdentity(userAuth.getProvider(), userAuth.getProviderUserId());
+                    accountsMoved += copyAuth(target, userAuth) ? 1 : 0;
+                }
+            }
+        } while (accounts.size() == PAGE_SIZE);
+        
+        Report report = new Report(dryRun, usersScanned, usersMoved, accountsScanned, accountsMoved);
+        logger.info("主库导入完成: {}", report);
+        return report;
+    }
+    
+    /**
+     * 扫描所有可能有数据的分片，把归属已变化的行搬到当前归属分片
+     */
+    public synchronized Report rebalance(boolean dryRun) {
+        logger.info("开始重新分布分片数据, 分片数 {} -> {}, dryRun: {}",
+            router.getPreviousActiveShards(), router.getActiveShards(), dryRun);
+        long usersScanned = 0;
+        long usersMoved = 0;
+        long accountsScanned = 0;
+        long accountsMoved = 0;
+        
+        List<ShardRouter.Shard> shards = router.populatedShards();
+        for (int source = 0; source < shards.size(); source++) {
+            JdbcTemplate jdbcTemplate = shards.get(source).jdbcTemplate();
+            
+            long after = 0;
+            List<User> users;
+            do {
+                users = jdbcTemplate.query("SELECT " + ShardedIdentityStore.USER_COLUMNS + " FROM users WHERE id > ? ORDER BY id LIMIT ?",
+                    ShardedIdentityStore.USER_MAPPER, after, PAGE_SIZE);
+                for (User user : users) {
+                    usersScanned++;
+                    after = user.getId();
+                    int target = router.shardForUser(user.getId());
+                    if (target == source) {
+                        continue;
+                    }
+                    usersMoved++;
+                    if (!dryRun) {
+                        copyUser(target, user);
+                        jdbcTemplate.update("DELETE FROM users WHERE id = ?", user.getId());
+                    }
+                }
+            } while (users.size() == PAGE_SIZE);
+            
+            after = 0;
+            List<UserAuth> accounts;
+            do {
+                accounts = jdbcTemplate.query("SELECT " + ShardedIdentityStore.AUTH_COLUMNS + " FROM user_auth WHERE id > ? ORDER BY id LIMIT ?",
+                    ShardedIdentityStore.AUTH_MAPPER, after, PAGE_SIZE);
+                for (UserAuth userAuth : accounts) {
+                    accountsScanned++;
+                    after = userAuth.getId();
+                    int target = router.shardForIdentity(userAuth.getProvider(), userAuth.getProviderUserId());
+                    if (target == source) {
+                        continue;
+                    }
+                    accountsMoved++;
+                    if (!dryRun) {
+                        copyAuth(target, userAuth);
+                        jdbcTemplate.update("DELETE FROM user_auth WHERE id = ?", userAuth.getId());
+                    }
+                }
+            } while (accounts.size() == PAGE_SIZE);
+            
+            logger.info("分片 {} 扫描完成", shards.get(source).name());
+        }
+        
+        Report report = new Report(dryRun, usersScanned, usersMoved, accountsScanned, accountsMoved);
+        logger.info("分片数据重新分布完成: {}", report);
+        return report;
+    }
+    
+    private static long maxId(JdbcTemplate jdbcTemplate, String table) {
+        Long max = jdbcTemplate.queryForObject("SELECT MAX(id) FROM " + table, Long.class);
+        return max != null ? max : 0;
+    }
+    
+    /**
+     * @return 目标分片上原本没有该行；已有同一用户时返回 false，同ID的其他用户抛出异常
+     */
+    private boolean copyUser(int target, User user) {
+        JdbcTemplate jdbcTemplate = router.shard(target).jdbcTemplate();
+        try {
+            jdbcTemplate.update(ShardedIdentityStore.INSERT_USER,
+                user.getId(), user.getName(), user.getEmail(), user.getPhone(), user.getImageUrl(),
+                user.getPrimaryProvider() != null ? user.getPrimaryProvider().name() : null);
+            return true;
+        } catch (DuplicateKeyException e) {
+            List<User> existing = jdbcTemplate.query(
+                "SELECT " + ShardedIdentityStore.USER_COLUMNS + " FROM users WHERE id = ?", ShardedIdentityStore.USER_MAPPER, user.getId());
+            if (!existing.isEmpty() && sameUser(existing.get(0), user)) {
+                return false;
+            }
+            throw new IllegalStateException("User id " + user.getId() + " on shard " + router.shard(target).name()
+                + " belongs to a different user, aborting", e);
+        }
+    }
+    
+    /**
+     * 目标分片上同一身份已有行时（已复制过，或迁移期间新登录写入了新分片）保留目标上的行；
+     * 同ID的行是另一个身份时是主键冲突，抛出异常
+     */
+    private boolean copyAuth(int target, UserAuth userAuth) {
+        JdbcTemplate jdbcTemplate = router.shard(target).jdbcTemplate();
+        try {
+            jdbcTemplate.update(ShardedIdentityStore.INSERT_AUTH, ShardedIdentityStore.authValues(userAuth));
+            return true;
+        } catch (DuplicateKeyException e) {
+            List<UserAuth> sameId = jdbcTemplate.query(
+                "SELECT " + ShardedIdentityStore.AUTH_COLUMNS + " FROM user_auth WHERE id = ?", ShardedIdentityStore.AUTH_MAPPER, userAuth.getId());
+            if (!sameId.isEmpty() && !sameIdentity(sameId.get(0), userAuth)) {
+                throw new IllegalStateException("Account id " + userAuth.getId() + " on shard " + router.shard(target).name()
+                    + " belongs to a different identity, aborting", e);
+            }
+            List<UserAuth> sameIdentity = jdbcTemplate.query(
+                "SELECT " + ShardedIdentityStore.AUTH_COLUMNS + " FROM user_auth WHERE provider = ? AND provider_user_id = ?",
+                ShardedIdentityStore.AUTH_MAPPER, userAuth.getProvider().name(), userAuth.getProviderUserId());
+            if (!sameIdentity.isEmpty() && !sameIdentity.get(0).getUser().getId().equals(userAuth.getUser().getId())) {
+                logger.warn("身份 {}:{} 在分片 {} 上已绑定用户 {}，保留分片上的数据（源用户 {}）",
+                    userAuth.getProvider(), userAuth.getProviderUserId(), router.shard(target).name(),
+                    sameIdentity.get(0).getUser().getId(), userAuth.getUser().getId());
+            }
+            return false;
+        }
+    }
+    
+    private static boolean sameUser(User a, User b) {
+        return Objects.equals(a.getEmail(), b.getEmail())
+            && Objects.equals(a.getName(), b.getName())
+            && a.getPrimaryProvider() == b.getPrimaryProvider();
+    }
+    
+    private static boolean sameIdentity(UserAuth a, UserAuth b) {
+        return a.getProvider() == b.getProvider()
+            && Objects.equals(a.getProviderUserId(), b.getProviderUserId())
+            && a.getUser().getId().equals(b.getUser().getId());
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.oauth2.sharding;
+
+import com.example.oauth2.model.AuthProvider;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 分片路由：身份按 (provider, providerUserId) 哈希，用户按ID哈希，对参与路由的分片数取模
+ * 
+ * 哈希只依赖输入字节，不依赖 JVM 的 hashCode 实现，分片归属在进程和版本之间保持稳定。
+ */
+public class ShardRouter {
+    
+    private final List<Shard> shards;
+    private final int activeShards;
+    private final int previousActiveShards;
+    
+    public ShardRouter(List<Shard> shards, int activeShards, int previousActiveShards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shards = List.copyOf(shards);
+        this.activeShards = activeShards > 0 ? Math.min(activeShards, shards.size()) : shards.size();
+        this.previousActiveShards = Math.min(previousActiveShards, shards.size());
+    }
+    
+    public int shardForIdentity(AuthProvider provider, String providerUserId) {
+        return Math.floorMod(identityHash(provider, providerUserId), activeShards);
+    }
+    
+    /**
+     * 迁移期间身份在旧布局下的分片，未在迁移或归属未变时返回 -1
+     */
+    public int previousShardForIdentity(AuthProvider provider, String providerUserId) {
+        if (!isMigrating()) {
+            return -1;
+        }
+        long hash = identityHash(provider, providerUserId);
+        int previous = Math.floorMod(hash, previousActiveShards);
+        return previous != Math.floorMod(hash, activeShards) ? previous : -1;
+    }
+    
+    public int shardForUser(long userId) {
+        return Math.floorMod(mix(userId), activeShards);
+    }
+    
+    public int previousShardForUser(long userId) {
+        if (!isMigrating()) {
+            return -1;
+        }
+        long hash = mix(userId);
+        int previous = Math.floorMod(hash, previousActiveShards);
+        return previous != Math.floorMod(hash, activeShards) ? previous : -1;
+    }
+    
+    public boolean isMigrating() {
+        return previousActiveShards > 0 && previousActiveShards != activeShards;
+    }
+    
+    public Shard shard(int index) {
+        return shards.get(index);
+    }
+    
+    /**
+     * 可能存有数据的分片：参与路由的分片，加上迁移期间旧布局中的分片
+     */
+    public List<Shard> populatedShards() {
+        return shards.subList(0, Math.max(activeShards, previousActiveShards));
+    }
+    
+    public List<Shard> allShards() {
+        return shards;
+    }
+    
+    public int getActiveShards() {
+        return activeShards;
+    }
+    
+    public int getPreviousActiveShards() {
+        return previousActiveShards;
+    }
+    
+    /**
+     * 容器关闭时关闭各分片连接池
+     */
+    public void close() {
+        shards.forEach(shard -> shard.dataSource().close());
+    }
+    
+    /**
+     * FNV-1a 后再做一次 64 位混合，短的顺序ID也能均匀分布
+     */
+    static long identityHash(AuthProvider provider, String providerUserId) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : (provider.name() + ':' + providerUserId).getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+    
+    /**
+     * MurmurHash3 fmix64
+     */
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+    
+    public record Shard(String name, HikariDataSource dataSource, JdbcTemplate jdbcTemplate) {
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.oauth2.sharding;
+
+import com.example.oauth2.model.AuthProvider;
+import com.example.oauth2.model.ClientPlatform;
+import com.example.oauth2.model.User;
+import com.example.oauth2.model.UserAuth;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 分片后的 users/user_auth 读写，替代 UserRepository/UserAuthRepository 在登录路径上的调用
+ * 
+ * 返回的 User/UserAuth 是普通对象，不受 JPA 管理，修改后需要调用本类的方法写回。
+ * 分片写入不参与主库事务：user_auth 上 (provider, provider_user_id) 的唯一约束仍然保证同一身份只有一行，
+ * 冲突时抛出 DuplicateKeyException，由调用方重试或清理。
+ */
+public class ShardedIdentityStore {
+    
+    static final String USER_COLUMNS = "id, name, email, phone, image_url, primary_provider";
+    static final String AUTH_COLUMNS = "id, user_id, provider, platform, provider_user_id, union_id, email, name, image_url, created_at, last_login_at";
+    
+    static final String INSERT_USER = "INSERT INTO users (" + USER_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?)";
+    static final String INSERT_AUTH = "INSERT INTO user_auth (" + AUTH_COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    
+    static final RowMapper<User> USER_MAPPER = (rs, rowNum) -> {
+        User user = new User();
+        user.setId(rs.getLong("id"));
+        user.setName(rs.getString("name"));
+        user.setEmail(rs.getString("email"));
+        user.setPhone(rs.getString("phone"));
+        user.setImageUrl(rs.getString("image_url"));
+        String primaryProvider = rs.getString("primary_provider");
+        user.setPrimaryProvider(primaryProvider != null ? AuthProvider.valueOf(primaryProvider) : null);
+        return user;
+    };
+    
+    /**
+     * user 只带ID，需要时再到用户所在分片加载
+     */
+    static final RowMapper<UserAuth> AUTH_MAPPER = (rs, rowNum) -> {
+        User user = new User();
+        user.setId(rs.getLong("user_id"));
+        
+        UserAuth userAuth = new UserAuth();
+        userAuth.setId(rs.getLong("id"));
+        userAuth.setUser(user);
+        userAuth.setProvider(AuthProvider.valueOf(rs.getString("provider")));
+        String platform = rs.getString("platform");
+        userAuth.setPlatform(platform != null ? ClientPlatform.valueOf(platform) : null);
+        userAuth.setProviderUserId(rs.getString("provider_user_id"));
+        userAuth.setUnionId(rs.getString("union_id"));
+        userAuth.setEmail(rs.getString("email"));
+        userAuth.setName(rs.getString("name"));
+        userAuth.setImageUrl(rs.getString("image_url"));
+        Timestamp createdAt = rs.getTimestamp("created_at");
+        userAuth.setCreatedAt(createdAt != null ? createdAt.toLocalDateTime() : null);
+        Timestamp lastLoginAt = rs.getTimestamp("last_login_at");
+        userAuth.setLastLoginAt(lastLoginAt != null ? lastLoginAt.toLocalDateTime() : null);
+        return userAuth;
+    };
+    
+    private final ShardRouter router;
+    private final HiLoIdAllocator idAllocator;
+    private final JdbcTemplate globalJdbcTemplate;
+    
+    public ShardedIdentityStore(ShardRouter router, HiLoIdAllocator idAllocator, JdbcTemplate globalJdbcTemplate) {
+        this.router = router;
+        this.idAllocator = idAllocator;
+        this.globalJdbcTemplate = globalJdbcTemplate;
+    }
+    
+    /**
+     * 按身份查找绑定账号并加载所属用户；迁移期间归属分片上没有时再查旧分片
+     */
+    public Optional<UserAuth> findAuth(AuthProvider provider, String providerUserId) {
+        UserAuth userAuth = findAuthOn(router.shardForIdentity(provider, providerUserId), provider, providerUserId);
+        if (userAuth == null) {
+            int previous = router.previousShardForIdentity(provider, providerUserId);
+            if (previous >= 0) {
+                userAuth = findAuthOn(previous, provider, providerUserId);
+            }
+        }
+        if (userAuth == null) {
+            return Optional.empty();
+        }
+        
+        Long userId = userAuth.getUser().getId();
+        userAuth.setUser(findUser(userId).orElseThrow(
+            () -> new IllegalStateException("user_auth " + userAuth.getId() + " references missing user " + userId)));
+        return Optional.of(userAuth);
+    }
+    
+    public Optional<User> findUser(Long userId) {
+        User user = findUserOn(router.shardForUser(userId), userId);
+        if (user == null) {
+            int previous = router.previousShardForUser(userId);
+            if (previous >= 0) {
+                user = findUserOn(previous, userId);
+            }
+        }
+        return Optional.ofNullable(user);
+    }
+    
+    /**
+     * 通过主库的邮箱索引定位用户，不需要查询所有分片
+     */
+    public Optional<User> findUserByEmail(String email) {
+        List<Long> userIds = globalJdbcTemplate.queryForList(
+            "SELECT user_id FROM user_email_index WHERE email = ?", Long.class, email);
+        return userIds.isEmpty() ? Optional.empty() : findUser(userIds.get(0));
+    }
+    
+    /**
+     * unionId 没有全局索引，需要查询所有分片；只在小程序账号首次登录时调用
+     */
+    public Optional<User> findUserByUnionId(AuthProvider provider, String unionId) {
+        for (ShardRouter.Shard shard : router.populatedShards()) {
+            List<Long> userIds = shard.jdbcTemplate().queryForList(
+                "SELECT user_id FROM user_auth WHERE provider = ? AND union_id = ? LIMIT 1",
+                Long.class, provider.name(), unionId);
+            if (!userIds.isEmpty()) {
+                return findUser(userIds.get(0));
+            }
+        }
+        return Optional.empty();
+    }
+    
+    /**
+     * 分配全局ID并写入用户所在分片；邮箱索引已有其他用户时保留原映射，与单库下 findByEmail 取第一个一致
+     */
+    public User createUser(User user) {
+        user.setId(idAllocator.nextId("users"));
+        router.shard(router.shardForUser(user.getId())).jdbcTemplate().update(INSERT_USER,
+            user.getId(), user.getName(), user.getEmail(), user.getPhone(), user.getImageUrl(),
+            user.getPrimaryProvider() != null ? user.getPrimaryProvider().name() : null);
+        if (user.getEmail() != null) {
+            indexEmail(user.getEmail(), user.getId());
+        }
+        return user;
+    }
+    
+    public UserAuth createAuth(UserAuth userAuth) {
+        LocalDateTime now = LocalDateTime.now();
+        userAuth.setId(idAllocator.nextId("user_auth"));
+        userAuth.setCreatedAt(now);
+        userAuth.setLastLoginAt(now);
+        router.shard(router.shardForIdentity(userAuth.getProvider(), userAuth.getProviderUserId())).jdbcTemplate()
+            .update(INSERT_AUTH, authValues(userAuth));
+        return userAuth;
+    }
+    
+    /**
+     * 更新最近登录时间和 unionId；迁移期间行可能还在旧分片上
+     */
+    public void touchLogin(UserAuth userAuth) {
+        userAuth.setLastLoginAt(LocalDateTime.now());
+        AuthProvider provider = userAuth.getProvider();
+        String providerUserId = userAuth.getProviderUserId();
+        
+        int updated = updateLogin(router.shardForIdentity(provider, providerUserId), userAuth);
+        int previous = router.previousShardForIdentity(provider, providerUserId);
+        if (updated == 0 && previous >= 0) {
+            updateLogin(previous, userAuth);
+        }
+    }
+    
+    /**
+     * 登录事务未提交时清理刚创建的绑定账号，按ID删除，不会删掉并发登录写入的同一身份
+     */
+    public void deleteAuth(UserAuth userAuth) {
+        router.shard(router.shardForIdentity(userAuth.getProvider(), userAuth.getProviderUserId())).jdbcTemplate()
+            .update("DELETE FROM user_auth WHERE id = ?", userAuth.getId());
+    }
+    
+    /**
+     * 登录事务未提交时清理刚创建的用户和邮箱索引
+     */
+    public void deleteUser(User user) {
+        router.shard(router.shardForUser(user.getId())).jdbcTemplate()
+            .update("DELETE FROM users WHERE id = ?", user.getId());
+        if (user.getEmail() != null) {
+            globalJdbcTemplate.update("DELETE FROM user_email_index WHERE email = ? AND user_id = ?", user.getEmail(), user.getId());
+        }
+    }
+    
+    void indexEmail(String email, long userId) {
+        try {
+            globalJdbcTemplate.update("INSERT INTO user_email_index (email, user_id) VALUES (?, ?)", email, userId);
+        } catch (DuplicateKeyException e) {
+            // 保留先写入的映射
+        }
+    }
+    
+    static Object[] authValues(UserAuth userAuth) {
+        return new Object[] {
+            userAuth.getId(),
+            userAuth.getUser().getId(),
+            userAuth.getProvider().name(),
+            userAuth.getPlatform() != null ? userAuth.getPlatform().name() : null,
+            userAuth.getProviderUserId(),
+            userAuth.getUnionId(),
+            userAuth.getEmail(),
+            userAuth.getName(),
+            userAuth.getImageUrl(),
+            userAuth.getCreatedAt() != null ? Timestamp.valueOf(userAuth.getCreatedAt()) : null,
+            userAuth.getLastLoginAt() != null ? Timestamp.valueOf(userAuth.getLastLoginAt()) : null
+        };
+    }
+    
+    private UserAuth findAuthOn(int shard, AuthProvider provider, String providerUserId) {
+        List<UserAuth> rows = router.shard(shard).jdbcTemplate().query(
+            "SELECT " + AUTH_COLUMNS + " FROM user_auth WHERE provider = ? AND provider_user_id = ?",
+            AUTH_MAPPER, provider.name(), providerUserId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+    
+    private User findUserOn(int shard, Long userId) {
+        List<User> rows = router.shard(shard).jdbcTemplate().query(
+            "SELECT " + USER_COLUMNS + " FROM users WHERE id = ?", USER_MAPPER, userId);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+    
+    private int updateLogin(int shard, UserAuth userAuth) {
+        return router.shard(shard).jdbcTemplate().update(
+            "UPDATE user_auth SET last_login_at = ?, union_id = ? WHERE provider = ? AND provider_user_id = ?",
+            Timestamp.valueOf(userAuth.getLastLoginAt()), userAuth.getUnionId(),
+            userAuth.getProvider().name(), userAuth.getProviderUserId());
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.oauth2.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 配置了 app.sharding.shards 时启用身份数据分片
+ * 
+ * 每个分片一个独立连接池；主库（spring.datasource）保存 id_block 和 user_email_index 两张全局表。
+ * initialize-schema 使用 H2/MariaDB 的 CREATE ... IF NOT EXISTS 语法，生产环境应关闭并自行管理表结构。
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "app.sharding.shards[0]", name = "url")
+public class ShardingConfig {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ShardingConfig.class);
+    
+    private static final List<String> SHARD_SCHEMA = List.of(
+        "CREATE TABLE IF NOT EXISTS users (id BIGINT PRIMARY KEY, name VARCHAR(255), email VARCHAR(255), "
+            + "phone VARCHAR(255), image_url VARCHAR(500), primary_provider VARCHAR(32))",
+        "CREATE TABLE IF NOT EXISTS user_auth (id BIGINT PRIMARY KEY, user_id BIGINT NOT NULL, provider VARCHAR(32) NOT NULL, "
+            + "platform VARCHAR(32), provider_user_id VARCHAR(255) NOT NULL, union_id VARCHAR(255), email VARCHAR(255), "
+            + "name VARCHAR(255), image_url VARCHAR(500), created_at TIMESTAMP, last_login_at TIMESTAMP, "
+            + "CONSTRAINT uk_user_auth_identity UNIQUE (provider, provider_user_id))",
+        "CREATE INDEX IF NOT EXISTS idx_user_auth_union ON user_auth (provider, union_id)",
+        "CREATE INDEX IF NOT EXISTS idx_user_auth_user ON user_auth (user_id)"
+    );
+    
+    private static final List<String> GLOBAL_SCHEMA = List.of(
+        "CREATE TABLE IF NOT EXISTS id_block (name VARCHAR(64) PRIMARY KEY, next_hi BIGINT NOT NULL)",
+        "CREATE TABLE IF NOT EXISTS user_email_index (email VARCHAR(255) PRIMARY KEY, user_id BIGINT NOT NULL)"
+    );
+    
+    @Bean
+    public ShardRouter shardRouter(ShardingProperties properties) {
+        List<ShardRouter.Shard> shards = new ArrayList<>();
+        for (int i = 0; i < properties.getShards().size(); i++) {
+            ShardingProperties.Shard config = properties.getShards().get(i);
+            String name = config.getName() != null ? config.getName() : "shard-" + i;
+            
+            HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(config.getUrl())
+                .username(config.getUsername())
+                .password(config.getPassword())
+                .driverClassName(config.getDriverClassName())
+                .build();
+            dataSource.setPoolName(name);
+            dataSource.setMaximumPoolSize(config.getMaximumPoolSize());
+            
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+            if (properties.isInitializeSchema()) {
+                SHARD_SCHEMA.forEach(jdbcTemplate::execute);
+            }
+            shards.add(new ShardRouter.Shard(name, dataSource, jdbcTemplate));
+        }
+        
+        ShardRouter router = new ShardRouter(shards, properties.getActiveShards(), properties.getPreviousActiveShards());
+        logger.info("身份数据分片已启用: 分片 {} 个, 参与路由 {} 个{}", shards.size(), router.getActiveShards(),
+            router.isMigrating() ? ", 迁移中（旧分片数 " + router.getPreviousActiveShards() + "）" : "");
+        return router;
+    }
+    
+    @Bean
+    public HiLoIdAllocator hiLoIdAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                           ShardingProperties properties) {
+        if (properties.isInitializeSchema()) {
+            GLOBAL_SCHEMA.forEach(jdbcTemplate::execute);
+        }
+        return new HiLoIdAllocator(jdbcTemplate, transactionManager, properties.getIdBlockSize());
+    }
+    
+    @Bean
+    public ShardedIdentityStore shardedIdentityStore(ShardRouter shardRouter, HiLoIdAllocator hiLoIdAllocator,
+                                                     JdbcTemplate jdbcTemplate) {
+        return new ShardedIdentityStore(shardRouter, hiLoIdAllocator, jdbcTemplate);
+    }
+    
+    @Bean
+    public ReshardingTool reshardingTool(ShardRouter shardRouter, ShardedIdentityStore shardedIdentityStore,
+                                         HiLoIdAllocator hiLoIdAllocator) {
+        return new ReshardingTool(shardRouter, shardedIdentityStore, hiLoIdAllocator);
+    }
+    
+    @Bean
+    public HealthIndicator shardsHealthIndicator(ShardRouter shardRouter) {
+        return () -> {
+            Health.Builder builder = Health.up();
+            for (ShardRouter.Shard shard : shardRouter.populatedShards()) {
+                try (Connection connection = shard.dataSource().getConnection()) {
+                    if (connection.isValid(1)) {
+                        builder.withDetail(shard.name(), "UP");
+                    } else {
+                        builder.down().withDetail(shard.name(), "DOWN");
+                    }
+                } catch (Exception e) {
+                    // 任一分片不可用时，路由到该分片的登录都会失败
+                    builder.down().withDetail(shard.name(), "DOWN: " + e.getMessage());
+                }
+            }
+            return builder.build();
+        };
+    }
+}
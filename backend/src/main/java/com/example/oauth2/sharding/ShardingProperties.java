@@ -0,0 +1,47 @@
+package com.example.oauth2.sharding;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 身份数据分片配置 app.sharding.*
+ * 
+ * shards 为空时不启用分片，users/user_auth 仍由 JPA 存在主库。
+ * 启用后 user_auth 按 (provider, providerUserId) 的哈希、users 按用户ID的哈希分布到前 active-shards 个分片；
+ * 主库只保存全局的ID分配表和邮箱索引。
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "app.sharding")
+public class ShardingProperties {
+    
+    private List<Shard> shards = new ArrayList<>();
+    
+    /** 参与路由的分片数，0 表示全部；缩容时先减小该值，迁移完成后再从 shards 中删除多余的分片 */
+    private int activeShards;
+    
+    /**
+     * 扩缩容迁移期间设为变更前的分片数：归属分片上查不到时再到旧分片上查，
+     * ReshardingTool 完成后删除该配置
+     */
+    private int previousActiveShards;
+    
+    /** hi/lo 分配ID时每次从主库预留的号段大小，进程重启会丢弃未用完的号段 */
+    private int idBlockSize = 1000;
+    
+    /** 启动时在各分片和主库上创建缺少的表 */
+    private boolean initializeSchema = true;
+    
+    @Data
+    public static class Shard {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private int maximumPoolSize = 10;
+    }
+}
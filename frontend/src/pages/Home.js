@@ -10,10 +10,11 @@ function Home() {
     if (token) {
       try {
         const payload = JSON.parse(atob(token.split('.')[1]));
+        // 精简配置的令牌使用短键名 n/e/p
         setUserInfo({
-          name: payload.name || '用户',
-          email: payload.email || '',
-          platform: payload.platform || 'WEB'
+          name: payload.name || payload.n || '用户',
+          email: payload.email || payload.e || '',
+          platform: payload.platform || payload.p || 'WEB'
         });
       } catch (error) {
         console.error('解析 token 失败:', error);
@@ -121,8 +121,14 @@ class OAuth2Service {
         throw new Error('未获取到授权 URL');
       }
       
+      // 后端以服务端生成的 state 为准
+      const serverState = data.result?.state || data.state;
+      if (serverState) {
+        sessionStorage.setItem('oauth2_state', serverState);
+      }
+      
       console.log('OAuth2 授权 URL 获取成功');
-      console.log('State:', state);
+      console.log('State:', serverState || state);
       
       // 跳转到授权页面
       window.location.href = authorizationUrl;
@@ -0,0 +1,117 @@
+#!/bin/bash
+#
+# 用本地 redis-server 进程搭建 Redis Cluster 或 Sentinel 拓扑，用于验证多节点部署和故障转移
+#
+#   ./redis-topology.sh cluster     6 个节点（3 主 3 从），端口 7000-7005
+#   ./redis-topology.sh sentinel    1 主 2 从（6380-6382）+ 3 个 sentinel（26379-26381）
+#   ./redis-topology.sh failover    触发一次主从切换（cluster 或 sentinel 均可）
+#   ./redis-topology.sh stop        停止所有进程并删除数据目录
+#
+# 需要本机安装 redis-server / redis-cli（6.2 及以上，state 使用 GETDEL）
+
+set -e
+
+BASE_DIR="${REDIS_TOPOLOGY_DIR:-/tmp/oauth2-redis}"
+CLUSTER_PORTS="7000 7001 7002 7003 7004 7005"
+SENTINEL_DATA_PORTS="6380 6381 6382"
+SENTINEL_PORTS="26379 26380 26381"
+MASTER_NAME="oauth2-master"
+
+start_node() {
+    local port=$1
+    shift
+    mkdir -p "$BASE_DIR/$port"
+    redis-server --port "$port" --dir "$BASE_DIR/$port" --daemonize yes \
+        --logfile "$BASE_DIR/$port/redis.log" --pidfile "$BASE_DIR/$port/redis.pid" \
+        --save "" --appendonly no "$@"
+}
+
+wait_for() {
+    local port=$1
+    for _ in $(seq 1 50); do
+        redis-cli -p "$port" ping > /dev/null 2>&1 && return 0
+        sleep 0.1
+    done
+    echo "❌ 端口 $port 上的 Redis 未能启动"
+    exit 1
+}
+
+start_cluster() {
+    echo "🚀 启动 Redis Cluster..."
+    local nodes=""
+    for port in $CLUSTER_PORTS; do
+        start_node "$port" --cluster-enabled yes --cluster-config-file "$BASE_DIR/$port/nodes.conf" \
+            --cluster-node-timeout 5000
+        wait_for "$port"
+        nodes="$nodes 127.0.0.1:$port"
+    done
+    redis-cli --cluster create $nodes --cluster-replicas 1 --cluster-yes > /dev/null
+    echo "✅ Cluster 已就绪"
+    echo "   运行后端: cd backend && mvn spring-boot:run -Dspring-boot.run.profiles=cluster"
+}
+
+start_sentinel() {
+    echo "🚀 启动 Redis 主从 + Sentinel..."
+    local master_port
+    master_port=$(echo $SENTINEL_DATA_PORTS | cut -d' ' -f1)
+    for port in $SENTINEL_DATA_PORTS; do
+        if [ "$port" = "$master_port" ]; then
+            start_node "$port"
+        else
+            start_node "$port" --replicaof 127.0.0.1 "$master_port"
+        fi
+        wait_for "$port"
+    done
+    
+    for port in $SENTINEL_PORTS; do
+        mkdir -p "$BASE_DIR/$port"
+        cat > "$BASE_DIR/$port/sentinel.conf" <<CONF
+port $port
+daemonize yes
+dir $BASE_DIR/$port
+logfile $BASE_DIR/$port/sentinel.log
+pidfile $BASE_DIR/$port/redis.pid
+sentinel monitor $MASTER_NAME 127.0.0.1 $master_port 2
+sentinel down-after-milliseconds $MASTER_NAME 3000
+sentinel failover-timeout $MASTER_NAME 10000
+sentinel parallel-syncs $MASTER_NAME 1
+CONF
+        redis-server "$BASE_DIR/$port/sentinel.conf" --sentinel
+        wait_for "$port"
+    done
+    echo "✅ Sentinel 已就绪，master 名称: $MASTER_NAME"
+    echo "   运行后端: cd backend && mvn spring-boot:run -Dspring-boot.run.profiles=sentinel"
+}
+
+failover() {
+    if redis-cli -p 26379 ping > /dev/null 2>&1; then
+        echo "🔁 通过 Sentinel 触发故障转移..."
+        redis-cli -p 26379 sentinel failover "$MASTER_NAME"
+    else
+        # 在第一个副本上执行 CLUSTER FAILOVER，使其接管对应主节点的槽
+        local replica
+        replica=$(redis-cli -p 7000 cluster nodes | awk '/slave/ {split($2, addr, "[:@]"); print addr[2]; exit}')
+        echo "🔁 在副本 $replica 上执行 CLUSTER FAILOVER..."
+        redis-cli -p "$replica" cluster failover
+    fi
+}
+
+stop_all() {
+    echo "🛑 停止本地 Redis 拓扑..."
+    for port in $CLUSTER_PORTS $SENTINEL_DATA_PORTS $SENTINEL_PORTS; do
+        redis-cli -p "$port" shutdown nosave > /dev/null 2>&1 || true
+    done
+    rm -rf "$BASE_DIR"
+    echo "✅ 已停止"
+}
+
+case "$1" in
+    cluster) start_cluster ;;
+    sentinel) start_sentinel ;;
+    failover) failover ;;
+    stop) stop_all ;;
+    *)
+        echo "用法: $0 {cluster|sentinel|failover|stop}"
+        exit 1
+        ;;
+esac
@@ -0,0 +1,147 @@
+#!/bin/bash
+#
+# 测量后端从进程启动到第一次 /auth/oauth2/authorize 返回 200 的耗时
+#
+#   ./startup-benchmark.sh jar          普通可执行jar（基线）
+#   ./startup-benchmark.sh aot          AOT 生成的 Bean 定义
+#   ./startup-benchmark.sh cds          AOT + AppCDS 归档
+#   ./startup-benchmark.sh checkpoint   预热后生成 CRaC 检查点（需要 CRaC JDK）
+#   ./startup-benchmark.sh crac         从检查点恢复
+#   ./startup-benchmark.sh all          依次对比以上可用的模式
+#
+# 先构建：mvn -f backend/pom.xml -Pfast-startup package（CRaC 再加 ,crac）
+# 需要本机 Redis（localhost:6379），state 写入 Redis 后 authorize 才会返回 200
+#
+# 环境变量：RUNS（每种模式的次数，默认 5）、WARMUP_REQUESTS（检查点前的预热请求数，默认 2000）
+
+set -e
+
+ROOT_DIR="$(cd "$(dirname "$0")" && pwd)"
+TARGET_DIR="$ROOT_DIR/backend/target"
+EXEC_JAR="$TARGET_DIR/oauth2-multi-platform-1.0.0-exec.jar"
+THIN_JAR="$TARGET_DIR/oauth2-multi-platform-1.0.0.jar"
+CDS_ARCHIVE="$TARGET_DIR/fast-startup/application.jsa"
+CRAC_DIR="$TARGET_DIR/fast-startup/crac"
+URL="http://localhost:8080/auth/oauth2/authorize"
+BODY='{"provider":"GOOGLE","platform":"WEB","redirectUri":"http://localhost:3000/oauth2/callback"}'
+RUNS="${RUNS:-5}"
+WARMUP_REQUESTS="${WARMUP_REQUESTS:-2000}"
+LOG_FILE="/tmp/oauth2-startup.log"
+
+now_ms() {
+    date +%s%3N
+}
+
+authorize() {
+    curl -s -o /dev/null -w '%{http_code}' -X POST "$URL" \
+        -H 'Content-Type: application/json' -d "$BODY" 2>/dev/null || true
+}
+
+launch() {
+    case "$1" in
+        jar)
+            java -jar "$EXEC_JAR" > "$LOG_FILE" 2>&1 &
+            ;;
+        aot)
+            java -Dspring.aot.enabled=true -jar "$THIN_JAR" > "$LOG_FILE" 2>&1 &
+            ;;
+        cds)
+            java -XX:SharedArchiveFile="$CDS_ARCHIVE" -Xshare:auto -Dspring.aot.enabled=true \
+                -jar "$THIN_JAR" > "$LOG_FILE" 2>&1 &
+            ;;
+        crac)
+            java -XX:CRaCRestoreFrom="$CRAC_DIR" > "$LOG_FILE" 2>&1 &
+            ;;
+    esac
+    APP_PID=$!
+}
+
+# 单次测量，输出毫秒数
+measure_once() {
+    local start
+    start=$(now_ms)
+    launch "$1"
+    until [ "$(authorize)" = "200" ]; do
+        if ! kill -0 "$APP_PID" 2>/dev/null; then
+            echo "❌ 进程已退出，日志见 $LOG_FILE" >&2
+            exit 1
+        fi
+        sleep 0.02
+    done
+    local elapsed=$(( $(now_ms) - start ))
+    kill "$APP_PID" 2>/dev/null
+    wait "$APP_PID" 2>/dev/null || true
+    echo "$elapsed"
+}
+
+measure() {
+    local mode=$1
+    local results=()
+    for _ in $(seq 1 "$RUNS"); do
+        results+=("$(measure_once "$mode")")
+    done
+    local sorted
+    sorted=$(printf '%s\n' "${results[@]}" | sort -n)
+    local min median
+    min=$(echo "$sorted" | head -1)
+    median=$(echo "$sorted" | sed -n "$(( (RUNS + 1) / 2 ))p")
+    printf '%-6s 中位数 %6s ms   最小 %6s ms   (%s 次)\n' "$mode" "$median" "$min" "$RUNS"
+}
+
+checkpoint() {
+    rm -rf "$CRAC_DIR"
+    mkdir -p "$CRAC_DIR"
+    echo "🚀 启动并预热 ($WARMUP_REQUESTS 次 authorize)..."
+    java -XX:CRaCCheckpointTo="$CRAC_DIR" -XX:SharedArchiveFile="$CDS_ARCHIVE" -Xshare:auto \
+        -Dspring.aot.enabled=true -jar "$THIN_JAR" > "$LOG_FILE" 2>&1 &
+    APP_PID=$!
+    until [ "$(authorize)" = "200" ]; do
+        sleep 0.1
+    done
+    for _ in $(seq 1 "$WARMUP_REQUESTS"); do
+        authorize > /dev/null
+    done
+    echo "📸 生成检查点..."
+    jcmd "$APP_PID" JDK.checkpoint > /dev/null
+    wait "$APP_PID" 2>/dev/null || true
+    echo "✅ 检查点已写入 $CRAC_DIR"
+}
+
+require() {
+    if [ ! -e "$1" ]; then
+        echo "❌ 缺少 $1，请先执行: $2"
+        exit 1
+    fi
+}
+
+case "$1" in
+    jar)
+        require "$EXEC_JAR" "mvn -f backend/pom.xml package"
+        measure jar
+        ;;
+    aot|cds)
+        require "$CDS_ARCHIVE" "mvn -f backend/pom.xml -Pfast-startup package"
+        measure "$1"
+        ;;
+    checkpoint)
+        require "$CDS_ARCHIVE" "mvn -f backend/pom.xml -Pfast-startup,crac package"
+        checkpoint
+        ;;
+    crac)
+        require "$CRAC_DIR" "./startup-benchmark.sh checkpoint"
+        measure crac
+        ;;
+    all)
+        require "$CDS_ARCHIVE" "mvn -f backend/pom.xml -Pfast-startup package"
+        measure jar
+        measure aot
+        measure cds
+        if [ -d "$CRAC_DIR" ]; then
+            measure crac
+        fi
+        ;;
+    *)
+        echo "用法: $0 {jar|aot|cds|checkpoint|crac|all}"
+        exit 1
+        ;;
+esac